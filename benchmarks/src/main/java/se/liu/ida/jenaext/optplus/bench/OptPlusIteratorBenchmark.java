@@ -0,0 +1,122 @@
+package se.liu.ida.jenaext.optplus.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryExecution;
+import org.apache.jena.query.QueryFactory;
+import org.apache.jena.query.ResultSet;
+import org.apache.jena.sparql.core.DatasetGraphFactory;
+import org.apache.jena.system.JenaSystem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.rdfhdt.hdt.hdt.HDT;
+import org.rdfhdt.hdt.hdt.HDTManager;
+import org.rdfhdt.hdtjena.HDTGraph;
+
+import se.liu.ida.jenaext.optplus.ExperimentConfiguration;
+import se.liu.ida.jenaext.optplus.RunExperiment;
+import se.liu.ida.jenaext.optplus.sparql.engine.main.QueryEnginePlus;
+
+/**
+ * Measures the complete execution of a query (including consuming all
+ * solutions) with each of the OPT+ iterator implementations. The HDT
+ * file, the query directory, and the query IDs have to be passed as
+ * parameters, e.g.:
+ * <pre>
+ * java -jar target/benchmarks.jar -p hdtFile=dbpedia.hdt -p queryDir=queries -p queryID=1,7,42
+ * </pre>
+ * The special iterator name {@value #NO_OPT_PLUS} selects the standard
+ * OPTIONAL semantics, which serves as a baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 3, jvmArgsAppend = {"-Xms4G", "-Xmx4G"})
+public class OptPlusIteratorBenchmark
+{
+	static final public String NO_OPT_PLUS = "none";
+
+	static { JenaSystem.init(); }
+
+	@Param({ "QueryIterNLJPlusWithOuterLoopOverMaterializedLeft",
+	         "QueryIterNestedLoopJoinPlus",
+	         "QueryIterHashJoinPlusMaterializeLeftOnTheFly",
+	         "QueryIterHashJoinPlusMaterializeRightFirst" })
+	public String iterator;
+
+	@Param({""})
+	public String queryID;
+
+	@Param({""})
+	public String hdtFile;
+
+	@Param({""})
+	public String queryDir;
+
+	protected HDT hdt;
+	protected Dataset dataset;
+	protected ExperimentConfiguration config;
+	protected Query query;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException
+	{
+		if ( hdtFile.isEmpty() || queryDir.isEmpty() || queryID.isEmpty() )
+			throw new IllegalStateException("The parameters hdtFile, queryDir, and queryID have to be given (e.g., -p hdtFile=dataset.hdt)");
+
+		QueryEnginePlus.register();
+
+		if ( iterator.equals(NO_OPT_PLUS) )
+			config = new ExperimentConfiguration("Opt", false, null);
+		else
+			config = new ExperimentConfiguration("Opt", true, iterator);
+
+		hdt = HDTManager.mapIndexedHDT(hdtFile, null);
+		dataset = DatasetFactory.wrap( DatasetGraphFactory.create(new HDTGraph(hdt)) );
+		query = QueryFactory.read( config.getQueryFile(new File(queryDir), queryID).getPath() );
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException
+	{
+		hdt.close();
+	}
+
+	@Benchmark
+	public long execute( Blackhole bh )
+	{
+		final QueryExecution qe = RunExperiment.createQueryExecution(query, dataset, config);
+		try {
+			final ResultSet rs = qe.execSelect();
+			long solutionCounter = 0L;
+			while ( rs.hasNext() ) {
+				bh.consume( rs.next() );
+				solutionCounter++;
+			}
+			return solutionCounter;
+		}
+		finally {
+			qe.close();
+		}
+	}
+
+}
@@ -0,0 +1,30 @@
+package se.liu.ida.jenaext.optplus.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the usual JMH command line options and
+ * always enables the GC profiler, which reports the garbage collection
+ * activity as well as the allocation rate and the bytes allocated per
+ * operation (gc.alloc.rate.norm).
+ */
+public class RunBenchmarks
+{
+	static public void main( String... argv ) throws RunnerException, CommandLineOptionException
+	{
+		final Options opts = new OptionsBuilder()
+		                         .parent( new CommandLineOptions(argv) )
+		                         .include( OptPlusIteratorBenchmark.class.getSimpleName() )
+		                         .addProfiler( GCProfiler.class )
+		                         .build();
+
+		new Runner(opts).run();
+	}
+
+}
@@ -1,7 +1,25 @@
 #!/bin/bash
+#
+# Imports all measurements-*.csv files of the current directory as a new
+# run into the columnar measurement store (measurements.store, by default)
+# and, as before, appends them to measurements.csv, each one preceded by
+# its file name. Additional arguments (e.g., --run=name or --store=dir)
+# are passed to ImportMeasurements.
+#
+# If the jar has not been built (mvn package), the files are only
+# appended to measurements.csv.
 
-for f in measurements-*.csv
-do
-	echo "$f" >> measurements.csv
-	cat $f >> measurements.csv
-done
+JAR=$(dirname "$0")/target/OptPlusExperiments-0.0.1-SNAPSHOT.jar
+
+if [ ! -f "$JAR" ]
+then
+	echo "$JAR not found (run 'mvn package' to build it); the measurements are appended to measurements.csv but not imported into the measurement store." >&2
+	for f in measurements-*.csv
+	do
+		echo "$f" >> measurements.csv
+		cat $f >> measurements.csv
+	done
+	exit 0
+fi
+
+java -cp "$JAR" se.liu.ida.jenaext.optplus.store.ImportMeasurements --csv=measurements.csv "$@" measurements-*.csv
@@ -0,0 +1,163 @@
+package se.liu.ida.jenaext.optplus;
+
+import java.util.Arrays;
+
+/**
+ * Splits a line of a CSV file into its fields without creating a new
+ * object per field; the fields are kept as start and end positions in
+ * the line, and the tokenizer can be reused for every line.
+ *
+ * The fields are the same as the ones of <code>line.split(",")</code>;
+ * in particular, trailing empty fields are not counted.
+ */
+public class CSVTokenizer
+{
+	static final protected double[] POWERS_OF_TEN = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+		1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+	protected String line;
+	protected char[] chars = new char[4096];
+	protected int fieldCount = 0;
+	protected int[] starts = new int[128];
+	protected int[] ends   = new int[128];
+
+	/**
+	 * Tokenizes the given line, replacing the previous one.
+	 */
+	public void reset( String line )
+	{
+		this.line = line;
+		fieldCount = 0;
+
+		final int length = line.length();
+		if ( chars.length < length )
+			chars = new char[ 2*length ];
+		line.getChars(0, length, chars, 0);
+
+		int start = 0;
+		for ( int i = 0; i <= length; ++i )
+		{
+			if ( i == length || chars[i] == ',' )
+			{
+				if ( fieldCount == starts.length ) {
+					starts = Arrays.copyOf(starts, 2*fieldCount);
+					ends   = Arrays.copyOf(ends, 2*fieldCount);
+				}
+				starts[fieldCount] = start;
+				ends[fieldCount]   = i;
+				fieldCount++;
+				start = i + 1;
+			}
+		}
+
+		// like String.split, drop trailing empty fields (but keep the
+		// first field, as split does for an empty line)
+		while ( fieldCount > 1 && starts[fieldCount-1] == ends[fieldCount-1] )
+			fieldCount--;
+	}
+
+	public int getFieldCount() { return fieldCount; }
+
+	/**
+	 * Returns true if the given field is empty or consists of whitespace only.
+	 */
+	public boolean isBlank( int field )
+	{
+		return trimmedStart(field) == trimmedEnd(field);
+	}
+
+	/**
+	 * Returns the given field without leading and trailing whitespace.
+	 * This creates a new string and, thus, should be used only for the
+	 * fields that are needed as strings.
+	 */
+	public String getTrimmed( int field )
+	{
+		return line.substring( trimmedStart(field), trimmedEnd(field) );
+	}
+
+	/**
+	 * Returns true if the given field, without leading and trailing
+	 * whitespace, is equal to the given string.
+	 */
+	public boolean trimmedEquals( int field, String s )
+	{
+		final int start = trimmedStart(field);
+		final int end   = trimmedEnd(field);
+		return end - start == s.length() && line.regionMatches(start, s, 0, s.length());
+	}
+
+	/**
+	 * Parses the given field as a double, with the same result as
+	 * {@link Double#parseDouble(String)}. Plain decimal numbers with
+	 * at most 15 significant digits (which covers the counts and most
+	 * of the times in the measurements files) are parsed without
+	 * creating a string;
+	 * for these, the mantissa and the power of ten are exact doubles and,
+	 * thus, a single division yields the correctly rounded value.
+	 *
+	 * @throws NumberFormatException if the field is not a number
+	 */
+	public double parseDouble( int field )
+	{
+		final int start = trimmedStart(field);
+		final int end   = trimmedEnd(field);
+
+		int i = start;
+		boolean negative = false;
+		if ( i < end && (chars[i] == '-' || chars[i] == '+') ) {
+			negative = ( chars[i] == '-' );
+			i++;
+		}
+
+		long mantissa = 0L;
+		boolean sawDigit = false;
+		int digits = 0;
+		int fractionDigits = 0;
+		boolean inFraction = false;
+		for ( ; i < end; ++i )
+		{
+			final char c = chars[i];
+			if ( c >= '0' && c <= '9' ) {
+				sawDigit = true;
+				mantissa = 10L*mantissa + (c - '0');
+				if ( mantissa > 0L )
+					digits++;
+				if ( inFraction )
+					fractionDigits++;
+			}
+			else if ( c == '.' && ! inFraction )
+				inFraction = true;
+			else
+				break;
+		}
+
+		// anything else, such as exponents, NaN, or too many digits,
+		// is left to Double.parseDouble
+		if ( i < end || ! sawDigit || digits > 15 || fractionDigits >= POWERS_OF_TEN.length )
+			return Double.parseDouble( line.substring(start, end) );
+
+		final double value = mantissa / POWERS_OF_TEN[fractionDigits];
+		return negative ? -value : value;
+	}
+
+	protected int trimmedStart( int field )
+	{
+		int start = starts[field];
+		final int end = ends[field];
+		while ( start < end && chars[start] <= ' ' )
+			start++;
+		return start;
+	}
+
+	protected int trimmedEnd( int field )
+	{
+		final int start = trimmedStart(field);
+		int end = ends[field];
+		while ( end > start && chars[end-1] <= ' ' )
+			end--;
+		return end;
+	}
+
+}
@@ -0,0 +1,60 @@
+package se.liu.ida.jenaext.optplus;
+
+import java.io.File;
+
+/**
+ * One of the query engine configurations compared in an experiment,
+ * consisting of the prefix of the query files to be used, whether the
+ * OPT+ semantics is enabled, and the class name of the OPT+ iterator.
+ */
+public class ExperimentConfiguration
+{
+	final protected String filenamePrefix;
+	final protected boolean useOptPlusSemantics;
+	final protected String classnameOptPlusIterator;
+
+	public ExperimentConfiguration( String filenamePrefix, boolean useOptPlusSemantics, String classnameOptPlusIterator )
+	{
+		this.filenamePrefix = filenamePrefix;
+		this.useOptPlusSemantics = useOptPlusSemantics;
+		this.classnameOptPlusIterator = classnameOptPlusIterator;
+	}
+
+	public String getFilenamePrefix() { return filenamePrefix; }
+
+	public boolean useOptPlusSemantics() { return useOptPlusSemantics; }
+
+	public String getClassnameOptPlusIterator() { return classnameOptPlusIterator; }
+
+	/**
+	 * Returns the name that identifies this configuration
+	 * (e.g., "Opt-true-QueryIterNestedLoopJoinPlus").
+	 */
+	public String getName()
+	{
+		return filenamePrefix + "-" + useOptPlusSemantics + "-" + classnameOptPlusIterator;
+	}
+
+	/**
+	 * Returns the name that identifies this configuration in the names
+	 * of the output files (e.g., "Opt-true-QueryIterNestedLoopJoinPlus.csv").
+	 */
+	public String getOutfileName()
+	{
+		return getName() + ".csv";
+	}
+
+	/**
+	 * Returns the file with the variant of the given query that has to be
+	 * used for this configuration.
+	 */
+	public File getQueryFile( File queriesDir, String queryID )
+	{
+		final File queryDir = new File(queriesDir, queryID);
+		return new File(queryDir, filenamePrefix + "_file" + queryID + ".txt");
+	}
+
+	@Override
+	public String toString() { return getOutfileName(); }
+
+}
@@ -0,0 +1,194 @@
+package se.liu.ida.jenaext.optplus;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A journal of the finished (configuration, query) pairs of an
+ * experiment, which makes it possible to resume an interrupted run
+ * without executing these pairs again. For every finished pair, the
+ * journal file contains a line of the form
+ * <code>configuration TAB queryID TAB csvLine</code>, where the
+ * configuration is given by its name (see
+ * {@link ExperimentConfiguration#getName()}) and the CSV line is the
+ * line of the measurements file for the pair. Every line is appended
+ * and synced to the disk as soon as the pair is finished; a last line
+ * that is incomplete because the process was killed while writing it
+ * is ignored when the journal is read, and it is removed from the file
+ * before the next line is appended. If a pair occurs several times,
+ * the last line counts.
+ *
+ * Since the CSV lines are kept in the journal, the measurements files
+ * can be written again completely (and in the order of the queries)
+ * when a run is resumed.
+ */
+public class ExperimentJournal
+{
+	static final public String DEFAULT_FILE = "experiment.journal";
+
+	static final protected char SEPARATOR = '\t';
+
+	final protected File file;
+	final protected Map<String,String> lines = new HashMap<>();
+	protected FileOutputStream out = null;
+	protected Writer writer = null;
+
+	public ExperimentJournal( File file )
+	{
+		this.file = file;
+	}
+
+	public File getFile() { return file; }
+
+	/**
+	 * Reads the journal file, if it exists, and returns the number of
+	 * finished pairs.
+	 */
+	synchronized public int read() throws IOException
+	{
+		if ( ! file.exists() )
+			return 0;
+
+		final boolean complete = endsWithNewline(file);
+		try ( BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) )
+		{
+			String line = br.readLine();
+			while ( line != null )
+			{
+				final String next = br.readLine();
+				if ( next == null && ! complete )
+					break; // incomplete last line
+
+				final String current = line;
+				line = next;
+
+				final int sep1 = current.indexOf(SEPARATOR);
+				final int sep2 = ( sep1 < 0 ) ? -1 : current.indexOf(SEPARATOR, sep1 + 1);
+				if ( sep2 >= 0 )
+					lines.put( current.substring(0, sep2), current.substring(sep2 + 1) );
+			}
+		}
+		return lines.size();
+	}
+
+	/**
+	 * Returns the CSV line that has been recorded for the given pair, or
+	 * null if the pair is not finished.
+	 */
+	synchronized public String get( ExperimentConfiguration config, String queryID )
+	{
+		return lines.get( createKey(config.getName(), queryID) );
+	}
+
+	/**
+	 * Returns the CSV line that has been recorded for the given pair if
+	 * it does not have to be executed again, that is, if there is such a
+	 * line and, in case failed pairs are to be rerun, if this line does
+	 * not report an error or a timeout. Otherwise, null is returned.
+	 */
+	public String getFinished( ExperimentConfiguration config, String queryID, boolean rerunFailed )
+	{
+		final String csv = get(config, queryID);
+		if ( csv == null || (rerunFailed && isFailed(csv)) )
+			return null;
+		return csv;
+	}
+
+	/**
+	 * Appends the given CSV line for the given pair to the journal file,
+	 * and syncs the file to the disk. An incomplete last line of the file
+	 * is truncated before the first line is appended.
+	 */
+	synchronized public void record( ExperimentConfiguration config, String queryID, String csv ) throws IOException
+	{
+		final String key = createKey( config.getName(), queryID );
+		lines.put(key, csv);
+
+		if ( writer == null )
+		{
+			truncateIncompleteLine(file);
+			out = new FileOutputStream(file, true);
+			writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+		}
+
+		writer.write( key + SEPARATOR + csv.replace('\n', ' ') + "\n" );
+		writer.flush();
+		out.getFD().sync();
+	}
+
+	synchronized public void close() throws IOException
+	{
+		if ( writer != null ) {
+			writer.close();
+			writer = null;
+			out = null;
+		}
+	}
+
+	/**
+	 * Returns true if the given CSV line reports an error, a timeout, or
+	 * an exceeded budget.
+	 */
+	static public boolean isFailed( String csv )
+	{
+		final CSVTokenizer t = new CSVTokenizer();
+		t.reset(csv);
+		return RankingSummary.isCutOff(t) || ( t.getFieldCount() > 1 && t.getTrimmed(1).startsWith("ERROR") );
+	}
+
+	static protected String createKey( String configName, String queryID )
+	{
+		return configName + SEPARATOR + queryID;
+	}
+
+	/**
+	 * Truncates the given file, if it exists, after its last line break
+	 * (or to length zero if it does not contain any line break).
+	 */
+	static protected void truncateIncompleteLine( File f ) throws IOException
+	{
+		if ( ! f.exists() || endsWithNewline(f) )
+			return;
+
+		try ( RandomAccessFile raf = new RandomAccessFile(f, "rw") )
+		{
+			long pos = raf.length() - 1L;
+			while ( pos >= 0L )
+			{
+				raf.seek(pos);
+				if ( raf.read() == '\n' )
+					break;
+				pos--;
+			}
+			raf.setLength( pos + 1L );
+			raf.getFD().sync();
+		}
+	}
+
+	/**
+	 * Returns true if the given file is empty or its last byte is a
+	 * line break.
+	 */
+	static protected boolean endsWithNewline( File f ) throws IOException
+	{
+		try ( RandomAccessFile raf = new RandomAccessFile(f, "r") )
+		{
+			if ( raf.length() == 0L )
+				return true;
+
+			raf.seek( raf.length() - 1L );
+			return raf.read() == '\n';
+		}
+	}
+
+}
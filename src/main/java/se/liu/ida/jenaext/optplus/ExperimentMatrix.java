@@ -0,0 +1,133 @@
+package se.liu.ida.jenaext.optplus;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The configurations to be compared in an experiment.
+ *
+ * The configurations can be read from a CSV file in which every line
+ * has the form <code>prefix, semantics, iterator</code>, where prefix
+ * is the prefix of the query files (e.g., "Opt" or "OptP"), semantics
+ * is <code>true</code> for the OPT+ semantics and <code>false</code>
+ * otherwise, and iterator is the class name of the OPT+ iterator, or
+ * '-' if there is none. Every field may list several alternatives,
+ * separated by '|', in which case the line stands for every combination
+ * of the alternatives. For instance, the line
+ * <code>Opt, true, QueryIterNestedLoopJoinPlus|QueryIterHashJoinPlusMaterializeRightFirst</code>
+ * stands for two configurations. The iterator is ignored for the
+ * configurations with <code>false</code> as semantics, and every
+ * configuration is contained only once even if several lines stand
+ * for it. Empty lines and lines starting with '#' are ignored.
+ */
+public class ExperimentMatrix
+{
+	static final public String ALTERNATIVES_SEPARATOR = "|";
+	static final public String NO_ITERATOR = "-";
+
+	final protected Map<String,ExperimentConfiguration> configs = new LinkedHashMap<>();
+
+	/**
+	 * Returns the matrix with the configurations used by default, which
+	 * are the ones of the original experiments.
+	 */
+	static public ExperimentMatrix createDefault()
+	{
+		final ExperimentMatrix m = new ExperimentMatrix();
+		m.add( new ExperimentConfiguration("Opt", false, null) );
+		m.add( new ExperimentConfiguration("Opt", true, "QueryIterNLJPlusWithOuterLoopOverMaterializedLeft") );
+		m.add( new ExperimentConfiguration("OptP", false, null) );
+		m.add( new ExperimentConfiguration("Opt", true, "QueryIterNestedLoopJoinPlus") );
+		m.add( new ExperimentConfiguration("Opt", true, "QueryIterHashJoinPlusMaterializeLeftOnTheFly") );
+		m.add( new ExperimentConfiguration("Opt", true, "QueryIterHashJoinPlusMaterializeRightFirst") );
+//		m.add( new ExperimentConfiguration("Opt", true, "QueryIterHashJoinPlusMaterializeLeftFirst") );
+//		m.add( new ExperimentConfiguration("Opt", true, "QueryIterNestedLoopJoinPlusMaterializeLeftOnTheFly") );
+//		m.add( new ExperimentConfiguration("Opt", true, "QueryIterNestedLoopJoinPlusMaterializeRightFirst") );
+//		m.add( new ExperimentConfiguration("Opt", true, "QueryIterSubsumptionAwareJoinPlus") );
+		return m;
+	}
+
+	/**
+	 * Adds the given configuration, unless this matrix contains a
+	 * configuration with the same name already.
+	 */
+	public void add( ExperimentConfiguration config )
+	{
+		if ( ! configs.containsKey(config.getName()) )
+			configs.put( config.getName(), config );
+	}
+
+	/**
+	 * Returns the configurations of this matrix in the order in which
+	 * they have been added.
+	 */
+	public List<ExperimentConfiguration> getConfigurations()
+	{
+		return new ArrayList<>( configs.values() );
+	}
+
+	public int size() { return configs.size(); }
+
+	/**
+	 * Adds the configurations from the given file to this matrix.
+	 *
+	 * @throws IllegalArgumentException if a line of the file is malformed
+	 */
+	public void read( File file ) throws IOException
+	{
+		final BufferedReader br = new BufferedReader( new FileReader(file) );
+		try {
+			int lineNumber = 0;
+			for ( String line; (line = br.readLine()) != null; )
+			{
+				lineNumber++;
+				line = line.trim();
+				if ( line.isEmpty() || line.startsWith("#") )
+					continue;
+
+				final String[] splittedLine = line.split(",");
+				if ( splittedLine.length != 3 )
+					throw new IllegalArgumentException("Line " + lineNumber + " of " + file.getName() + " does not have three fields");
+
+				final String[] prefixes   = splitAlternatives( splittedLine[0] );
+				final String[] semantics  = splitAlternatives( splittedLine[1] );
+				final String[] iterators  = splitAlternatives( splittedLine[2] );
+
+				for ( String s : semantics ) {
+					if ( ! s.equals("true") && ! s.equals("false") )
+						throw new IllegalArgumentException("Line " + lineNumber + " of " + file.getName() + " has an invalid semantics '" + s + "' (use 'true' or 'false')");
+				}
+
+				for ( String prefix : prefixes ) {
+					for ( String s : semantics ) {
+						final boolean useOptPlusSemantics = Boolean.parseBoolean(s);
+						for ( String iterator : iterators ) {
+							if ( ! useOptPlusSemantics || iterator.equals(NO_ITERATOR) )
+								add( new ExperimentConfiguration(prefix, useOptPlusSemantics, null) );
+							else
+								add( new ExperimentConfiguration(prefix, useOptPlusSemantics, iterator) );
+						}
+					}
+				}
+			}
+		}
+		finally {
+			br.close();
+		}
+	}
+
+	static protected String[] splitAlternatives( String field )
+	{
+		final String[] alternatives = field.split("\\" + ALTERNATIVES_SEPARATOR);
+		for ( int i = 0; i < alternatives.length; ++i )
+			alternatives[i] = alternatives[i].trim();
+		return alternatives;
+	}
+
+}
@@ -0,0 +1,70 @@
+package se.liu.ida.jenaext.optplus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The order in which the (configuration, query) pairs of an experiment
+ * are executed.
+ *
+ * In the sequential order, every configuration makes a full pass over
+ * all queries before the next configuration starts, which means that
+ * later configurations benefit from the page cache and from the JIT
+ * profile warmed up by the earlier ones. In the interleaved order, all
+ * configurations are executed for one query before the next query
+ * follows, and the configurations are shuffled for every query, based
+ * on a seed such that the order can be reproduced. In both orders, the
+ * queries of every configuration are executed in the given order of
+ * the queries.
+ */
+public class ExperimentSchedule
+{
+	/**
+	 * A (configuration, query) pair, given by the indexes of the
+	 * configuration and of the query in the lists of configurations
+	 * and of queries of the experiment.
+	 */
+	static public class Entry
+	{
+		final public int configIndex;
+		final public int queryIndex;
+
+		public Entry( int configIndex, int queryIndex )
+		{
+			this.configIndex = configIndex;
+			this.queryIndex = queryIndex;
+		}
+
+		@Override
+		public String toString() { return "(" + configIndex + ", " + queryIndex + ")"; }
+	}
+
+	static public List<Entry> createSequential( int numberOfConfigs, int numberOfQueries )
+	{
+		final List<Entry> schedule = new ArrayList<>( numberOfConfigs * numberOfQueries );
+		for ( int c = 0; c < numberOfConfigs; ++c )
+			for ( int q = 0; q < numberOfQueries; ++q )
+				schedule.add( new Entry(c, q) );
+		return schedule;
+	}
+
+	static public List<Entry> createInterleaved( int numberOfConfigs, int numberOfQueries, long seed )
+	{
+		final Random rnd = new Random(seed);
+		final List<Integer> configOrder = new ArrayList<>(numberOfConfigs);
+		for ( int c = 0; c < numberOfConfigs; ++c )
+			configOrder.add(c);
+
+		final List<Entry> schedule = new ArrayList<>( numberOfConfigs * numberOfQueries );
+		for ( int q = 0; q < numberOfQueries; ++q )
+		{
+			Collections.shuffle(configOrder, rnd);
+			for ( Integer c : configOrder )
+				schedule.add( new Entry(c, q) );
+		}
+		return schedule;
+	}
+
+}
@@ -0,0 +1,267 @@
+package se.liu.ida.jenaext.optplus;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import jena.cmd.ArgDecl;
+import se.liu.ida.jenaext.optplus.monitor.ExperimentProgress;
+import se.liu.ida.jenaext.optplus.trace.SolutionCheckpoints;
+
+/**
+ * Runs the (configuration, query) pairs of an experiment in child JVMs
+ * such that neither the JIT profile nor the state of the heap of one
+ * configuration carries over to the others. Every child JVM executes
+ * one configuration for a chunk of consecutive queries (all queries by
+ * default), and it is given the same arguments as the driver, restricted
+ * to its configuration and its queries. The child JVM prints its CSV
+ * lines to stdout, prefixed with {@link #RESULT_PREFIX}, and the driver
+ * stitches these lines into the usual measurements files; all other
+ * output of the child JVM is forwarded. If a child JVM crashes or is
+ * killed (e.g., because it runs out of memory), the queries for which
+ * it has not printed a result are recorded as errors, and the driver
+ * continues with the next child JVM.
+ *
+ * The chunks are executed in the given order of the experiment, where
+ * the chunks take the place of the queries (see {@link ExperimentSchedule}).
+ */
+public class ForkedExperimentDriver
+{
+	static final public String RESULT_PREFIX = "@result ";
+
+	final protected String mainClass;
+	final protected List<String> jvmArgs;
+	final protected List<String> childArgs;
+	final protected int queriesPerJVM;
+	final protected ExperimentProgress progress;
+
+	/**
+	 * @param mainClass class whose main method runs a child JVM
+	 * @param jvmArgs arguments for the child JVMs (e.g., "-Xmx8g")
+	 * @param childArgs arguments of the experiment that are passed to every child JVM
+	 * @param queriesPerJVM maximum number of queries per child JVM
+	 * @param progress progress that is updated with the results of the child JVMs
+	 */
+	public ForkedExperimentDriver( String mainClass,
+	                               List<String> jvmArgs,
+	                               List<String> childArgs,
+	                               int queriesPerJVM,
+	                               ExperimentProgress progress )
+	{
+		this.mainClass = mainClass;
+		this.jvmArgs = jvmArgs;
+		this.childArgs = childArgs;
+		this.queriesPerJVM = queriesPerJVM;
+		this.progress = progress;
+	}
+
+	/**
+	 * Runs the given configurations for the given queries, in the
+	 * interleaved or in the sequential order of the chunks, and writes
+	 * the results into a measurements file per configuration.
+	 */
+	public void run( List<ExperimentConfiguration> configs,
+	                 List<String> queryIDs,
+	                 boolean interleaved,
+	                 long seed,
+	                 SolutionCheckpoints checkpoints )
+	{
+		final int chunks = ( queryIDs.size() + queriesPerJVM - 1 ) / queriesPerJVM;
+
+		final List<ExperimentSchedule.Entry> schedule;
+		if ( interleaved ) {
+			System.out.println("Interleaved order of the child JVMs with seed " + seed);
+			schedule = ExperimentSchedule.createInterleaved( configs.size(), chunks, seed );
+		}
+		else {
+			schedule = ExperimentSchedule.createSequential( configs.size(), chunks );
+		}
+
+		progress.setPlannedQueries( (long) configs.size() * queryIDs.size() );
+
+		final PrintWriter[] writers = new PrintWriter[ configs.size() ];
+		try
+		{
+			for ( int i = 0; i < configs.size(); ++i )
+			{
+				final File csvOutputFile = new File( "measurements-" + configs.get(i).getOutfileName() );
+				MeasurementColumns.writeSidecar( csvOutputFile, MeasurementColumns.create(checkpoints) );
+				writers[i] = new PrintWriter(csvOutputFile);
+			}
+
+			for ( ExperimentSchedule.Entry e : schedule )
+			{
+				final int from = e.queryIndex * queriesPerJVM;
+				final int to = Math.min( from + queriesPerJVM, queryIDs.size() );
+				final List<String> lines = runChild( configs.get(e.configIndex), queryIDs.subList(from, to), from );
+				for ( String line : lines )
+					writers[e.configIndex].println(line);
+				writers[e.configIndex].flush();
+			}
+		}
+		catch ( IOException e ) {
+			System.err.println( e.getMessage() );
+		}
+		finally
+		{
+			for ( PrintWriter w : writers ) {
+				if ( w != null )
+					w.close();
+			}
+		}
+	}
+
+	/**
+	 * Runs a child JVM for the given configuration and the given queries,
+	 * which start at the given position of all queries, and returns a
+	 * CSV line for each of these queries.
+	 */
+	protected List<String> runChild( ExperimentConfiguration config, List<String> queryIDs, int from )
+	{
+		final String label = config.getName() + " " + from + "-" + ( from + queryIDs.size() - 1 );
+		System.out.println("Starting a child JVM for " + label);
+
+		final List<String> results = new ArrayList<>();
+		String failure;
+		Process p = null;
+		try
+		{
+			p = new ProcessBuilder( createCommand(config, from, from + queryIDs.size()) )
+			        .redirectError(ProcessBuilder.Redirect.INHERIT)
+			        .start();
+			p.getOutputStream().close();
+
+			progress.queryStarted( config.getName(), queryIDs.get(0) );
+			final BufferedReader r = new BufferedReader( new InputStreamReader(p.getInputStream(), StandardCharsets.UTF_8) );
+			for ( String line; (line = r.readLine()) != null; )
+			{
+				if ( ! line.startsWith(RESULT_PREFIX) || results.size() == queryIDs.size() ) {
+					System.out.println( "[" + label + "] " + line );
+					continue;
+				}
+
+				final String csv = line.substring( RESULT_PREFIX.length() );
+				final int i = results.size();
+				results.add(csv);
+				progress.queryFinished( config.getName(), queryIDs.get(i), csv );
+				if ( i + 1 < queryIDs.size() )
+					progress.queryStarted( config.getName(), queryIDs.get(i+1) );
+			}
+
+			final int status = p.waitFor();
+			failure = "the child JVM exited with status " + status + " before finishing the query";
+		}
+		catch ( IOException e ) {
+			failure = "running the child JVM failed (" + e.getMessage() + ")";
+		}
+		catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+			failure = "interrupted while waiting for the child JVM";
+		}
+		finally
+		{
+			if ( p != null )
+				p.destroyForcibly();
+		}
+
+		final List<String> lines = completeResults(results, queryIDs, failure);
+		for ( int i = results.size(); i < queryIDs.size(); ++i )
+		{
+			if ( i == results.size() )
+				System.err.println( "The child JVM for " + label + " ended after " + i + " of " + queryIDs.size() + " queries: " + failure );
+			else
+				progress.queryStarted( config.getName(), queryIDs.get(i) );
+			progress.queryFinished( config.getName(), queryIDs.get(i), lines.get(i) );
+		}
+		return lines;
+	}
+
+	/**
+	 * Returns the command that starts a child JVM for the given
+	 * configuration and the queries from position 'from' (inclusive)
+	 * to position 'to' (exclusive).
+	 */
+	protected List<String> createCommand( ExperimentConfiguration config, int from, int to )
+	{
+		final List<String> command = new ArrayList<>();
+		command.add( System.getProperty("java.home") + File.separator + "bin" + File.separator + "java" );
+		command.addAll(jvmArgs);
+		command.add("-cp");
+		command.add( System.getProperty("java.class.path") );
+		command.add(mainClass);
+		command.addAll(childArgs);
+		command.add( "--onlyConfig=" + config.getName() );
+		command.add( "--queryRange=" + from + "-" + to );
+		command.add("--order=sequential");
+		command.add("--streamResults");
+		return command;
+	}
+
+	/**
+	 * Returns the given CSV lines of the first queries, followed by an
+	 * error line with the given reason for each of the remaining queries.
+	 */
+	static public List<String> completeResults( List<String> results, List<String> queryIDs, String reason )
+	{
+		final List<String> lines = new ArrayList<>(results);
+		for ( int i = results.size(); i < queryIDs.size(); ++i )
+		{
+			if ( i == results.size() )
+				lines.add( queryIDs.get(i) + ", ERROR: " + reason );
+			else
+				lines.add( queryIDs.get(i) + ", ERROR: not executed because the child JVM ended at query " + queryIDs.get(results.size()) );
+		}
+		return lines;
+	}
+
+	/**
+	 * Returns the given command line arguments without the given options
+	 * (in any of the forms '--name', '-name', '--name=value', and
+	 * '--name value').
+	 */
+	static public List<String> removeOptions( String[] argv, ArgDecl... options )
+	{
+		final List<String> args = new ArrayList<>();
+		for ( int i = 0; i < argv.length; ++i )
+		{
+			final String arg = argv[i];
+			boolean removed = false;
+			if ( arg.startsWith("-") && ! arg.equals("-") && ! arg.equals("--") )
+			{
+				final String name = arg.replaceFirst("^--?", "");
+				final int eq = name.indexOf('=');
+				for ( ArgDecl d : options )
+				{
+					if ( d.getNames().contains( (eq < 0) ? name : name.substring(0, eq) ) ) {
+						removed = true;
+						if ( eq < 0 && d.takesValue() )
+							i++; // skip the value
+						break;
+					}
+				}
+			}
+
+			if ( ! removed )
+				args.add(arg);
+		}
+		return args;
+	}
+
+	/**
+	 * Splits the given JVM arguments at white space.
+	 */
+	static public List<String> splitJVMArgs( String jvmArgs )
+	{
+		final String trimmed = jvmArgs.trim();
+		if ( trimmed.isEmpty() )
+			return new ArrayList<>();
+		return new ArrayList<>( Arrays.asList(trimmed.split("\\s+")) );
+	}
+
+}
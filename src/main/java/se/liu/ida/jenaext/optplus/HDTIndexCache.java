@@ -0,0 +1,159 @@
+package se.liu.ida.jenaext.optplus;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * A directory in which the index files that hdt-java generates for HDT
+ * files are kept, such that an index is generated only once and can be
+ * reused for every run over the same HDT file.
+ *
+ * hdt-java expects the index of an HDT file next to the HDT file (see
+ * {@link PageCacheControl#HDT_INDEX_SUFFIX}). Hence, before the HDT file
+ * is loaded, {@link #link(File)} places a symbolic link to the cached
+ * index there, and after hdt-java has generated a new index,
+ * {@link #store(File)} copies it into the cache. Next to every cached
+ * index, there is a properties file that records the size and the time
+ * of last modification of the HDT file for which the index has been
+ * generated. The cached index is used only if these still match the
+ * HDT file; likewise, an index next to the HDT file that is older than
+ * the HDT file is considered outdated and removed.
+ */
+public class HDTIndexCache
+{
+	static final public String VALIDITY_SUFFIX = ".properties";
+
+	final protected File cacheDir;
+
+	public HDTIndexCache( File cacheDir )
+	{
+		this.cacheDir = cacheDir;
+	}
+
+	/**
+	 * Makes sure that a valid index is next to the given HDT file if the
+	 * cache has one. Returns true if the index next to the HDT file is a
+	 * link to the cached index afterwards, and false if hdt-java has to
+	 * generate the index or uses an existing one next to the HDT file.
+	 */
+	public boolean link( File hdtFile ) throws IOException
+	{
+		final File localIndex = getLocalIndexFile(hdtFile);
+		final File cachedIndex = getCachedIndexFile(hdtFile);
+		final boolean cacheValid = isValid(hdtFile, cachedIndex);
+
+		// a relative target would be resolved against the directory of the link
+		final Path target = cachedIndex.getAbsoluteFile().toPath();
+
+		if ( Files.isSymbolicLink(localIndex.toPath()) ) {
+			if ( cacheValid && Files.readSymbolicLink(localIndex.toPath()).equals(target) )
+				return true;
+			Files.delete( localIndex.toPath() );
+		}
+		else if ( localIndex.exists() ) {
+			if ( localIndex.lastModified() >= hdtFile.lastModified() )
+				return false;
+			Files.delete( localIndex.toPath() );
+		}
+
+		if ( ! cacheValid )
+			return false;
+
+		Files.createSymbolicLink( localIndex.toPath(), target );
+		return true;
+	}
+
+	/**
+	 * Copies the index next to the given HDT file into the cache, unless
+	 * the cache has a valid index for the HDT file already.
+	 */
+	public void store( File hdtFile ) throws IOException
+	{
+		final File localIndex = getLocalIndexFile(hdtFile);
+		final File cachedIndex = getCachedIndexFile(hdtFile);
+		if ( ! localIndex.exists() || isValid(hdtFile, cachedIndex) )
+			return;
+
+		if ( ! cacheDir.isDirectory() && ! cacheDir.mkdirs() )
+			throw new IOException("Creating the index cache directory " + cacheDir.getPath() + " failed");
+
+		// the properties are written after the index has been copied
+		// completely, such that an interrupted copy is not considered valid
+		final File validityFile = getValidityFile(cachedIndex);
+		validityFile.delete();
+		Files.copy( localIndex.toPath(), cachedIndex.toPath(), StandardCopyOption.REPLACE_EXISTING );
+
+		final Properties p = createValidityProperties(hdtFile);
+		p.setProperty( "indexSize", Long.toString(cachedIndex.length()) );
+		final OutputStream out = new FileOutputStream(validityFile);
+		try {
+			p.store(out, "validity of " + cachedIndex.getName());
+		}
+		finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Returns true if the given cached index exists and has been generated
+	 * for the given HDT file in its current state.
+	 */
+	public boolean isValid( File hdtFile, File cachedIndex ) throws IOException
+	{
+		final File validityFile = getValidityFile(cachedIndex);
+		if ( ! cachedIndex.exists() || ! validityFile.exists() )
+			return false;
+
+		final Properties p = new Properties();
+		final InputStream in = new FileInputStream(validityFile);
+		try {
+			p.load(in);
+		}
+		finally {
+			in.close();
+		}
+
+		final Properties expected = createValidityProperties(hdtFile);
+		for ( String key : expected.stringPropertyNames() ) {
+			if ( ! expected.getProperty(key).equals(p.getProperty(key)) )
+				return false;
+		}
+
+		return Long.toString( cachedIndex.length() ).equals( p.getProperty("indexSize") );
+	}
+
+	public File getCachedIndexFile( File hdtFile ) throws IOException
+	{
+		// the hash of the path distinguishes HDT files with the same name
+		final String path = hdtFile.getCanonicalPath();
+		return new File( cacheDir, hdtFile.getName() + "-" + Integer.toHexString(path.hashCode()) + PageCacheControl.HDT_INDEX_SUFFIX );
+	}
+
+	static public File getLocalIndexFile( File hdtFile )
+	{
+		return new File( hdtFile.getPath() + PageCacheControl.HDT_INDEX_SUFFIX );
+	}
+
+	static protected File getValidityFile( File cachedIndex )
+	{
+		return new File( cachedIndex.getPath() + VALIDITY_SUFFIX );
+	}
+
+	static protected Properties createValidityProperties( File hdtFile ) throws IOException
+	{
+		final Properties p = new Properties();
+		p.setProperty( "hdtFile", hdtFile.getCanonicalPath() );
+		p.setProperty( "hdtSize", Long.toString(hdtFile.length()) );
+		p.setProperty( "hdtLastModified", Long.toString(hdtFile.lastModified()) );
+		return p;
+	}
+
+}
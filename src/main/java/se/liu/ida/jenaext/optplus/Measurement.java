@@ -0,0 +1,89 @@
+package se.liu.ida.jenaext.optplus;
+
+import se.liu.ida.jenaext.optplus.trace.SolutionTraceSummary;
+
+/**
+ * The measurements taken for one execution of a query.
+ */
+public class Measurement
+{
+	final public long solutionCounter;
+	final public long overallAccesses;
+	final public long overallTriples;
+	final public long overallTime;
+	final public long creationTime;
+	final public long execTime;
+	final public SolutionTraceSummary summary;
+
+	/** find calls per pattern shape, see ExperimentGraph.PATTERN_SHAPES */
+	final public long[] findsByPattern;
+	/** contains calls per pattern shape, see ExperimentGraph.PATTERN_SHAPES */
+	final public long[] containsByPattern;
+	final public long earlyClosedIterators;
+
+	final public long findCacheHits;
+	final public long findCacheMisses;
+	final public long findCacheEvictions;
+
+	/** bytes allocated by the executing thread, or -1 if not supported */
+	final public long allocatedBytes;
+	final public long peakHeapBytes;
+	final public long gcCount;
+	final public long gcTimeInMillis;
+
+	/** time for parsing the query (taken once, when the query was cached) */
+	final public long parseTime;
+	/** time for compiling the algebra expression (taken once, when it was cached) */
+	final public long algebraTime;
+	/** time for creating the plan, which is part of the creation time */
+	final public long planTime;
+
+	/** time for loading the HDT file over which the query was executed */
+	final public long hdtLoadTime;
+	/** resident set size of the process at the end of the execution (-1 if unknown) */
+	final public long residentSetBytes;
+
+	public Measurement( long solutionCounter,
+	                    long overallAccesses,
+	                    long overallTriples,
+	                    long overallTime,
+	                    long creationTime,
+	                    long execTime,
+	                    SolutionTraceSummary summary,
+	                    long[] findsByPattern,
+	                    long[] containsByPattern,
+	                    long earlyClosedIterators,
+	                    long findCacheHits,
+	                    long findCacheMisses,
+	                    long findCacheEvictions,
+	                    ResourceUsageProbe resourceUsage,
+	                    long parseTime,
+	                    long algebraTime,
+	                    long planTime,
+	                    long hdtLoadTime )
+	{
+		this.solutionCounter = solutionCounter;
+		this.overallAccesses = overallAccesses;
+		this.overallTriples  = overallTriples;
+		this.overallTime     = overallTime;
+		this.creationTime    = creationTime;
+		this.execTime        = execTime;
+		this.summary         = summary;
+		this.findsByPattern       = findsByPattern;
+		this.containsByPattern    = containsByPattern;
+		this.earlyClosedIterators = earlyClosedIterators;
+		this.findCacheHits      = findCacheHits;
+		this.findCacheMisses    = findCacheMisses;
+		this.findCacheEvictions = findCacheEvictions;
+		this.allocatedBytes = resourceUsage.getAllocatedBytes();
+		this.peakHeapBytes  = resourceUsage.getPeakHeapBytes();
+		this.gcCount        = resourceUsage.getGCCount();
+		this.gcTimeInMillis = resourceUsage.getGCTimeInMillis();
+		this.parseTime   = parseTime;
+		this.algebraTime = algebraTime;
+		this.planTime    = planTime;
+		this.hdtLoadTime = hdtLoadTime;
+		this.residentSetBytes = resourceUsage.getResidentSetBytes();
+	}
+
+}
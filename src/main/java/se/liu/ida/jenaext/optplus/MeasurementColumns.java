@@ -0,0 +1,192 @@
+package se.liu.ida.jenaext.optplus;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import se.liu.ida.jenaext.optplus.trace.SolutionCheckpoints;
+
+/**
+ * The names of the columns of the measurements files written by
+ * {@link RunExperiment}, in the order of the columns. The empty columns
+ * that separate groups of columns have the empty string as name.
+ *
+ * The last columns depend on the {@link SolutionCheckpoints} used by
+ * the experiment; {@link #NAMES} are the columns for the default
+ * checkpoints. Therefore, {@link RunExperiment} writes the names of
+ * the columns of every measurements file into a sidecar file with the
+ * suffix {@link #SIDECAR_SUFFIX} (one name per line), which is read by
+ * {@link #readFor(File)}.
+ */
+public class MeasurementColumns
+{
+	static final public String QUERY_ID      = "queryID";
+	static final public String SOLUTIONS     = "solutions";
+	static final public String ACCESSES      = "accesses";
+	static final public String TRIPLES       = "triples";
+	static final public String OVERALL_TIME  = "overallTime";
+	static final public String CREATION_TIME = "creationTime";
+	static final public String EXEC_TIME     = "execTime";
+
+	static final public String SIDECAR_SUFFIX = ".columns";
+
+	static final public List<String> NAMES = create(SolutionCheckpoints.DEFAULT);
+
+	/**
+	 * Returns the names of the columns for the given checkpoints.
+	 */
+	static public List<String> create( SolutionCheckpoints checkpoints )
+	{
+		final List<String> names = createNames();
+		names.addAll( checkpoints.getColumnNames() );
+		return Collections.unmodifiableList(names);
+	}
+
+	static public File getSidecarFile( File csvFile )
+	{
+		return new File( csvFile.getPath() + SIDECAR_SUFFIX );
+	}
+
+	/**
+	 * Writes the given column names into the sidecar file of the given
+	 * measurements file.
+	 */
+	static public void writeSidecar( File csvFile, List<String> names ) throws FileNotFoundException
+	{
+		try ( PrintWriter w = new PrintWriter( getSidecarFile(csvFile) ) ) {
+			for ( String name : names )
+				w.println(name);
+		}
+	}
+
+	/**
+	 * Returns the column names from the sidecar file of the given
+	 * measurements file. If there is no sidecar file (i.e., the file has
+	 * been written before there were configurable checkpoints), the number
+	 * of columns is taken from the first line of the file that is neither
+	 * a timeout nor an error; since columns have only ever been added at
+	 * the end, the names are then the first names of the columns without
+	 * checkpoints, followed by generic names ("column" and the position)
+	 * if the file has more columns. A warning is printed in this case.
+	 */
+	static public List<String> readFor( File csvFile ) throws IOException
+	{
+		final File sidecar = getSidecarFile(csvFile);
+		if ( sidecar.exists() )
+			return Collections.unmodifiableList( Files.readAllLines(sidecar.toPath(), StandardCharsets.UTF_8) );
+
+		final List<String> none = create(SolutionCheckpoints.NONE);
+		final int count = countColumns(csvFile);
+		if ( count < 0 || count == none.size() )
+			return none;
+
+		System.err.println( "Warning: there is no file " + sidecar.getName() + "; assuming " + count + " columns as in the first line of " + csvFile.getName() );
+		final List<String> names = new ArrayList<>( none.subList(0, Math.min(count, none.size())) );
+		for ( int i = names.size(); i < count; ++i )
+			names.add( "column" + (i+1) );
+		return Collections.unmodifiableList(names);
+	}
+
+	/**
+	 * Returns the index of the column with the given name, or -1 if
+	 * there is no such column.
+	 */
+	static public int indexOf( String name )
+	{
+		return name.isEmpty() ? -1 : NAMES.indexOf(name);
+	}
+
+	/**
+	 * Returns the number of fields of the first line of the given
+	 * measurements file that is neither a timeout nor an error, or -1 if
+	 * there is no such line.
+	 */
+	static protected int countColumns( File csvFile ) throws IOException
+	{
+		final CSVTokenizer t = new CSVTokenizer();
+		try ( BufferedReader r = Files.newBufferedReader(csvFile.toPath(), StandardCharsets.UTF_8) )
+		{
+			for ( String line; (line = r.readLine()) != null; )
+			{
+				t.reset(line);
+				if ( t.getFieldCount() > 1 && ! RankingSummary.isCutOff(t) && ! t.getTrimmed(1).startsWith("ERROR") )
+					return t.getFieldCount();
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the names of the columns before the checkpoint columns,
+	 * which must follow RunExperiment.toCSV (see RunExperimentTest).
+	 */
+	static protected List<String> createNames()
+	{
+		final List<String> names = new ArrayList<>();
+		names.add(QUERY_ID);
+		names.add(SOLUTIONS);
+		names.add(ACCESSES);
+		names.add(TRIPLES);
+		names.add(OVERALL_TIME);
+		names.add(CREATION_TIME);
+		names.add(EXEC_TIME);
+
+		for ( String metric : new String[] {"time", "accesses", "triples"} ) {
+			names.add("");
+			for ( int j = 1; j <= 10; ++j )
+				names.add( metric + "ToPct" + (j*10) );
+		}
+
+		for ( String metric : new String[] {"time", "accesses", "triples"} ) {
+			names.add("");
+			for ( int j = 1; j <= 10; ++j )
+				names.add( metric + "ToSolution" + (j*10) );
+		}
+
+		names.add("");
+		names.add("runs");
+		for ( String metric : new String[] {"overallTime", "creationTime", "execTime"} ) {
+			for ( String stat : new String[] {"Median", "Min", "P90", "CILow", "CIHigh"} )
+				names.add( metric + stat );
+		}
+
+		for ( String kind : new String[] {"finds", "contains"} ) {
+			names.add("");
+			for ( String shape : new String[] {"SPO", "SPx", "SxO", "Sxx", "xPO", "xPx", "xxO", "xxx"} )
+				names.add( kind + shape );
+		}
+
+		names.add("");
+		names.add("earlyClosedIterators");
+
+		names.add("");
+		names.add("findCacheHits");
+		names.add("findCacheMisses");
+		names.add("findCacheEvictions");
+
+		names.add("");
+		names.add("allocatedBytes");
+		names.add("peakHeapBytes");
+		names.add("gcCount");
+		names.add("gcTime");
+
+		names.add("");
+		names.add("parseTime");
+		names.add("algebraTime");
+		names.add("planTime");
+
+		names.add("");
+		names.add("hdtLoadTime");
+		names.add("residentSetBytes");
+
+		return names;
+	}
+
+}
@@ -0,0 +1,85 @@
+package se.liu.ida.jenaext.optplus;
+
+import java.util.Arrays;
+
+/**
+ * Summary statistics over the values of one metric that has been
+ * measured in repeated executions of a query: median, minimum, 90th
+ * percentile, and the 95% confidence interval of the mean (based on
+ * Student's t-distribution). For a single value, the confidence
+ * interval degenerates to that value.
+ */
+public class MeasurementStatistics
+{
+	/**
+	 * Two-sided 95% quantiles of Student's t-distribution for 1 to 30
+	 * degrees of freedom; for more degrees of freedom we use the normal
+	 * distribution.
+	 */
+	static final protected double[] T_QUANTILES_95 = {
+		12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228,
+		 2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086,
+		 2.080, 2.074, 2.069, 2.064, 2.060, 2.056, 2.052, 2.048, 2.045, 2.042 };
+
+	static final protected double Z_QUANTILE_95 = 1.960;
+
+	final public int n;
+	final public double mean;
+	final public double median;
+	final public double min;
+	final public double p90;
+	final public double ciLow;
+	final public double ciHigh;
+
+	public MeasurementStatistics( double[] values )
+	{
+		if ( values.length == 0 )
+			throw new IllegalArgumentException("No values given");
+
+		final double[] sorted = values.clone();
+		Arrays.sort(sorted);
+
+		n = sorted.length;
+		min = sorted[0];
+		median = ( n % 2 == 1 ) ? sorted[n/2] : (sorted[n/2-1] + sorted[n/2]) / 2d;
+		p90 = sorted[ (int) Math.ceil(0.9d*n) - 1 ]; // nearest rank
+
+		double sum = 0d;
+		for ( double v : sorted )
+			sum += v;
+		mean = sum / n;
+
+		if ( n < 2 ) {
+			ciLow  = mean;
+			ciHigh = mean;
+		}
+		else {
+			double squares = 0d;
+			for ( double v : sorted )
+				squares += (v - mean) * (v - mean);
+
+			final double stdDev = Math.sqrt( squares / (n-1) );
+			final double halfWidth = getTQuantile95(n-1) * stdDev / Math.sqrt(n);
+			ciLow  = mean - halfWidth;
+			ciHigh = mean + halfWidth;
+		}
+	}
+
+	/**
+	 * Returns the width of the confidence interval relative to the mean
+	 * (or 0 if the mean is 0).
+	 */
+	public double getRelativeCIWidth()
+	{
+		return ( mean == 0d ) ? 0d : (ciHigh - ciLow) / Math.abs(mean);
+	}
+
+	static public double getTQuantile95( int degreesOfFreedom )
+	{
+		if ( degreesOfFreedom <= T_QUANTILES_95.length )
+			return T_QUANTILES_95[degreesOfFreedom-1];
+		else
+			return Z_QUANTILE_95;
+	}
+
+}
@@ -0,0 +1,135 @@
+package se.liu.ida.jenaext.optplus;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Controls which pages of the HDT file and of its index file are held
+ * in the page cache of the operating system.
+ *
+ * Prefetching maps the files and touches every page of the mapped
+ * buffers, such that all pages are in the page cache afterwards.
+ * Dropping the pages of a file is not possible from within Java and,
+ * thus, done by means of an external command; the default command,
+ * {@link #DEFAULT_DROP_COMMAND}, uses GNU dd, which advises the kernel
+ * (via posix_fadvise) to drop the cached pages of the whole file. Note
+ * that the kernel keeps the pages that are still mapped by a process;
+ * whether pages of a file are still cached can be checked using
+ * {@link #getCachedBytes(File)}.
+ */
+public class PageCacheControl
+{
+	/** placeholder for the file in a drop command */
+	static final public String FILE_PLACEHOLDER = "%f";
+
+	static final public String DEFAULT_DROP_COMMAND = "dd if=" + FILE_PLACEHOLDER + " iflag=nocache count=0 status=none";
+
+	/** suffix of the name of the index file that hdt-java creates for an HDT file */
+	static final public String HDT_INDEX_SUFFIX = ".index.v1-1";
+
+	/** command that prints the number of cached bytes of a file (util-linux) */
+	static final public String CACHED_BYTES_COMMAND = "fincore --bytes --noheadings --output RES " + FILE_PLACEHOLDER;
+
+	static final protected long SEGMENT_SIZE = 1L << 30;
+
+	/**
+	 * Returns the given HDT file and, if it exists, its index file.
+	 */
+	static public List<File> getHDTFiles( String hdtFileName )
+	{
+		final List<File> files = new ArrayList<>();
+		files.add( new File(hdtFileName) );
+
+		final File indexFile = new File( hdtFileName + HDT_INDEX_SUFFIX );
+		if ( indexFile.exists() )
+			files.add(indexFile);
+
+		return files;
+	}
+
+	/**
+	 * Touches every page of the given file, mapped segment by segment,
+	 * and returns the number of bytes touched.
+	 */
+	static public long prefetch( File file ) throws IOException
+	{
+		try ( RandomAccessFile raf = new RandomAccessFile(file, "r");
+		      FileChannel channel = raf.getChannel() )
+		{
+			final long size = channel.size();
+			for ( long pos = 0L; pos < size; pos += SEGMENT_SIZE )
+			{
+				final MappedByteBuffer buffer = channel.map( FileChannel.MapMode.READ_ONLY, pos, Math.min(SEGMENT_SIZE, size - pos) );
+				buffer.load();
+			}
+			return size;
+		}
+	}
+
+	/**
+	 * Runs the given command (split at whitespace, with every occurrence
+	 * of {@link #FILE_PLACEHOLDER} replaced by the path of the given file)
+	 * to drop the pages of the file from the page cache.
+	 *
+	 * @throws IOException if the command cannot be run or fails
+	 */
+	static public void drop( File file, String command ) throws IOException
+	{
+		final List<String> cmd = new ArrayList<>();
+		for ( String token : command.trim().split("\\s+") )
+			cmd.add( token.replace(FILE_PLACEHOLDER, file.getPath()) );
+
+		final Process p = new ProcessBuilder(cmd).inheritIO().start();
+		final int exitValue;
+		try {
+			exitValue = p.waitFor();
+		}
+		catch ( InterruptedException e ) {
+			p.destroy();
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while dropping the cached pages of " + file.getName());
+		}
+
+		if ( exitValue != 0 )
+			throw new IOException("Dropping the cached pages of " + file.getName() + " failed (exit value " + exitValue + " of '" + command + "')");
+	}
+
+	/**
+	 * Returns the number of bytes of the given file that are in the page
+	 * cache, as reported by {@link #CACHED_BYTES_COMMAND}, or -1 if this
+	 * number cannot be determined (e.g., because the command is missing).
+	 */
+	static public long getCachedBytes( File file )
+	{
+		final List<String> cmd = new ArrayList<>();
+		for ( String token : CACHED_BYTES_COMMAND.split("\\s+") )
+			cmd.add( token.replace(FILE_PLACEHOLDER, file.getPath()) );
+
+		try
+		{
+			final Process p = new ProcessBuilder(cmd).redirectErrorStream(true).start();
+			final String output;
+			try ( BufferedReader r = new BufferedReader(new InputStreamReader(p.getInputStream())) ) {
+				output = r.readLine();
+			}
+			if ( p.waitFor() != 0 || output == null )
+				return -1L;
+			return Long.parseLong( output.trim() );
+		}
+		catch ( IOException | NumberFormatException e ) {
+			return -1L;
+		}
+		catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+			return -1L;
+		}
+	}
+
+}
@@ -0,0 +1,58 @@
+package se.liu.ida.jenaext.optplus;
+
+import org.apache.jena.query.QueryExecution;
+import org.apache.jena.sparql.engine.QueryIterator;
+
+/**
+ * Makes it possible to abort a query execution from another thread
+ * (e.g., when the query runs into a timeout), relying on the abort
+ * mechanism of {@link QueryExecution} (or the cancellation of the
+ * {@link QueryIterator} of the query plan, respectively) instead of
+ * killing the thread that executes the query.
+ */
+public class QueryAbortHandle
+{
+	protected volatile QueryExecution qe = null;
+	protected volatile QueryIterator it = null;
+	protected volatile boolean aborted = false;
+
+	/**
+	 * Registers the query execution that is to be aborted by this handle.
+	 * If {@link #abort()} has been called already, the given query
+	 * execution is aborted immediately.
+	 */
+	public void register( QueryExecution qe )
+	{
+		this.qe = qe;
+		if ( aborted )
+			qe.abort();
+	}
+
+	/**
+	 * Registers the iterator of the query plan that is to be cancelled
+	 * by this handle. If {@link #abort()} has been called already, the
+	 * given iterator is cancelled immediately.
+	 */
+	public void register( QueryIterator it )
+	{
+		this.it = it;
+		if ( aborted )
+			it.cancel();
+	}
+
+	public void abort()
+	{
+		aborted = true;
+
+		final QueryExecution q = qe;
+		if ( q != null )
+			q.abort();
+
+		final QueryIterator i = it;
+		if ( i != null )
+			i.cancel();
+	}
+
+	public boolean isAborted() { return aborted; }
+
+}
@@ -0,0 +1,117 @@
+package se.liu.ida.jenaext.optplus;
+
+import java.io.File;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryFactory;
+import org.apache.jena.sparql.algebra.Algebra;
+import org.apache.jena.sparql.algebra.Op;
+
+/**
+ * Keeps every query file parsed only once, and the algebra expression
+ * of every query compiled only once per semantics (OPT or OPT+), such
+ * that these steps are not repeated for every configuration and every
+ * run. The time that these steps took is kept with the cached objects
+ * to be reported as part of the measurements.
+ *
+ * The cache is thread-safe. If two threads request the same query at
+ * the same time, the query may be parsed twice, but both threads get
+ * the same cached object afterwards.
+ */
+public class QueryCache
+{
+	final protected File queriesDir;
+
+	final protected ConcurrentMap<String,ParsedQuery> parsedQueries = new ConcurrentHashMap<>();
+	final protected ConcurrentMap<String,CompiledQuery> compiledQueries = new ConcurrentHashMap<>();
+
+	public QueryCache( File queriesDir )
+	{
+		this.queriesDir = queriesDir;
+	}
+
+	/**
+	 * Returns the compiled query with the given ID for the given
+	 * configuration, parsing and compiling it if needed.
+	 *
+	 * @throws org.apache.jena.shared.JenaException if reading or parsing the query file fails
+	 */
+	public CompiledQuery get( ExperimentConfiguration config, String queryID )
+	{
+		final String compiledKey = config.getFilenamePrefix() + "\t" + config.useOptPlusSemantics() + "\t" + queryID;
+		final CompiledQuery compiled = compiledQueries.get(compiledKey);
+		if ( compiled != null )
+			return compiled;
+
+		final ParsedQuery parsed = getParsedQuery(config, queryID);
+
+		final long startTime = System.nanoTime();
+		final Op op = Algebra.compile(parsed.query);
+		final long algebraTime = System.nanoTime() - startTime;
+
+		final CompiledQuery newCompiled = new CompiledQuery(parsed.query, op, parsed.parseTime, algebraTime);
+		final CompiledQuery existing = compiledQueries.putIfAbsent(compiledKey, newCompiled);
+		return ( existing != null ) ? existing : newCompiled;
+	}
+
+	/**
+	 * Removes all parsed and compiled queries from this cache, such that
+	 * they are parsed and compiled (and timed) again when requested.
+	 */
+	public void clear()
+	{
+		parsedQueries.clear();
+		compiledQueries.clear();
+	}
+
+	protected ParsedQuery getParsedQuery( ExperimentConfiguration config, String queryID )
+	{
+		final String parsedKey = config.getFilenamePrefix() + "\t" + queryID;
+		final ParsedQuery parsed = parsedQueries.get(parsedKey);
+		if ( parsed != null )
+			return parsed;
+
+		final File queryFile = config.getQueryFile(queriesDir, queryID);
+
+		final long startTime = System.nanoTime();
+		final Query query = QueryFactory.read( queryFile.getPath() );
+		query.setResultVars();
+		final long parseTime = System.nanoTime() - startTime;
+
+		final ParsedQuery newParsed = new ParsedQuery(query, parseTime);
+		final ParsedQuery existing = parsedQueries.putIfAbsent(parsedKey, newParsed);
+		return ( existing != null ) ? existing : newParsed;
+	}
+
+	static protected class ParsedQuery
+	{
+		final public Query query;
+		final public long parseTime;
+
+		public ParsedQuery( Query query, long parseTime ) { this.query = query; this.parseTime = parseTime; }
+	}
+
+	/**
+	 * A parsed query together with its (not yet optimized) algebra
+	 * expression, and the time in nanoseconds it took to parse the
+	 * query and to compile the algebra expression.
+	 */
+	static public class CompiledQuery
+	{
+		final public Query query;
+		final public Op op;
+		final public long parseTime;
+		final public long algebraTime;
+
+		public CompiledQuery( Query query, Op op, long parseTime, long algebraTime )
+		{
+			this.query = query;
+			this.op = op;
+			this.parseTime = parseTime;
+			this.algebraTime = algebraTime;
+		}
+	}
+
+}
@@ -0,0 +1,55 @@
+package se.liu.ida.jenaext.optplus;
+
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Signals that a query execution has been aborted because it did not
+ * finish within its timeout. Carries information about how the abort
+ * went such that it can be reported along with the timeout.
+ */
+public class QueryTimeoutException extends TimeoutException
+{
+	private static final long serialVersionUID = 1L;
+
+	/** value of the freed heap memory if it has not been determined */
+	static final public long UNKNOWN = Long.MIN_VALUE;
+
+	final protected long timeoutInMillis;
+	final protected long abortTimeInNanos;
+	final protected long freedHeapInBytes;
+	final protected boolean terminated;
+
+	public QueryTimeoutException( long timeoutInMillis, long abortTimeInNanos, long freedHeapInBytes, boolean terminated )
+	{
+		super("query execution did not finish within " + timeoutInMillis + " ms");
+		this.timeoutInMillis  = timeoutInMillis;
+		this.abortTimeInNanos = abortTimeInNanos;
+		this.freedHeapInBytes = freedHeapInBytes;
+		this.terminated       = terminated;
+	}
+
+	public long getTimeoutInMillis() { return timeoutInMillis; }
+
+	/**
+	 * Returns the time from requesting the abort until the execution
+	 * actually stopped (or until we gave up waiting for it to stop).
+	 */
+	public long getAbortTimeInNanos() { return abortTimeInNanos; }
+
+	/**
+	 * Returns the amount of heap memory that became free after the
+	 * aborted execution stopped (may be negative if the garbage
+	 * collector did not run in the meantime), or {@link #UNKNOWN} if
+	 * it has not been determined.
+	 */
+	public long getFreedHeapInBytes() { return freedHeapInBytes; }
+
+	public boolean isFreedHeapKnown() { return freedHeapInBytes != UNKNOWN; }
+
+	/**
+	 * Returns false if the aborted execution did not stop within the
+	 * grace period, in which case its worker thread is still busy.
+	 */
+	public boolean hasTerminated() { return terminated; }
+
+}
@@ -1,82 +1,138 @@
 package se.liu.ida.jenaext.optplus;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileReader;
+import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.Iterator;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.List;
-import java.util.function.ToDoubleFunction;
-
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Ranks the configurations per query and per column, based on one
+ * measurements file per configuration; for every input file, a file
+ * with the ranks is written (the lowest value gets the highest rank).
+ *
+ * The files are processed in a streaming fashion, in blocks of
+ * {@link #blockSize} lines, which may be ranked in parallel using the
+ * option <code>--threads=N</code>. Within a block, the lines are
+ * tokenized and ranked without creating objects per cell.
+ *
+ * In the same pass, a {@link RankingSummary} is built and written to
+ * the file given by the option <code>--summary=file</code> (default is
+ * {@link #DEFAULT_SUMMARY_FILE} in the directory of the first file,
+ * next to the files with the ranks). The options have to be given before
+ * the files. The columns of the files are taken from their sidecar
+ * files (see {@link MeasurementColumns#readFor(File)}).
+ *
+ * @author <a href="http://olafhartig.de">Olaf Hartig</a>
+ */
 public class RankMeasurements
 {
-	static public int numberOfColumns = 73;
+	static public int numberOfColumns = MeasurementColumns.NAMES.size();
+
+	/** number of lines of every file that are ranked as one block */
+	static public int blockSize = 4096;
+
+	static final public String DEFAULT_SUMMARY_FILE = "ranking-summary.csv";
+
+	static final protected String THREADS_OPTION = "--threads=";
+	static final protected String SUMMARY_OPTION = "--summary=";
+	static final protected String LINE_SEPARATOR = System.lineSeparator();
 
 	static public void main( String... argv )
     {
-        final int numberOfFiles = argv.length;
+        int threads = 1;
+        String summaryFileName = null;
+        int firstFileArg = 0;
+        for ( ; firstFileArg < argv.length && argv[firstFileArg].startsWith("--"); ++firstFileArg )
+        {
+        	final String arg = argv[firstFileArg];
+        	if ( arg.startsWith(THREADS_OPTION) ) {
+        		try {
+        			threads = Integer.parseInt( arg.substring(THREADS_OPTION.length()) );
+        		}
+        		catch ( NumberFormatException e ) {
+        			exitWitError("The given number of threads is not a number.");
+        		}
+        	}
+        	else if ( arg.startsWith(SUMMARY_OPTION) )
+        		summaryFileName = arg.substring( SUMMARY_OPTION.length() );
+        	else
+        		exitWitError("Unknown option " + arg);
+        }
+
+        final int numberOfFiles = argv.length - firstFileArg;
 
         final File[] inFiles  = new File[numberOfFiles];
         final File[] outFiles = new File[numberOfFiles];
         final BufferedReader[] readers = new BufferedReader[numberOfFiles];
-        final PrintWriter[] writers    = new PrintWriter[numberOfFiles];
+        final Writer[] writers         = new Writer[numberOfFiles];
 
         for ( int i=0; i < numberOfFiles; ++i )
         {
-        	inFiles[i]  = new File( argv[i] );
+        	final String inFileName = argv[firstFileArg + i];
+        	inFiles[i]  = new File(inFileName);
 
-        	final String outFileName = argv[i] + ".ranked.csv";
+        	final String outFileName = inFileName + ".ranked.csv";
         	outFiles[i] = new File( outFileName );
 
-        	if ( ! inFiles[i].exists() ) 
-        		exitWitError("The file " + argv[i] + " does not exist.");
+        	if ( ! inFiles[i].exists() )
+        		exitWitError("The file " + inFileName + " does not exist.");
         	if ( ! inFiles[i].canRead() )
-        		exitWitError("The file " + argv[i] + " cannot be read.");
-//        	if ( ! outFiles[i].canWrite() )
-//        		exitWitError("The file " + outFileName + " cannot be written.");
+        		exitWitError("The file " + inFileName + " cannot be read.");
 
         	try {
         		final FileReader fr = new FileReader( inFiles[i] );
-            	readers[i] = new BufferedReader(fr);
-            	writers[i] = new PrintWriter( outFiles[i] );
+            	readers[i] = new BufferedReader(fr, 1 << 16);
+            	writers[i] = new BufferedWriter( new FileWriter(outFiles[i]), 1 << 16 );
         	}
         	catch ( IOException e ) {
         		exitWitError( "IOException: " + e.getMessage() );
         	}
         }
 
-        try
-        {
-        	final String line1 = readers[0].readLine();;
-//        	final int numberOfColumns = line1.split(",").length;
-
-            final String[] currentLines = new String[numberOfFiles];
-            currentLines[0] = line1;
-            for ( int i=1; i < numberOfFiles; ++i )
-            {
-            	currentLines[i] = readers[i].readLine();
-            }
-
-            processLine(currentLines, numberOfColumns, writers);
-
-            for ( String line; (line = readers[0].readLine()) != null; )
-            {
-                currentLines[0] = line;
-
-            	for ( int i=1; i < numberOfFiles; ++i )
-            	{
-            		final String l = readers[i].readLine();
-            		if ( l == null )
-            			exitWitError( (i+1) + "-th file has too few lines." );
-
-            		currentLines[i] = l;
-            	}
+        // the columns depend on the checkpoints used by the experiment
+        List<String> columnNames = MeasurementColumns.NAMES;
+        try {
+        	if ( numberOfFiles > 0 )
+        		columnNames = MeasurementColumns.readFor( inFiles[0] );
+        	for ( int i=1; i < numberOfFiles; ++i ) {
+        		if ( MeasurementColumns.readFor(inFiles[i]).size() != columnNames.size() )
+        			exitWitError("The file " + inFiles[i].getPath() + " has a different number of columns than " + inFiles[0].getPath());
+        	}
+        }
+        catch ( IOException e ) {
+        	exitWitError( "IOException: " + e.getMessage() );
+        }
 
-                processLine(currentLines, numberOfColumns, writers);
-            }
+        final String[] configNames = new String[numberOfFiles];
+        for ( int i=0; i < numberOfFiles; ++i )
+        	configNames[i] = inFiles[i].getName();
+
+        // by default, the summary is written next to the files with the ranks
+        final File summaryFile;
+        if ( summaryFileName != null )
+        	summaryFile = new File(summaryFileName);
+        else if ( numberOfFiles > 0 )
+        	summaryFile = new File( outFiles[0].getAbsoluteFile().getParentFile(), DEFAULT_SUMMARY_FILE );
+        else
+        	summaryFile = new File(DEFAULT_SUMMARY_FILE);
+
+        try ( PrintWriter summaryWriter = new PrintWriter(summaryFile) )
+        {
+        	final RankingSummary summary = rank(readers, writers, columnNames.size(), threads);
+        	summary.write(summaryWriter, configNames, columnNames);
         }
     	catch ( IOException e ) {
     		exitWitError( "IOException: " + e.getMessage() );
@@ -100,6 +156,111 @@ public class RankMeasurements
     	System.exit(-1);
     }
 
+    /**
+     * Ranks the lines of the given readers, one reader per configuration,
+     * writes the resulting lines to the corresponding writers, and returns
+     * the summary of the ranks. With more than one thread, the blocks of
+     * lines are ranked in parallel and written in their original order.
+     * The summaries of the blocks are combined in this order as well,
+     * such that the result does not depend on the number of threads.
+     */
+    static public RankingSummary rank( final BufferedReader[] readers,
+                                       Writer[] writers,
+                                       final int numberOfColumns,
+                                       int threads ) throws IOException
+    {
+    	final RankingSummary summary = new RankingSummary(readers.length, numberOfColumns);
+
+    	if ( threads <= 1 )
+    	{
+    		final Ranker ranker = new Ranker(readers.length, numberOfColumns);
+    		for ( String[][] block; (block = readBlock(readers)) != null; )
+    			write( ranker.processBlock(block), writers, summary );
+    		return summary;
+    	}
+
+    	final ExecutorService pool = Executors.newFixedThreadPool(threads);
+    	try
+    	{
+    		// bounds the number of blocks in memory
+    		final Deque<Future<RankedBlock>> pending = new ArrayDeque<>();
+    		for ( String[][] block; (block = readBlock(readers)) != null; )
+    		{
+    			final String[][] b = block;
+    			pending.add( pool.submit(new Callable<RankedBlock>() {
+    				@Override
+    				public RankedBlock call() {
+    					return new Ranker(readers.length, numberOfColumns).processBlock(b);
+    				}
+    			}) );
+
+    			if ( pending.size() >= 2*threads )
+    				write( getBlock(pending.poll()), writers, summary );
+    		}
+
+    		while ( ! pending.isEmpty() )
+    			write( getBlock(pending.poll()), writers, summary );
+    	}
+    	finally
+    	{
+    		pool.shutdownNow();
+    	}
+
+    	return summary;
+    }
+
+    /**
+     * Reads up to {@link #blockSize} lines from every reader, where the
+     * number of lines is determined by the first reader. Returns null
+     * if there are no more lines.
+     */
+    static protected String[][] readBlock( BufferedReader[] readers ) throws IOException
+    {
+    	final String[][] block = new String[blockSize][];
+    	int size = 0;
+    	for ( String line; size < blockSize && (line = readers[0].readLine()) != null; size++ )
+    	{
+    		final String[] currentLines = new String[readers.length];
+    		currentLines[0] = line;
+    		for ( int i=1; i < readers.length; ++i )
+    		{
+    			final String l = readers[i].readLine();
+    			if ( l == null )
+    				exitWitError( (i+1) + "-th file has too few lines." );
+
+    			currentLines[i] = l;
+    		}
+    		block[size] = currentLines;
+    	}
+
+    	if ( size == 0 )
+    		return null;
+
+    	return ( size == blockSize ) ? block : Arrays.copyOf(block, size);
+    }
+
+    static protected RankedBlock getBlock( Future<RankedBlock> f ) throws IOException
+    {
+    	try {
+    		return f.get();
+    	}
+    	catch ( InterruptedException e ) {
+    		Thread.currentThread().interrupt();
+    		throw new IOException("Interrupted while ranking");
+    	}
+    	catch ( ExecutionException e ) {
+    		throw new IOException( "Ranking failed: " + e.getCause().getMessage(), e.getCause() );
+    	}
+    }
+
+    static protected void write( RankedBlock resultBlock, Writer[] writers, RankingSummary summary ) throws IOException
+    {
+    	for ( int i=0; i < writers.length; ++i )
+    		writers[i].append( resultBlock.lines[i] );
+
+    	summary.add( resultBlock.summary );
+    }
+
     static public void processLine( String[] currentLines, int numberOfColumns, PrintWriter[] writers )
     {
     	final String[] resultLines = processLine(currentLines, numberOfColumns);
@@ -107,134 +268,217 @@ public class RankMeasurements
     	for ( int i=0; i < currentLines.length; ++i )
     	{
 			writers[i].println( resultLines[i] );
-			writers[i].flush();
     	}
     }
 
     // input is one line from each CSV file
     static public String[] processLine( String[] currentLines, int numberOfColumns )
     {
-        final String[][] tuples = new String[ currentLines.length ][];
-        tuples[0] = currentLines[0].split(",");
-        final String queryIdOfThisLine = tuples[0][0].trim();
-
-    	for ( int i=1; i < currentLines.length; ++i )
-    	{
-    		tuples[i] = currentLines[i].split(",");
-
-    		final String queryID = tuples[i][0].trim();
-    		if ( ! queryID.equals(queryIdOfThisLine) )
-    			exitWitError( "Inconsistent query IDs in the current line (" + queryID + " versus " + queryIdOfThisLine + ")" );
-    	}
+    	final StringBuilder[] out = new StringBuilder[currentLines.length];
+    	for ( int i=0; i < currentLines.length; ++i )
+    		out[i] = new StringBuilder();
 
-    	final String[][] resultTuples = processTuple(tuples, numberOfColumns);
+    	new Ranker(currentLines.length, numberOfColumns).processLine(currentLines, out);
 
     	final String[] resultLines = new String[currentLines.length];
     	for ( int i=0; i < currentLines.length; ++i )
-    	{
-    		resultLines[i] = "";
-    		for ( int j=0; j<resultTuples[i].length; ++j )
-    		{
-    			resultLines[i] += resultTuples[i][j];
-    			resultLines[i] += ", ";
-    		}
-    	}
+    		resultLines[i] = out[i].toString();
 
     	return resultLines;
     }
 
-    // input is one tuple from each CSV file
-    static public String[][] processTuple( String[][] tuples, int numberOfColumns )
+
+    /**
+     * The result of ranking a block of lines: the resulting lines for
+     * every input file, and the summary of the ranks of the block.
+     */
+    static public class RankedBlock
     {
-    	final int highestRank = tuples.length - 1;
+    	final public StringBuilder[] lines;
+    	final public RankingSummary summary;
 
-    	int numberOfCorrectTuples = 0;
-    	final String[][] resultTuples = new String[ tuples.length ][];
-    	for ( int i=0; i < tuples.length; ++i )
+    	public RankedBlock( StringBuilder[] lines, RankingSummary summary )
     	{
-    		if ( tuples[i].length == numberOfColumns ) {
-    			numberOfCorrectTuples++;
-    			resultTuples[i] = new String[numberOfColumns];
-    		}
-    		else
-    			resultTuples[i] = new String[1];
-
-    		resultTuples[i][0] = tuples[i][0].trim(); // copy over the query ID
+    		this.lines = lines;
+    		this.summary = summary;
     	}
+    }
 
-    	if ( numberOfCorrectTuples==0 )
-    		return resultTuples;
+    /**
+     * Ranks lines, one line of every input file at a time. A ranker keeps
+     * its tokenizers and arrays for all lines and, thus, must be used by
+     * one thread only.
+     */
+    static public class Ranker
+    {
+    	/** rank of the cells whose value is empty */
+    	static final protected int EMPTY = -1;
+
+    	final protected int numberOfColumns;
+    	final protected CSVTokenizer[] tokenizers;
+    	final protected int[] indexesOfCorrectTuples;
+    	final protected double[] values;
+    	final protected int[] order;
+    	final protected int[][] ranks;
+    	final protected double[][] cellValues;
+    	protected RankingSummary summary = null;
+
+    	public Ranker( int numberOfFiles, int numberOfColumns )
+    	{
+    		this.numberOfColumns = numberOfColumns;
+    		tokenizers = new CSVTokenizer[numberOfFiles];
+    		for ( int i=0; i < numberOfFiles; ++i )
+    			tokenizers[i] = new CSVTokenizer();
+
+    		indexesOfCorrectTuples = new int[numberOfFiles];
+    		values = new double[numberOfFiles];
+    		order  = new int[numberOfFiles];
+    		ranks  = new int[numberOfFiles][numberOfColumns];
+    		cellValues = new double[numberOfFiles][numberOfColumns];
+    	}
 
-    	final int[] indexesOfCorrectTuples = new int[numberOfCorrectTuples];
-    	int k = 0;
-    	for ( int i=0; i < tuples.length; ++i )
+    	/**
+    	 * Ranks every line of the given block (which has, for every line,
+    	 * one line of every input file) and returns, for every input file,
+    	 * the resulting lines, together with the summary of the ranks.
+    	 */
+    	public RankedBlock processBlock( String[][] block )
     	{
-    		if ( tuples[i].length == numberOfColumns )
-    			indexesOfCorrectTuples[k++] = i;
+    		summary = new RankingSummary(tokenizers.length, numberOfColumns);
+
+    		final StringBuilder[] out = new StringBuilder[tokenizers.length];
+    		for ( int i=0; i < tokenizers.length; ++i )
+    			out[i] = new StringBuilder( 4 * numberOfColumns * block.length );
+
+    		for ( String[] currentLines : block )
+    		{
+    			processLine(currentLines, out);
+    			for ( int i=0; i < tokenizers.length; ++i )
+    				out[i].append(LINE_SEPARATOR);
+    		}
+
+    		final RankedBlock result = new RankedBlock(out, summary);
+    		summary = null;
+    		return result;
     	}
 
-    	for ( int j=1; j < numberOfColumns; ++j )
+    	/**
+    	 * Ranks the given lines (one from each input file) and appends the
+    	 * resulting line for every input file to the corresponding builder.
+    	 */
+    	public void processLine( String[] currentLines, StringBuilder[] out )
     	{
-    		final String value = tuples[ indexesOfCorrectTuples[0] ][j].trim();
-    		if ( value.isEmpty() )
+    		final int numberOfFiles = tokenizers.length;
+    		for ( int i=0; i < numberOfFiles; ++i )
+    			tokenizers[i].reset( currentLines[i] );
+
+    		final String queryIdOfThisLine = tokenizers[0].getTrimmed(0);
+    		for ( int i=1; i < numberOfFiles; ++i )
+    		{
+    			if ( ! tokenizers[i].trimmedEquals(0, queryIdOfThisLine) )
+    				exitWitError( "Inconsistent query IDs in the current line (" + tokenizers[i].getTrimmed(0) + " versus " + queryIdOfThisLine + ")" );
+    		}
+
+    		final int numberOfCorrectTuples = rank();
+    		if ( summary != null )
+    			summary.addLine(tokenizers, ranks, cellValues);
+
+    		for ( int i=0; i < numberOfFiles; ++i )
     		{
-    			for ( k=0; k < numberOfCorrectTuples; ++k ) {
-    				final int i = indexesOfCorrectTuples[k];
-    				resultTuples[i][j] = "";
+    			final StringBuilder sb = out[i];
+    			sb.append(queryIdOfThisLine).append(", ");
+
+    			if ( numberOfCorrectTuples == 0 || tokenizers[i].getFieldCount() != numberOfColumns )
+    				continue;
+
+    			for ( int j=1; j < numberOfColumns; ++j )
+    			{
+    				if ( ranks[i][j] != EMPTY )
+    					sb.append( ranks[i][j] );
+    				sb.append(", ");
     			}
     		}
-    		else //if ( value.contains(".") )
+    	}
+
+    	/**
+    	 * Ranks the cells of the current lines that have the expected
+    	 * number of columns and returns the number of these lines.
+    	 */
+    	protected int rank()
+    	{
+    		final int highestRank = tokenizers.length - 1;
+
+    		int numberOfCorrectTuples = 0;
+    		for ( int i=0; i < tokenizers.length; ++i )
+    		{
+    			if ( tokenizers[i].getFieldCount() == numberOfColumns )
+    				indexesOfCorrectTuples[numberOfCorrectTuples++] = i;
+    		}
+
+    		if ( numberOfCorrectTuples == 0 )
+    			return 0;
+
+    		for ( int j=1; j < numberOfColumns; ++j )
     		{
-    			final List<IndexedValue> l = new ArrayList<>();
-    			for ( k=0; k < numberOfCorrectTuples; ++k ) {
-    				final int i = indexesOfCorrectTuples[k];
-    				l.add( createIndexedValue(i, tuples[i][j]) );
+    			// a value that is not available in one of the tuples (empty
+    			// cell) cannot be ranked against the others
+    			boolean blank = false;
+    			for ( int k=0; k < numberOfCorrectTuples && ! blank; ++k )
+    				blank = tokenizers[ indexesOfCorrectTuples[k] ].isBlank(j);
+
+    			if ( blank )
+    			{
+    				for ( int k=0; k < numberOfCorrectTuples; ++k )
+    					ranks[ indexesOfCorrectTuples[k] ][j] = EMPTY;
+    				continue;
     			}
 
-    			l.sort( myIndexedValueComparator );
+    			for ( int k=0; k < numberOfCorrectTuples; ++k ) {
+    				values[k] = tokenizers[ indexesOfCorrectTuples[k] ].parseDouble(j);
+    				cellValues[ indexesOfCorrectTuples[k] ][j] = values[k];
+    				order[k] = k;
+    			}
 
-    			final Iterator<IndexedValue> it = l.iterator();
+    			sortOrderByValue(numberOfCorrectTuples);
 
-    			final IndexedValue first = it.next();
     			int currentRank      = highestRank;
     			int previousRank     = currentRank;
-    			double previousValue = first.value;
+    			double previousValue = values[ order[0] ];
 
-    			resultTuples[first.index][j] = String.valueOf(currentRank);
+    			ranks[ indexesOfCorrectTuples[order[0]] ][j] = currentRank;
 
-    			while ( it.hasNext() ) {
+    			for ( int k=1; k < numberOfCorrectTuples; ++k ) {
     				currentRank--;
-    				final IndexedValue x = it.next();
-    				if ( x.value != previousValue ) {
-    					previousValue = x.value;
+    				final double value = values[ order[k] ];
+    				if ( value != previousValue ) {
+    					previousValue = value;
     					previousRank = currentRank;
     				}
-        			resultTuples[x.index][j] = String.valueOf(previousRank);
+    				ranks[ indexesOfCorrectTuples[order[k]] ][j] = previousRank;
     			}
     		}
-    	}
 
-    	return resultTuples;
-    }
-
-
-    static public class IndexedValue
-    {
-    	final int index;
-    	final double value;
-    	public IndexedValue( int index, double value ) { this.index = index; this.value = value; }
-    }
+    		return numberOfCorrectTuples;
+    	}
 
-    static public IndexedValue createIndexedValue( int index, String value )
-    {
-    	return new IndexedValue( index, Double.parseDouble(value) );
+    	/**
+    	 * Sorts the first n entries of {@link #order} by the corresponding
+    	 * values; insertion sort, which is stable and fast for the small
+    	 * number of configurations.
+    	 */
+    	protected void sortOrderByValue( int n )
+    	{
+    		for ( int k=1; k < n; ++k )
+    		{
+    			final int x = order[k];
+    			int l = k - 1;
+    			while ( l >= 0 && Double.compare(values[order[l]], values[x]) > 0 ) {
+    				order[l+1] = order[l];
+    				l--;
+    			}
+    			order[l+1] = x;
+    		}
+    	}
     }
 
-    static public ToDoubleFunction<IndexedValue> myToDoubleFunction = new ToDoubleFunction<IndexedValue>() {
-    	@Override
-    	public double applyAsDouble( IndexedValue x ) { return x.value; }
-    };
-
-    static public Comparator<IndexedValue> myIndexedValueComparator = Comparator.comparingDouble(myToDoubleFunction);
-
 }
@@ -0,0 +1,198 @@
+package se.liu.ida.jenaext.optplus;
+
+import java.io.PrintWriter;
+import java.util.List;
+
+/**
+ * Aggregates the ranks computed by {@link RankMeasurements} per
+ * configuration (that is, per input file) and per column: the number
+ * of ranked cells, the mean rank, the number of wins (the configuration
+ * has the best value alone), ties (it shares the best value with other
+ * configurations), and losses, and the geometric mean of the values.
+ * The geometric mean considers only the positive values, because the
+ * logarithm is not defined for the others. Additionally, the number of
+ * lines per configuration that report a timeout or another error (i.e.,
+ * that do not have the expected number of columns) is counted.
+ *
+ * Summaries of consecutive blocks of lines can be combined using
+ * {@link #add(RankingSummary)}.
+ */
+public class RankingSummary
+{
+	static final public String TIMEOUT = "TIMEOUT";
+	static final public String BUDGET_EXCEEDED = "BUDGET_EXCEEDED";
+
+	final protected int numberOfFiles;
+	final protected int numberOfColumns;
+
+	protected long lines = 0L;
+	final protected long[] errorLines;
+	final protected long[] timeoutLines;
+
+	final protected long[][] cells;
+	final protected long[][] rankSums;
+	final protected long[][] wins;
+	final protected long[][] ties;
+	final protected long[][] positiveValues;
+	final protected double[][] logSums;
+
+	public RankingSummary( int numberOfFiles, int numberOfColumns )
+	{
+		this.numberOfFiles = numberOfFiles;
+		this.numberOfColumns = numberOfColumns;
+
+		errorLines   = new long[numberOfFiles];
+		timeoutLines = new long[numberOfFiles];
+
+		cells    = new long[numberOfFiles][numberOfColumns];
+		rankSums = new long[numberOfFiles][numberOfColumns];
+		wins     = new long[numberOfFiles][numberOfColumns];
+		ties     = new long[numberOfFiles][numberOfColumns];
+		positiveValues = new long[numberOfFiles][numberOfColumns];
+		logSums  = new double[numberOfFiles][numberOfColumns];
+	}
+
+	/**
+	 * Adds the given ranked line of every input file, where a negative
+	 * rank marks a cell that has not been ranked.
+	 */
+	public void addLine( CSVTokenizer[] tokenizers, int[][] ranks, double[][] values )
+	{
+		lines++;
+
+		final int highestRank = numberOfFiles - 1;
+		boolean anyCorrect = false;
+		for ( int i = 0; i < numberOfFiles; ++i )
+		{
+			if ( tokenizers[i].getFieldCount() == numberOfColumns )
+				anyCorrect = true;
+			else if ( isCutOff(tokenizers[i]) )
+				timeoutLines[i]++;
+			else
+				errorLines[i]++;
+		}
+
+		if ( ! anyCorrect )
+			return;
+
+		for ( int j = 1; j < numberOfColumns; ++j )
+		{
+			int best = 0;
+			for ( int i = 0; i < numberOfFiles; ++i ) {
+				if ( tokenizers[i].getFieldCount() == numberOfColumns && ranks[i][j] == highestRank )
+					best++;
+			}
+
+			for ( int i = 0; i < numberOfFiles; ++i )
+			{
+				if ( tokenizers[i].getFieldCount() != numberOfColumns || ranks[i][j] < 0 )
+					continue;
+
+				cells[i][j]++;
+				rankSums[i][j] += ranks[i][j];
+				if ( ranks[i][j] == highestRank ) {
+					if ( best == 1 )
+						wins[i][j]++;
+					else
+						ties[i][j]++;
+				}
+
+				if ( values[i][j] > 0d ) {
+					positiveValues[i][j]++;
+					logSums[i][j] += Math.log( values[i][j] );
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds the counts of the given summary, which must be for the same
+	 * number of files and columns, to this one.
+	 */
+	public void add( RankingSummary other )
+	{
+		lines += other.lines;
+		for ( int i = 0; i < numberOfFiles; ++i )
+		{
+			errorLines[i]   += other.errorLines[i];
+			timeoutLines[i] += other.timeoutLines[i];
+			for ( int j = 0; j < numberOfColumns; ++j )
+			{
+				cells[i][j]    += other.cells[i][j];
+				rankSums[i][j] += other.rankSums[i][j];
+				wins[i][j]     += other.wins[i][j];
+				ties[i][j]     += other.ties[i][j];
+				positiveValues[i][j] += other.positiveValues[i][j];
+				logSums[i][j]  += other.logSums[i][j];
+			}
+		}
+	}
+
+	/**
+	 * Returns true if the given line of a measurements file reports that
+	 * the execution was cut off, by its timeout or by its work budget;
+	 * such lines are counted as timeout lines.
+	 */
+	static public boolean isCutOff( CSVTokenizer t )
+	{
+		return t.getFieldCount() > 1
+		       && ( t.trimmedEquals(1, TIMEOUT) || t.trimmedEquals(1, BUDGET_EXCEEDED) );
+	}
+
+	public long getLines() { return lines; }
+
+	public long getErrorLines( int file ) { return errorLines[file]; }
+
+	public long getTimeoutLines( int file ) { return timeoutLines[file]; }
+
+	public long getCells( int file, int column ) { return cells[file][column]; }
+
+	public double getMeanRank( int file, int column )
+	{
+		return ( cells[file][column] == 0L ) ? Double.NaN : rankSums[file][column] / (double) cells[file][column];
+	}
+
+	public long getWins( int file, int column ) { return wins[file][column]; }
+
+	public long getTies( int file, int column ) { return ties[file][column]; }
+
+	public long getLosses( int file, int column ) { return cells[file][column] - wins[file][column] - ties[file][column]; }
+
+	public double getGeometricMean( int file, int column )
+	{
+		final long n = positiveValues[file][column];
+		return ( n == 0L ) ? Double.NaN : Math.exp( logSums[file][column] / n );
+	}
+
+	/**
+	 * Writes this summary as CSV, with one line per configuration and
+	 * per column that has ranked cells, where the columns are identified
+	 * by the given names (see {@link MeasurementColumns}). The number of
+	 * timeout and error lines of a configuration are repeated in every
+	 * of its lines.
+	 */
+	public void write( PrintWriter w, String[] configNames, List<String> columnNames )
+	{
+		w.println("# configuration, column, cells, mean rank, wins, ties, losses, geometric mean, timeout lines, error lines");
+		for ( int i = 0; i < numberOfFiles; ++i )
+		{
+			for ( int j = 1; j < numberOfColumns; ++j )
+			{
+				if ( cells[i][j] == 0L )
+					continue;
+
+				w.println( configNames[i]
+				           + ", " + columnNames.get(j)
+				           + ", " + cells[i][j]
+				           + ", " + getMeanRank(i, j)
+				           + ", " + wins[i][j]
+				           + ", " + ties[i][j]
+				           + ", " + getLosses(i, j)
+				           + ", " + getGeometricMean(i, j)
+				           + ", " + timeoutLines[i]
+				           + ", " + errorLines[i] );
+			}
+		}
+	}
+
+}
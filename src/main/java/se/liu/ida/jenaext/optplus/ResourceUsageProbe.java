@@ -0,0 +1,171 @@
+package se.liu.ida.jenaext.optplus;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Captures the memory-related resources used during a query execution:
+ * the bytes allocated by the executing thread, the peak usage of the
+ * heap, and the number and accumulated time of garbage collections.
+ *
+ * The probe has to be started and stopped by the thread that executes
+ * the query. The peak heap usage is the sum of the peak usages of all
+ * heap memory pools (and, thus, an upper bound of the actual peak).
+ * Since the peak usages can only be reset for the whole JVM, probes of
+ * concurrently running query executions would reset each other's peaks;
+ * hence, the peak heap usage is captured only by probes that are created
+ * for it, and it is -1 otherwise. The garbage collections are JVM-wide
+ * as well, which means that they include the activity of concurrently
+ * running query executions, if any. The allocated bytes are -1 if the
+ * JVM does not support measuring them.
+ */
+public class ResourceUsageProbe
+{
+	static final protected ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+	final protected boolean capturePeakHeap;
+
+	protected long allocatedBytesAtStart;
+	protected long gcCountAtStart;
+	protected long gcTimeAtStart;
+
+	protected long allocatedBytes = -1L;
+	protected long peakHeapBytes  = -1L;
+	protected long gcCount        = 0L;
+	protected long gcTimeInMillis = 0L;
+	protected long residentSetBytes = -1L;
+
+	/**
+	 * @param capturePeakHeap whether the peak heap usage is captured,
+	 *                        which must be the case only if no other query
+	 *                        execution runs concurrently
+	 */
+	public ResourceUsageProbe( boolean capturePeakHeap )
+	{
+		this.capturePeakHeap = capturePeakHeap;
+	}
+
+	public void start()
+	{
+		if ( capturePeakHeap ) {
+			for ( MemoryPoolMXBean pool : getHeapPools() )
+				pool.resetPeakUsage();
+		}
+
+		gcCountAtStart = getCollectionCount();
+		gcTimeAtStart  = getCollectionTime();
+		allocatedBytesAtStart = getAllocatedBytesOfCurrentThread();
+	}
+
+	public void stop()
+	{
+		final long allocatedBytesAtEnd = getAllocatedBytesOfCurrentThread();
+		if ( allocatedBytesAtStart >= 0L && allocatedBytesAtEnd >= 0L )
+			allocatedBytes = allocatedBytesAtEnd - allocatedBytesAtStart;
+
+		gcCount        = getCollectionCount() - gcCountAtStart;
+		gcTimeInMillis = getCollectionTime() - gcTimeAtStart;
+
+		if ( capturePeakHeap ) {
+			peakHeapBytes = 0L;
+			for ( MemoryPoolMXBean pool : getHeapPools() )
+				peakHeapBytes += pool.getPeakUsage().getUsed();
+		}
+
+		residentSetBytes = getResidentSetBytesOfProcess();
+	}
+
+	public long getAllocatedBytes() { return allocatedBytes; }
+
+	/**
+	 * Returns the peak heap usage during the execution, or -1 if it is
+	 * not captured by this probe.
+	 */
+	public long getPeakHeapBytes() { return peakHeapBytes; }
+
+	public long getGCCount() { return gcCount; }
+
+	public long getGCTimeInMillis() { return gcTimeInMillis; }
+
+	/**
+	 * Returns the resident set size of the process at the time the probe
+	 * was stopped, which includes the pages of the mapped HDT files that
+	 * are resident, or -1 if it cannot be determined.
+	 */
+	public long getResidentSetBytes() { return residentSetBytes; }
+
+	/**
+	 * Returns the resident set size of this process in bytes, as reported
+	 * by /proc/self/status on Linux, or -1 if it cannot be determined.
+	 */
+	static public long getResidentSetBytesOfProcess()
+	{
+		final File status = new File("/proc/self/status");
+		if ( ! status.canRead() )
+			return -1L;
+
+		try ( BufferedReader br = new BufferedReader(new FileReader(status)) )
+		{
+			for ( String line; (line = br.readLine()) != null; )
+			{
+				if ( line.startsWith("VmRSS:") ) {
+					final String[] splittedLine = line.substring(6).trim().split("\\s+");
+					return Long.parseLong(splittedLine[0]) * 1024L; // given in kB
+				}
+			}
+		}
+		catch ( IOException | NumberFormatException e ) {
+			// fall through
+		}
+
+		return -1L;
+	}
+
+	/**
+	 * Returns the bytes allocated by the current thread so far, or -1 if
+	 * the JVM does not support measuring them.
+	 */
+	static public long getAllocatedBytesOfCurrentThread()
+	{
+		if ( threadBean instanceof com.sun.management.ThreadMXBean )
+			return ( (com.sun.management.ThreadMXBean) threadBean ).getThreadAllocatedBytes( Thread.currentThread().getId() );
+		else
+			return -1L;
+	}
+
+	static protected List<MemoryPoolMXBean> getHeapPools()
+	{
+		final List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+		for ( MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans() ) {
+			if ( pool.getType() == MemoryType.HEAP )
+				heapPools.add(pool);
+		}
+		return heapPools;
+	}
+
+	static protected long getCollectionCount()
+	{
+		long count = 0L;
+		for ( GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans() )
+			count += Math.max( 0L, gc.getCollectionCount() );
+		return count;
+	}
+
+	static protected long getCollectionTime()
+	{
+		long time = 0L;
+		for ( GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans() )
+			time += Math.max( 0L, gc.getCollectionTime() );
+		return time;
+	}
+
+}
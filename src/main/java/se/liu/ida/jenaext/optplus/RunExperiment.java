@@ -5,16 +5,26 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.FutureTask;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
+import javax.management.JMException;
+
 import jena.cmd.ArgDecl;
 import jena.cmd.CmdGeneral;
 
 import org.apache.jena.Jena;
+import org.apache.jena.graph.Graph;
 import org.apache.jena.atlas.lib.Lib;
 import org.apache.jena.query.ARQ;
 import org.apache.jena.query.Dataset;
@@ -22,20 +32,40 @@ import org.apache.jena.query.DatasetFactory;
 import org.apache.jena.query.Query;
 import org.apache.jena.query.QueryExecution;
 import org.apache.jena.query.QueryExecutionFactory;
-import org.apache.jena.query.QueryFactory;
 import org.apache.jena.query.ResultSet;
+import org.apache.jena.query.ResultSetFactory;
 import org.apache.jena.riot.RIOT;
 import org.apache.jena.shared.JenaException;
 import org.apache.jena.sparql.core.DatasetGraph;
 import org.apache.jena.sparql.core.DatasetGraphFactory;
+import org.apache.jena.sparql.engine.Plan;
+import org.apache.jena.sparql.engine.QueryEngineFactory;
+import org.apache.jena.sparql.engine.QueryEngineRegistry;
+import org.apache.jena.sparql.engine.QueryIterator;
+import org.apache.jena.sparql.engine.binding.BindingRoot;
 import org.apache.jena.sparql.engine.iterator.QueryIteratorBase;
+import org.apache.jena.sparql.util.Context;
 import org.apache.jena.system.JenaSystem;
 import org.rdfhdt.hdt.hdt.HDT;
 import org.rdfhdt.hdt.hdt.HDTManager;
 import org.rdfhdt.hdtjena.HDTGraph;
 
+import se.liu.ida.jenaext.optplus.QueryCache.CompiledQuery;
+import se.liu.ida.jenaext.optplus.graph.BudgetExceededException;
+import se.liu.ida.jenaext.optplus.graph.CachingGraph;
 import se.liu.ida.jenaext.optplus.graph.ExperimentGraph;
+import se.liu.ida.jenaext.optplus.graph.FindCache;
+import se.liu.ida.jenaext.optplus.graph.WorkBudget;
+import se.liu.ida.jenaext.optplus.jfr.FlightRecorderEvents;
+import se.liu.ida.jenaext.optplus.monitor.ExperimentProgress;
+import se.liu.ida.jenaext.optplus.monitor.MetricsHttpServer;
 import se.liu.ida.jenaext.optplus.sparql.engine.main.QueryEnginePlus;
+import se.liu.ida.jenaext.optplus.trace.InMemorySolutionTrace;
+import se.liu.ida.jenaext.optplus.trace.SolutionCheckpoints;
+import se.liu.ida.jenaext.optplus.trace.SolutionTraceReader;
+import se.liu.ida.jenaext.optplus.trace.SolutionTraceRecorder;
+import se.liu.ida.jenaext.optplus.trace.SolutionTraceSummary;
+import se.liu.ida.jenaext.optplus.trace.SolutionTraceWriter;
 import arq.cmdline.ModContext;
 
 /**
@@ -46,6 +76,18 @@ public class RunExperiment extends CmdGeneral
 {
 	static final public long TIMEOUT_IN_SECONDS = 10L;
 
+	/**
+	 * Time for which we wait for an aborted query execution to stop.
+	 */
+	static final public long ABORT_GRACE_PERIOD_IN_SECONDS = 10L;
+
+	/**
+	 * How the HDT file is brought into memory: mapped (the pages are read
+	 * on demand), loaded completely onto the heap, or mapped and then
+	 * prefetched by touching every page of the HDT file and its index.
+	 */
+	static public enum HDTLoadMode { MAP, LOAD, PREFETCH }
+
 	static { JenaSystem.init(); }
 
     final protected ModContext modContext = new ModContext();
@@ -53,12 +95,104 @@ public class RunExperiment extends CmdGeneral
     final protected ArgDecl argQueryDir         = new ArgDecl(ArgDecl.HasValue, "querydir");
     final protected ArgDecl argHDTFile          = new ArgDecl(ArgDecl.HasValue, "hdt", "hdtfile");
     final protected ArgDecl argWarmupsPerQuery  = new ArgDecl(ArgDecl.HasValue, "warmupsPerQuery");
+    final protected ArgDecl argParallelism      = new ArgDecl(ArgDecl.HasValue, "parallelism");
+    final protected ArgDecl argTimeout          = new ArgDecl(ArgDecl.HasValue, "timeout");
+    final protected ArgDecl argTimeoutsFile     = new ArgDecl(ArgDecl.HasValue, "timeouts");
+    final protected ArgDecl argKeepTraces       = new ArgDecl(ArgDecl.NoValue, "keepTraces");
+    final protected ArgDecl argTraceStore       = new ArgDecl(ArgDecl.HasValue, "traceStore");
+    final protected ArgDecl argColdRun          = new ArgDecl(ArgDecl.NoValue, "coldRun");
+    final protected ArgDecl argHDTLoadMode      = new ArgDecl(ArgDecl.HasValue, "hdtLoadMode");
+    final protected ArgDecl argColdCache        = new ArgDecl(ArgDecl.NoValue, "coldCache");
+    final protected ArgDecl argDropCacheCommand = new ArgDecl(ArgDecl.HasValue, "dropCacheCommand");
+    final protected ArgDecl argIndexCacheDir    = new ArgDecl(ArgDecl.HasValue, "indexCacheDir");
+    final protected ArgDecl argRunsPerQuery     = new ArgDecl(ArgDecl.HasValue, "runsPerQuery");
+    final protected ArgDecl argAdaptive         = new ArgDecl(ArgDecl.NoValue, "adaptive");
+    final protected ArgDecl argMaxRelCIWidth    = new ArgDecl(ArgDecl.HasValue, "maxRelativeCIWidth");
+    final protected ArgDecl argTimeBudget       = new ArgDecl(ArgDecl.HasValue, "timeBudgetPerQuery");
+    final protected ArgDecl argFindCache        = new ArgDecl(ArgDecl.HasValue, "findCache");
+    final protected ArgDecl argFindCacheMaxRes  = new ArgDecl(ArgDecl.HasValue, "findCacheMaxResult");
+    final protected ArgDecl argFindCacheScope   = new ArgDecl(ArgDecl.HasValue, "findCacheScope");
+    final protected ArgDecl argConfigsFile      = new ArgDecl(ArgDecl.HasValue, "configs");
+    final protected ArgDecl argOrder            = new ArgDecl(ArgDecl.HasValue, "order");
+    final protected ArgDecl argSeed             = new ArgDecl(ArgDecl.HasValue, "seed");
+    final protected ArgDecl argCheckpoints      = new ArgDecl(ArgDecl.HasValue, "checkpoints");
+    final protected ArgDecl argMetricsPort      = new ArgDecl(ArgDecl.HasValue, "metricsPort");
+    final protected ArgDecl argFork             = new ArgDecl(ArgDecl.NoValue, "fork");
+    final protected ArgDecl argJVMArgs          = new ArgDecl(ArgDecl.HasValue, "jvmArgs");
+    final protected ArgDecl argQueriesPerJVM    = new ArgDecl(ArgDecl.HasValue, "queriesPerJVM");
+    final protected ArgDecl argOnlyConfig       = new ArgDecl(ArgDecl.HasValue, "onlyConfig");
+    final protected ArgDecl argQueryRange       = new ArgDecl(ArgDecl.HasValue, "queryRange");
+    final protected ArgDecl argStreamResults    = new ArgDecl(ArgDecl.NoValue, "streamResults");
+    final protected ArgDecl argResume           = new ArgDecl(ArgDecl.NoValue, "resume");
+    final protected ArgDecl argJournal          = new ArgDecl(ArgDecl.HasValue, "journal");
+    final protected ArgDecl argRerunFailed      = new ArgDecl(ArgDecl.NoValue, "rerunFailed");
+    final protected ArgDecl argMaxAccesses      = new ArgDecl(ArgDecl.HasValue, "maxAccesses");
+    final protected ArgDecl argMaxTriples       = new ArgDecl(ArgDecl.HasValue, "maxTriples");
+    final protected ArgDecl argMaxAllocatedMB   = new ArgDecl(ArgDecl.HasValue, "maxAllocatedMB");
+
+    /** the command line arguments, which are passed on to child JVMs */
+    final protected String[] commandLine;
 
     protected File queryidFile;
     protected File queriesDir;
-    protected ExperimentGraph instrumentedGraph;
-    protected Dataset dataset;
+    protected QueryCache queryCache;
+    protected String hdtFileName;
+    protected HDT hdt;
+    protected Graph hdtGraph;
+    protected HDTLoadMode hdtLoadMode = HDTLoadMode.MAP;
+    protected long hdtLoadTime;
+    protected boolean coldCache = false;
+    protected String dropCacheCommand = PageCacheControl.DEFAULT_DROP_COMMAND;
+    protected HDTIndexCache indexCache = null;
+    protected StartupProfiler startupProfiler;
+    protected Future<List<String>> preparedQueryIDs;
     protected int warmupsPerQuery = 1;
+    protected int parallelism = 1;
+    protected TimeoutSettings timeouts;
+    protected boolean keepTraces = false;
+    protected boolean traceInMemory = false;
+    protected boolean coldRun = false;
+    protected int runsPerQuery = 1;
+    protected boolean adaptive = false;
+    protected int minRunsPerQueryAdaptive = 3;
+    protected double maxRelativeCIWidth = 0.05d;
+    protected long timeBudgetPerQueryInMillis = Long.MAX_VALUE;
+    protected int findCacheSize = 0;
+    protected int findCacheMaxResultSize = 100;
+    protected FindCache sharedFindCache = null;
+    protected ExperimentMatrix matrix;
+    protected boolean interleaved = true;
+    protected long seed = System.nanoTime();
+    protected SolutionCheckpoints checkpoints = SolutionCheckpoints.DEFAULT;
+    protected int metricsPort = -1;
+    protected boolean fork = false;
+    protected List<String> jvmArgs = new ArrayList<>();
+    protected int queriesPerJVM = Integer.MAX_VALUE;
+    protected int queryRangeFrom = 0;
+    protected int queryRangeTo = Integer.MAX_VALUE;
+    protected boolean streamResults = false;
+    protected ExperimentJournal journal = null;
+    protected boolean rerunFailed = false;
+    /** the budget of every query execution, or null if there is none */
+    protected WorkBudget budget = null;
+
+    /** the live progress, which is exposed as an MBean */
+    final protected ExperimentProgress progress = new ExperimentProgress();
+
+    /**
+     * The worker threads that execute the queries; a worker thread whose
+     * query execution could not be aborted remains busy, in which case
+     * a new worker thread is created for the following executions.
+     */
+    final protected ExecutorService queryExecPool = Executors.newCachedThreadPool( new ThreadFactory() {
+    	private int counter = 0;
+    	@Override
+    	public synchronized Thread newThread( Runnable r ) {
+    		final Thread t = new Thread(r, "query-exec-" + (++counter));
+    		t.setDaemon(true);
+    		return t;
+    	}
+    } );
 
     public static void main( String... argv )
     {
@@ -68,6 +202,7 @@ public class RunExperiment extends CmdGeneral
     public RunExperiment( String[] argv )
     {
     	super(argv);
+    	commandLine = argv.clone();
 
         modVersion.addClass(Jena.class);
         modVersion.addClass(ARQ.class);
@@ -80,6 +215,40 @@ public class RunExperiment extends CmdGeneral
         super.add( argQueryDir, "--querydir", "Directory that contains the subdirectories with the query files" );
         super.add( argHDTFile, "--hdtfile", "HDT file with the dataset to be used for the experiment" );
         super.add( argWarmupsPerQuery, "--warmupsPerQuery", "Number of warm-up runs for each query (optional, default is " + warmupsPerQuery + ")" );
+        super.add( argParallelism, "--parallelism", "Number of (configuration, query) pairs to be executed concurrently (optional, default is " + parallelism + ")" );
+        super.add( argTimeout, "--timeout", "Timeout in seconds for every query execution (optional, default is " + TIMEOUT_IN_SECONDS + ")" );
+        super.add( argTimeoutsFile, "--timeouts", "CSV file with specific timeouts per query and/or configuration, one 'queryID, configuration, seconds' per line with '*' as wildcard (optional)" );
+        super.add( argKeepTraces, "--keepTraces", "Keep the binary trace with the time, accesses, and triples until every solution in the directory of each query (optional)" );
+        super.add( argTraceStore, "--traceStore", "Where the trace of a measured query execution is recorded, 'file' or 'memory' (optional, default is 'file'; --keepTraces requires 'file')" );
+        super.add( argColdRun, "--coldRun", "Measure the first execution of every query over a freshly mapped HDT file, without warm-up runs (optional)" );
+        super.add( argHDTLoadMode, "--hdtLoadMode", "How the HDT file is loaded, 'map', 'load' (onto the heap), or 'prefetch' (mapped and every page touched) (optional, default is 'map')" );
+        super.add( argColdCache, "--coldCache", "Like --coldRun, but additionally drop the pages of the HDT file and its index from the page cache before every measured run (optional, Linux only, requires --parallelism=1, cannot be combined with --hdtLoadMode=prefetch)" );
+        super.add( argDropCacheCommand, "--dropCacheCommand", "Command that drops the cached pages of the file given as " + PageCacheControl.FILE_PLACEHOLDER + " (optional, default is '" + PageCacheControl.DEFAULT_DROP_COMMAND + "')" );
+        super.add( argIndexCacheDir, "--indexCacheDir", "Directory in which the generated index of the HDT file is kept for later runs (optional, default is no cache)" );
+        super.add( argRunsPerQuery, "--runsPerQuery", "Number of measured runs for each query, or the maximum number in adaptive mode (optional, default is " + runsPerQuery + ", or 30 in adaptive mode)" );
+        super.add( argAdaptive, "--adaptive", "Repeat the measured runs of every query until the relative width of the 95% confidence interval of the overall time is small enough, or the time budget is used up (optional)" );
+        super.add( argMaxRelCIWidth, "--maxRelativeCIWidth", "Target for the relative width of the confidence interval in adaptive mode (optional, default is " + maxRelativeCIWidth + ")" );
+        super.add( argTimeBudget, "--timeBudgetPerQuery", "Time budget in seconds for the measured runs of every query in adaptive mode (optional, default is no budget)" );
+        super.add( argFindCache, "--findCache", "Enables a cache for the results of find calls on the HDT graph that holds up to the given number of triples (optional, default is no cache)" );
+        super.add( argFindCacheMaxRes, "--findCacheMaxResult", "Maximum number of triples in a find result that is cached (optional, default is " + findCacheMaxResultSize + ")" );
+        super.add( argFindCacheScope, "--findCacheScope", "Whether every query execution has its own find cache ('execution') or all executions share one ('shared') (optional, default is 'execution')" );
+        super.add( argConfigsFile, "--configs", "CSV file with the configurations to be compared, one 'prefix, semantics, iterator' per line with '|' between alternatives (optional, default are the configurations of the original experiments)" );
+        super.add( argOrder, "--order", "Order of execution, 'interleaved' (all configurations for every query, in a random order per query) or 'sequential' (one configuration after the other) (optional, default is 'interleaved')" );
+        super.add( argSeed, "--seed", "Seed for the random order of the configurations in the interleaved order (optional, default is a random seed, which is printed)" );
+        super.add( argCheckpoints, "--checkpoints", "Comma-separated solution numbers and percentiles of the gaps between solutions (e.g., 'p99', or 'max') to be reported in addition to the fixed checkpoints (optional, default is '" + SolutionCheckpoints.DEFAULT_SPEC + "')" );
+        super.add( argFork, "--fork", "Run every configuration in a child JVM of its own, which is started with the same arguments, and stitch the results into the measurements files (optional)" );
+        super.add( argJVMArgs, "--jvmArgs", "Space-separated arguments for the child JVMs, such as '-Xmx8g -XX:+ExitOnOutOfMemoryError' (optional, requires --fork)" );
+        super.add( argQueriesPerJVM, "--queriesPerJVM", "Maximum number of queries per child JVM, such that the queries of every configuration are split over several child JVMs (optional, requires --fork, default is all queries)" );
+        super.add( argOnlyConfig, "--onlyConfig", "Name of the only configuration to be run (optional, used for the child JVMs)" );
+        super.add( argQueryRange, "--queryRange", "Positions 'from-to' (from inclusive, to exclusive, starting at 0) of the queries in the query ID file to be run (optional, used for the child JVMs)" );
+        super.add( argStreamResults, "--streamResults", "Print the CSV lines to stdout, prefixed with '" + ForkedExperimentDriver.RESULT_PREFIX.trim() + "', instead of writing measurements files (optional, used for the child JVMs)" );
+        super.add( argResume, "--resume", "Record every finished (configuration, query) pair in a journal, skip the pairs that are already recorded there, and write the measurements files with the recorded and the new results (optional)" );
+        super.add( argJournal, "--journal", "Journal file for --resume (optional, default is '" + ExperimentJournal.DEFAULT_FILE + "')" );
+        super.add( argRerunFailed, "--rerunFailed", "Run the pairs again that are recorded in the journal with an error or a timeout, e.g., with a larger --timeout (optional, requires --resume)" );
+        super.add( argMaxAccesses, "--maxAccesses", "Maximum number of read accesses to the HDT graph per query execution, beyond which the execution is cancelled and reported as " + RankingSummary.BUDGET_EXCEEDED + " (optional, default is no limit)" );
+        super.add( argMaxTriples, "--maxTriples", "Maximum number of triples retrieved from the HDT graph per query execution (optional, default is no limit)" );
+        super.add( argMaxAllocatedMB, "--maxAllocatedMB", "Maximum number of megabytes allocated per query execution (optional, default is no limit)" );
+        super.add( argMetricsPort, "--metricsPort", "Port on localhost at which the progress of the experiment is served in the Prometheus text format under " + MetricsHttpServer.PATH + " (optional, default is no HTTP endpoint; the progress is always available as the MBean " + ExperimentProgress.OBJECT_NAME + ")" );
 
         QueryEnginePlus.register();
     }
@@ -101,6 +270,8 @@ public class RunExperiment extends CmdGeneral
     {
     	super.processModulesAndArgs();
 
+    	startupProfiler = new StartupProfiler(System.out);
+
         if ( modGeneral.debug )
         	QueryIteratorBase.traceIterators = true;
 
@@ -111,6 +282,311 @@ public class RunExperiment extends CmdGeneral
         	catch ( Exception e ) {
         		cmdError("Parsing the given warmupsPerQuery failed: " + e.getMessage() );
         	}
+
+        	if ( warmupsPerQuery < 0 ) {
+        		cmdError("The given warmupsPerQuery must not be negative");
+        	}
+        }
+
+        coldCache = contains(argColdCache);
+        coldRun = contains(argColdRun) || coldCache;
+        if ( coldRun ) {
+        	if ( hasArg(argWarmupsPerQuery) && warmupsPerQuery > 0 ) {
+        		cmdError("--coldRun cannot be combined with warm-up runs");
+        	}
+        	warmupsPerQuery = 0;
+        }
+
+        if ( hasArg(argParallelism) ) {
+        	try {
+        		parallelism = Integer.parseInt( getValue(argParallelism) );
+        	}
+        	catch ( Exception e ) {
+        		cmdError("Parsing the given parallelism failed: " + e.getMessage() );
+        	}
+
+        	if ( parallelism < 1 ) {
+        		cmdError("The given parallelism must be at least 1");
+        	}
+        }
+
+        if ( coldCache && parallelism > 1 ) {
+        	cmdError("--coldCache cannot be combined with a parallelism greater than 1");
+        }
+
+        if ( hasArg(argDropCacheCommand) ) {
+        	dropCacheCommand = getValue(argDropCacheCommand);
+        }
+
+        if ( hasArg(argHDTLoadMode) ) {
+        	try {
+        		hdtLoadMode = HDTLoadMode.valueOf( getValue(argHDTLoadMode).toUpperCase() );
+        	}
+        	catch ( IllegalArgumentException e ) {
+        		cmdError("Unknown HDT load mode '" + getValue(argHDTLoadMode) + "' (use 'map', 'load', or 'prefetch')");
+        	}
+        }
+
+        // cold runs load the HDT file for every run, which would touch all
+        // of its pages again right before the measured execution
+        if ( hdtLoadMode == HDTLoadMode.PREFETCH && coldRun ) {
+        	cmdError( (coldCache ? "--coldCache" : "--coldRun") + " cannot be combined with --hdtLoadMode=prefetch" );
+        }
+
+        long defaultTimeoutInMillis = TIMEOUT_IN_SECONDS * 1000L;
+        if ( hasArg(argTimeout) ) {
+        	try {
+        		defaultTimeoutInMillis = Math.round( Double.parseDouble(getValue(argTimeout)) * 1000d );
+        	}
+        	catch ( Exception e ) {
+        		cmdError("Parsing the given timeout failed: " + e.getMessage() );
+        	}
+
+        	if ( defaultTimeoutInMillis <= 0L ) {
+        		cmdError("The given timeout must be positive");
+        	}
+        }
+
+        timeouts = new TimeoutSettings(defaultTimeoutInMillis);
+
+        if ( hasArg(argTimeoutsFile) ) {
+        	try {
+        		timeouts.read( new File(getValue(argTimeoutsFile)) );
+        	}
+        	catch ( Exception e ) {
+        		cmdError("Reading the given timeouts file failed: " + e.getMessage() );
+        	}
+        }
+
+        adaptive = contains(argAdaptive);
+        if ( adaptive )
+        	runsPerQuery = 30;
+
+        if ( hasArg(argRunsPerQuery) ) {
+        	try {
+        		runsPerQuery = Integer.parseInt( getValue(argRunsPerQuery) );
+        	}
+        	catch ( Exception e ) {
+        		cmdError("Parsing the given runsPerQuery failed: " + e.getMessage() );
+        	}
+
+        	if ( runsPerQuery < 1 ) {
+        		cmdError("The given runsPerQuery must be at least 1");
+        	}
+        }
+
+        if ( hasArg(argMaxRelCIWidth) ) {
+        	try {
+        		maxRelativeCIWidth = Double.parseDouble( getValue(argMaxRelCIWidth) );
+        	}
+        	catch ( Exception e ) {
+        		cmdError("Parsing the given maxRelativeCIWidth failed: " + e.getMessage() );
+        	}
+
+        	if ( ! (maxRelativeCIWidth > 0d) ) {
+        		cmdError("The given maxRelativeCIWidth must be positive");
+        	}
+        }
+
+        if ( hasArg(argTimeBudget) ) {
+        	try {
+        		timeBudgetPerQueryInMillis = Math.round( Double.parseDouble(getValue(argTimeBudget)) * 1000d );
+        	}
+        	catch ( Exception e ) {
+        		cmdError("Parsing the given timeBudgetPerQuery failed: " + e.getMessage() );
+        	}
+
+        	if ( timeBudgetPerQueryInMillis <= 0L ) {
+        		cmdError("The given timeBudgetPerQuery must be positive (at least one millisecond)");
+        	}
+        }
+
+        if ( hasArg(argFindCache) ) {
+        	try {
+        		findCacheSize = Integer.parseInt( getValue(argFindCache) );
+        	}
+        	catch ( Exception e ) {
+        		cmdError("Parsing the given findCache size failed: " + e.getMessage() );
+        	}
+
+        	if ( findCacheSize < 1 ) {
+        		cmdError("The given findCache size must be at least 1");
+        	}
+        }
+
+        if ( hasArg(argFindCacheMaxRes) ) {
+        	try {
+        		findCacheMaxResultSize = Integer.parseInt( getValue(argFindCacheMaxRes) );
+        	}
+        	catch ( Exception e ) {
+        		cmdError("Parsing the given findCacheMaxResult failed: " + e.getMessage() );
+        	}
+
+        	if ( findCacheMaxResultSize < 0 ) {
+        		cmdError("The given findCacheMaxResult must not be negative");
+        	}
+        }
+
+        if ( hasArg(argFindCacheScope) ) {
+        	final String scope = getValue(argFindCacheScope);
+        	if ( scope.equalsIgnoreCase("shared") ) {
+        		if ( findCacheSize > 0 )
+        			sharedFindCache = new FindCache(findCacheSize, findCacheMaxResultSize);
+        	}
+        	else if ( ! scope.equalsIgnoreCase("execution") )
+        		cmdError("Unknown find cache scope '" + scope + "' (use 'execution' or 'shared')");
+        }
+
+        matrix = ExperimentMatrix.createDefault();
+        if ( hasArg(argConfigsFile) ) {
+        	matrix = new ExperimentMatrix();
+        	try {
+        		matrix.read( new File(getValue(argConfigsFile)) );
+        	}
+        	catch ( Exception e ) {
+        		cmdError("Reading the given configurations file failed: " + e.getMessage() );
+        	}
+
+        	if ( matrix.size() == 0 ) {
+        		cmdError("The given configurations file does not contain any configuration");
+        	}
+        }
+
+        if ( hasArg(argOrder) ) {
+        	final String order = getValue(argOrder);
+        	if ( order.equalsIgnoreCase("sequential") )
+        		interleaved = false;
+        	else if ( ! order.equalsIgnoreCase("interleaved") )
+        		cmdError("Unknown order '" + order + "' (use 'interleaved' or 'sequential')");
+        }
+
+        if ( hasArg(argSeed) ) {
+        	try {
+        		seed = Long.parseLong( getValue(argSeed) );
+        	}
+        	catch ( Exception e ) {
+        		cmdError("Parsing the given seed failed: " + e.getMessage() );
+        	}
+        }
+
+        if ( hasArg(argCheckpoints) ) {
+        	try {
+        		checkpoints = SolutionCheckpoints.parse( getValue(argCheckpoints) );
+        	}
+        	catch ( IllegalArgumentException e ) {
+        		cmdError("Parsing the given checkpoints failed: " + e.getMessage() );
+        	}
+        }
+
+        if ( hasArg(argMetricsPort) ) {
+        	try {
+        		metricsPort = Integer.parseInt( getValue(argMetricsPort) );
+        	}
+        	catch ( NumberFormatException e ) {
+        		cmdError("Parsing the given metrics port failed: " + e.getMessage() );
+        	}
+        	if ( metricsPort < 0 || metricsPort > 65535 ) {
+        		cmdError("The given metrics port is out of range");
+        	}
+        }
+
+        fork = contains(argFork);
+        streamResults = contains(argStreamResults);
+
+        if ( hasArg(argJVMArgs) ) {
+        	jvmArgs = ForkedExperimentDriver.splitJVMArgs( getValue(argJVMArgs) );
+        }
+
+        if ( hasArg(argQueriesPerJVM) ) {
+        	try {
+        		queriesPerJVM = Integer.parseInt( getValue(argQueriesPerJVM) );
+        	}
+        	catch ( Exception e ) {
+        		cmdError("Parsing the given queriesPerJVM failed: " + e.getMessage() );
+        	}
+
+        	if ( queriesPerJVM < 1 ) {
+        		cmdError("The given queriesPerJVM must be at least 1");
+        	}
+        }
+
+        if ( ! fork && (hasArg(argJVMArgs) || hasArg(argQueriesPerJVM)) ) {
+        	cmdError("--jvmArgs and --queriesPerJVM require --fork");
+        }
+
+        if ( fork && (streamResults || parallelism > 1) ) {
+        	cmdError("--fork cannot be combined with --streamResults or a parallelism greater than 1");
+        }
+
+        if ( hasArg(argOnlyConfig) ) {
+        	final String name = getValue(argOnlyConfig);
+        	final ExperimentMatrix selected = new ExperimentMatrix();
+        	for ( ExperimentConfiguration config : matrix.getConfigurations() ) {
+        		if ( config.getName().equals(name) )
+        			selected.add(config);
+        	}
+
+        	if ( selected.size() == 0 ) {
+        		cmdError("There is no configuration named '" + name + "'");
+        	}
+        	matrix = selected;
+        }
+
+        if ( hasArg(argQueryRange) ) {
+        	final String range = getValue(argQueryRange);
+        	try {
+        		final int dash = range.indexOf('-');
+        		queryRangeFrom = Integer.parseInt( range.substring(0, dash).trim() );
+        		queryRangeTo = Integer.parseInt( range.substring(dash+1).trim() );
+        	}
+        	catch ( Exception e ) {
+        		cmdError("Parsing the given queryRange failed (use 'from-to'): " + range );
+        	}
+
+        	if ( queryRangeFrom < 0 || queryRangeTo < queryRangeFrom ) {
+        		cmdError("The given queryRange is empty or negative");
+        	}
+        }
+
+        rerunFailed = contains(argRerunFailed);
+        if ( contains(argResume) ) {
+        	final String fileName = hasArg(argJournal) ? getValue(argJournal) : ExperimentJournal.DEFAULT_FILE;
+        	journal = new ExperimentJournal( new File(fileName) );
+        	try {
+        		final int finished = journal.read();
+        		if ( finished > 0 && ! fork )
+        			System.out.println( "Resuming with " + finished + " finished pairs from " + fileName + ( rerunFailed ? ", rerunning the failed ones" : "" ) );
+        	}
+        	catch ( IOException e ) {
+        		cmdError("Reading the journal failed: " + e.getMessage() );
+        	}
+        }
+        else if ( hasArg(argJournal) || rerunFailed ) {
+        	cmdError("--journal and --rerunFailed require --resume");
+        }
+
+        if ( hasArg(argMaxAccesses) || hasArg(argMaxTriples) || hasArg(argMaxAllocatedMB) ) {
+        	final long maxAllocatedMB = parseLimit(argMaxAllocatedMB);
+        	budget = new WorkBudget( parseLimit(argMaxAccesses),
+        	                         parseLimit(argMaxTriples),
+        	                         (maxAllocatedMB == WorkBudget.UNLIMITED) ? WorkBudget.UNLIMITED : maxAllocatedMB * 1024L * 1024L );
+        	if ( budget.limitsAllocatedBytes() && ResourceUsageProbe.getAllocatedBytesOfCurrentThread() < 0L ) {
+        		cmdError("This JVM does not support measuring the allocated bytes required for --maxAllocatedMB");
+        	}
+        }
+
+        keepTraces = contains(argKeepTraces);
+
+        if ( hasArg(argTraceStore) ) {
+        	final String traceStore = getValue(argTraceStore);
+        	if ( traceStore.equalsIgnoreCase("memory") )
+        		traceInMemory = true;
+        	else if ( ! traceStore.equalsIgnoreCase("file") )
+        		cmdError("Unknown trace store '" + traceStore + "' (use 'file' or 'memory')");
+
+        	if ( traceInMemory && keepTraces ) {
+        		cmdError("--keepTraces requires --traceStore=file");
+        	}
         }
 
         if ( ! hasArg(argQueryIDFile) ) {
@@ -140,23 +616,210 @@ public class RunExperiment extends CmdGeneral
         	cmdError("The specified query directory is not a directory");
         }
 
+        queryCache = new QueryCache(queriesDir);
+
         if ( ! hasArg(argHDTFile) ) {
         	cmdError("No HDT file specified");
         }
 
-        final String hdtFileName = getValue(argHDTFile);
-        final HDT hdt;
+        hdtFileName = getValue(argHDTFile);
+        if ( ! new File(hdtFileName).exists() ) {
+        	cmdError("The specified HDT file does not exist");
+        }
+
+        if ( hasArg(argIndexCacheDir) ) {
+        	indexCache = new HDTIndexCache( new File(getValue(argIndexCacheDir)) );
+        }
+
+        // the child JVMs load the HDT file and the queries
+        if ( fork )
+        	return;
+
+        // the queries are loaded while the HDT file is loaded (and timed
+        // again afterwards, see retimeQueries)
+        preparedQueryIDs = queryExecPool.submit( new Callable<List<String>>() {
+        	@Override
+        	public List<String> call() throws IOException {
+        		return prepareQueries();
+        	}
+        });
+
         try {
-        	hdt = HDTManager.mapIndexedHDT(hdtFileName, null);
+        	final long startTime = System.nanoTime();
+        	hdt = loadHDT(startupProfiler);
+        	hdtLoadTime = System.nanoTime() - startTime;
         }
         catch ( IOException e ) {
         	cmdError( "Accessing the HDT file failed: " + e.getMessage() );
         	return;
         }
 
-        instrumentedGraph = new ExperimentGraph( new HDTGraph(hdt) );
+        System.out.println( "Loaded the HDT file in " + hdtLoadTime/1000000L + " ms (" + hdtLoadMode.name().toLowerCase() + ", resident set " + ResourceUsageProbe.getResidentSetBytesOfProcess()/(1024L*1024L) + " MB)" );
+
+        hdtGraph = new HDTGraph(hdt);
+
+        // with cold caches, no query is executed over the initially loaded
+        // HDT file, and keeping it mapped would keep its pages cached
+        if ( coldCache ) {
+        	try {
+        		hdt.close();
+        	}
+        	catch ( IOException e ) {
+        		cmdError( "Closing the HDT file failed: " + e.getMessage() );
+        	}
+        	hdt = null;
+        	hdtGraph = null;
+        }
+    }
+
+    /**
+     * Returns the value of the given option for a limit of the work
+     * budget, or {@link WorkBudget#UNLIMITED} if the option is not given.
+     */
+    protected long parseLimit( ArgDecl arg )
+    {
+    	if ( ! hasArg(arg) )
+    		return WorkBudget.UNLIMITED;
+
+    	long limit = 0L;
+    	try {
+    		limit = Long.parseLong( getValue(arg) );
+    	}
+    	catch ( NumberFormatException e ) {
+    		cmdError("Parsing the given " + arg.getKeyName() + " failed: " + e.getMessage() );
+    	}
+
+    	if ( limit < 1L ) {
+    		cmdError("The given " + arg.getKeyName() + " must be at least 1");
+    	}
+    	return limit;
+    }
+
+    protected HDT loadHDT() throws IOException
+    {
+    	return loadHDT( new StartupProfiler(null) );
+    }
+
+    /**
+     * Loads the HDT file according to the {@link #hdtLoadMode} and, then,
+     * generates or loads its index (from the index cache, if any), timing
+     * these steps with the given profiler.
+     */
+    protected HDT loadHDT( StartupProfiler profiler ) throws IOException
+    {
+    	final File hdtFile = new File(hdtFileName);
+
+    	StartupProfiler.Phase phase = profiler.begin("HDT " + hdtLoadMode.name().toLowerCase());
+    	final HDT hdt;
+    	if ( hdtLoadMode == HDTLoadMode.LOAD )
+    		hdt = HDTManager.loadHDT(hdtFileName, phase);
+    	else
+    		hdt = HDTManager.mapHDT(hdtFileName, phase);
+    	phase.end();
+
+    	final boolean linked = ( indexCache != null ) && indexCache.link(hdtFile);
+    	final boolean generated = ! linked && ! HDTIndexCache.getLocalIndexFile(hdtFile).exists();
+
+    	phase = profiler.begin( generated ? "HDT index generation" : "HDT index loading" );
+    	final HDT indexedHDT = HDTManager.indexedHDT(hdt, phase);
+    	phase.end();
+
+    	if ( indexCache != null && ! linked ) {
+    		phase = profiler.begin("HDT index caching");
+    		indexCache.store(hdtFile);
+    		phase.end();
+    	}
+
+    	if ( hdtLoadMode == HDTLoadMode.PREFETCH ) {
+    		phase = profiler.begin("HDT prefetch");
+    		for ( File f : PageCacheControl.getHDTFiles(hdtFileName) )
+    			PageCacheControl.prefetch(f);
+    		phase.end();
+    	}
+
+    	return indexedHDT;
+    }
+
+    /**
+     * Drops the pages of the HDT file and of its index from the page cache.
+     * Pages that are still mapped by this process remain cached. The HDT
+     * files loaded before have been closed explicitly, but their buffers
+     * are unmapped only when they are garbage collected, which is why a
+     * garbage collection is requested first. Since this is not guaranteed
+     * to unmap them, a warning is printed if pages remain cached.
+     */
+    protected void dropHDTFromPageCache() throws IOException
+    {
+    	System.gc();
+    	for ( File f : PageCacheControl.getHDTFiles(hdtFileName) )
+    	{
+    		PageCacheControl.drop(f, dropCacheCommand);
+
+    		final long cachedBytes = PageCacheControl.getCachedBytes(f);
+    		if ( cachedBytes > 0L )
+    			System.err.println( "Warning: " + cachedBytes + " bytes of " + f.getName() + " are still in the page cache; the run is not completely cold" );
+    	}
+    }
+
+    /**
+     * Creates a new instrumented view of the HDT graph. Every query
+     * execution uses its own such view such that the access counters
+     * of concurrent executions do not interfere with one another.
+     */
+    protected ExperimentGraph createInstrumentedGraph()
+    {
+    	final CachingGraph cachingGraph = createCachingGraph(hdtGraph);
+    	final ExperimentGraph instrumentedGraph = new ExperimentGraph( (cachingGraph != null) ? cachingGraph : hdtGraph );
+    	instrumentedGraph.setBudget(budget);
+    	return instrumentedGraph;
+    }
+
+    /**
+     * Returns a graph that caches the results of find calls on the given
+     * graph, or null if the find cache is not enabled.
+     */
+    protected CachingGraph createCachingGraph( Graph baseGraph )
+    {
+    	if ( findCacheSize == 0 )
+    		return null;
+
+    	if ( sharedFindCache != null )
+    		return new CachingGraph(baseGraph, sharedFindCache);
+    	else
+    		return new CachingGraph( baseGraph, new FindCache(findCacheSize, findCacheMaxResultSize) );
+    }
+
+    static protected Dataset createDataset( ExperimentGraph instrumentedGraph )
+    {
         final DatasetGraph dsg = DatasetGraphFactory.create(instrumentedGraph);
-        dataset = DatasetFactory.wrap(dsg);
+        return DatasetFactory.wrap(dsg);
+    }
+
+    static public QueryExecution createQueryExecution( Query q, Dataset dataset, ExperimentConfiguration config )
+    {
+    	final QueryExecution qe = QueryExecutionFactory.create(q, dataset);
+    	qe.getContext().set(QueryEnginePlus.useOptPlusSemantics, config.useOptPlusSemantics());
+    	qe.getContext().set(QueryEnginePlus.classnameOptPlusIterator, config.getClassnameOptPlusIterator());
+    	return qe;
+    }
+
+    /**
+     * Creates the plan for executing the given query over the given
+     * dataset with the given configuration. In contrast to a query
+     * execution created by {@link #createQueryExecution(Query, Dataset, ExperimentConfiguration)},
+     * this starts from the already compiled algebra expression of the
+     * query. Optimizing the algebra expression remains the task of the
+     * query engine and, thus, is part of creating the plan.
+     */
+    static public Plan createPlan( CompiledQuery q, Dataset dataset, ExperimentConfiguration config )
+    {
+    	final DatasetGraph dsg = dataset.asDatasetGraph();
+    	final Context cxt = Context.setupContextExec( ARQ.getContext(), dsg );
+    	cxt.set(QueryEnginePlus.useOptPlusSemantics, config.useOptPlusSemantics());
+    	cxt.set(QueryEnginePlus.classnameOptPlusIterator, config.getClassnameOptPlusIterator());
+
+    	final QueryEngineFactory f = QueryEngineRegistry.findFactory(q.op, dsg, cxt);
+    	return f.create( q.op, dsg, BindingRoot.create(), cxt );
     }
 
     @Override
@@ -164,45 +827,218 @@ public class RunExperiment extends CmdGeneral
     {
         QueryEnginePlus.register();
 
-    	performExperiment("Opt", false, null);
-    	performExperiment("Opt", true, "QueryIterNLJPlusWithOuterLoopOverMaterializedLeft");    	
-    	performExperiment("OptP", false, null);
-    	performExperiment("Opt", true, "QueryIterNestedLoopJoinPlus");
-    	performExperiment("Opt", true, "QueryIterHashJoinPlusMaterializeLeftOnTheFly");
-    	performExperiment("Opt", true, "QueryIterHashJoinPlusMaterializeRightFirst");
-//    	performExperiment("Opt", true, "QueryIterHashJoinPlusMaterializeLeftFirst");
-//    	performExperiment("Opt", true, "QueryIterNestedLoopJoinPlusMaterializeLeftOnTheFly");
-//    	performExperiment("Opt", true, "QueryIterNestedLoopJoinPlusMaterializeRightFirst");
-//    	performExperiment("Opt", true, "QueryIterSubsumptionAwareJoinPlus");
+        final List<ExperimentConfiguration> configs = matrix.getConfigurations();
+
+        if ( fork ) {
+        	execForked(configs);
+        	return;
+        }
+
+        final List<String> queryIDs;
+        try {
+        	queryIDs = preparedQueryIDs.get();
+        }
+        catch ( InterruptedException e ) {
+        	Thread.currentThread().interrupt();
+        	return;
+        }
+        catch ( ExecutionException e ) {
+        	System.err.println( e.getCause().getMessage() );
+        	return;
+        }
+
+        retimeQueries(queryIDs);
+        startupProfiler.printSummary();
+
+        final List<ExperimentSchedule.Entry> schedule;
+        if ( interleaved ) {
+        	System.out.println("Interleaved order with seed " + seed);
+        	schedule = ExperimentSchedule.createInterleaved( configs.size(), queryIDs.size(), seed );
+        }
+        else {
+        	schedule = ExperimentSchedule.createSequential( configs.size(), queryIDs.size() );
+        }
+
+        progress.setPlannedQueries( schedule.size() );
+        try {
+        	progress.register();
+        }
+        catch ( JMException e ) {
+        	System.err.println("Registering the progress MBean failed: " + e.getMessage() );
+        }
+
+        MetricsHttpServer metricsServer = null;
+        if ( metricsPort >= 0 )
+        {
+        	try {
+        		metricsServer = new MetricsHttpServer(progress, metricsPort);
+        		metricsServer.start();
+        		System.out.println( "Serving the progress at http://localhost:" + metricsServer.getPort() + MetricsHttpServer.PATH );
+        	}
+        	catch ( IOException e ) {
+        		System.err.println("Starting the metrics endpoint failed: " + e.getMessage() );
+        	}
+        }
+
+        try
+        {
+        	if ( streamResults ) {
+        		streamExperiments(configs, queryIDs, schedule);
+        	}
+        	else if ( parallelism == 1 ) {
+        		performExperiments(configs, queryIDs, schedule);
+        	}
+        	else {
+        		performExperimentsInParallel(configs, queryIDs, schedule);
+        	}
+        }
+        finally
+        {
+        	queryExecPool.shutdownNow();
+        	if ( metricsServer != null )
+        		metricsServer.stop();
+        	if ( journal != null ) {
+        		try {
+        			journal.close();
+        		}
+        		catch ( IOException e ) {
+        			System.err.println("Closing the journal failed: " + e.getMessage() );
+        		}
+        	}
+        }
     }
 
-    protected void performExperiment( String filenamePrefix, boolean useOptPlusSemantics, String classnameOptPlusIterator )
+    /**
+     * Runs the experiment in child JVMs (see {@link ForkedExperimentDriver}),
+     * which are given the arguments of this process without the options
+     * that concern the child JVMs themselves.
+     */
+    protected void execForked( List<ExperimentConfiguration> configs )
     {
-    	ARQ.getContext().set(QueryEnginePlus.useOptPlusSemantics, useOptPlusSemantics);
-    	ARQ.getContext().set(QueryEnginePlus.classnameOptPlusIterator, classnameOptPlusIterator);
+    	final List<String> queryIDs;
+    	try {
+    		queryIDs = readQueryIDs();
+    	}
+    	catch ( IOException e ) {
+    		System.err.println( e.getMessage() );
+    		return;
+    	}
 
-    	final String outfileName = filenamePrefix + "-" + useOptPlusSemantics + "-" + classnameOptPlusIterator + ".csv";
-    	final File csvOutputFile = new File( "measurements-" + outfileName );
+    	try {
+    		progress.register();
+    	}
+    	catch ( JMException e ) {
+    		System.err.println("Registering the progress MBean failed: " + e.getMessage() );
+    	}
 
-    	System.out.println(outfileName);
+    	final List<String> childArgs = ForkedExperimentDriver.removeOptions( commandLine,
+    	        argFork, argJVMArgs, argQueriesPerJVM, argOnlyConfig, argQueryRange, argStreamResults, argOrder, argSeed );
 
-        BufferedReader br = null;
-        PrintWriter w = null;
+    	final ForkedExperimentDriver driver = new ForkedExperimentDriver( getClass().getName(), jvmArgs, childArgs, queriesPerJVM, progress );
+    	try {
+    		driver.run( configs, queryIDs, interleaved, seed, checkpoints );
+    	}
+    	finally {
+    		queryExecPool.shutdownNow();
+    	}
+    }
+
+    /**
+     * Returns the query IDs from the first column of the query ID file,
+     * in the order in which they are listed in that file.
+     */
+    protected List<String> readQueryIDs() throws IOException
+    {
+    	final List<String> queryIDs = new ArrayList<>();
+    	final BufferedReader br = new BufferedReader( new FileReader(queryidFile) );
+    	try {
+    		for ( String line; (line = br.readLine()) != null; )
+    		{
+    			final String[] splittedLine = line.split(",");
+    			queryIDs.add( splittedLine[0].trim() );
+    		}
+    	}
+    	finally {
+    		br.close();
+    	}
+
+    	return queryIDs;
+    }
+
+    /**
+     * Reads the query IDs and parses and compiles the queries for all
+     * configurations, such that this is done before the measurements
+     * start. Queries that cannot be read are skipped here; the error is
+     * reported when they are about to be executed.
+     */
+    protected List<String> prepareQueries() throws IOException
+    {
+    	final StartupProfiler.Phase phase = startupProfiler.begin("query loading");
+    	final List<String> allQueryIDs = readQueryIDs();
+    	final List<String> queryIDs = allQueryIDs.subList( Math.min(queryRangeFrom, allQueryIDs.size()),
+    	                                                   Math.min(queryRangeTo, allQueryIDs.size()) );
+    	compileQueries(queryIDs);
+    	phase.end();
+    	return queryIDs;
+    }
+
+    /**
+     * Parses and compiles the given queries again, after the HDT file has
+     * been loaded, such that the parse times and compile times that are
+     * reported in the measurements files are not taken while the HDT file
+     * is loaded concurrently (as is the case in {@link #prepareQueries()}).
+     */
+    protected void retimeQueries( List<String> queryIDs )
+    {
+    	final StartupProfiler.Phase phase = startupProfiler.begin("query timing");
+    	queryCache.clear();
+    	compileQueries(queryIDs);
+    	phase.end();
+    }
+
+    protected void compileQueries( List<String> queryIDs )
+    {
+    	for ( String queryID : queryIDs ) {
+    		for ( ExperimentConfiguration config : matrix.getConfigurations() ) {
+    			try {
+    				queryCache.get(config, queryID);
+    			}
+    			catch ( JenaException e ) {
+    				// reported by runQuery
+    			}
+    		}
+    	}
+    }
+
+    /**
+     * Executes all (configuration, query) pairs in the order of the given
+     * schedule, writing the result of every pair to the CSV file of the
+     * configuration right away. Since the schedule keeps the queries of
+     * every configuration in the order of the query ID file, so are the
+     * lines of every file.
+     */
+    protected void performExperiments( List<ExperimentConfiguration> configs,
+                                       List<String> queryIDs,
+                                       List<ExperimentSchedule.Entry> schedule )
+    {
+    	final PrintWriter[] writers = new PrintWriter[ configs.size() ];
 
         try
         {
-        	w = new PrintWriter(csvOutputFile);
+        	for ( int i = 0; i < configs.size(); ++i )
+        	{
+        		final String outfileName = configs.get(i).getOutfileName();
+        		System.out.println(outfileName);
+        		final File csvOutputFile = new File( "measurements-" + outfileName );
+        		MeasurementColumns.writeSidecar( csvOutputFile, MeasurementColumns.create(checkpoints) );
+        		writers[i] = new PrintWriter(csvOutputFile);
+        	}
 
-        	final FileReader fr = new FileReader(queryidFile);
-            br = new BufferedReader(fr);
-            for ( String line; (line = br.readLine()) != null; )
+            for ( ExperimentSchedule.Entry e : schedule )
             {
-            	final String[] splittedLine = line.split(",");
-            	final String queryID = splittedLine[0].trim();
-
-            	final String csv = runQuery(filenamePrefix, queryID, outfileName);
-            	w.println(csv);
-            	w.flush();
+            	final String csv = runQuery( configs.get(e.configIndex), queryIDs.get(e.queryIndex) );
+            	writers[e.configIndex].println(csv);
+            	writers[e.configIndex].flush();
             }
         }
         catch ( IOException e ) {
@@ -210,47 +1046,158 @@ public class RunExperiment extends CmdGeneral
         }
         finally
         {
-        	if ( w != null ) {
-        		w.flush();
-        		w.close();
-        	}
-
-        	if ( br != null ) {
-        		try {
-        			br.close();
-        		}
-        		catch ( IOException e ) {
-                	System.err.println( e.getMessage() );
+        	for ( PrintWriter w : writers ) {
+        		if ( w != null ) {
+        			w.flush();
+        			w.close();
         		}
         	}
         }
     }
 
-    protected String runQuery( String filenamePrefix, String queryID, String outfileName )
+    /**
+     * Executes all (configuration, query) pairs in the order of the given
+     * schedule (one after another, also if the parallelism is greater than
+     * 1), and prints the result of every pair to stdout, prefixed with
+     * {@link ForkedExperimentDriver#RESULT_PREFIX}, instead of writing the
+     * CSV files.
+     */
+    protected void streamExperiments( List<ExperimentConfiguration> configs,
+                                      List<String> queryIDs,
+                                      List<ExperimentSchedule.Entry> schedule )
+    {
+    	for ( ExperimentSchedule.Entry e : schedule )
+    	{
+    		final String csv = runQuery( configs.get(e.configIndex), queryIDs.get(e.queryIndex) );
+    		System.out.println( ForkedExperimentDriver.RESULT_PREFIX + csv );
+    		System.out.flush();
+    	}
+    }
+
+    /**
+     * Executes all (configuration, query) pairs using a pool of
+     * {@link #parallelism} worker threads, which take the pairs in the
+     * order of the given schedule. The resulting CSV files are the same
+     * as in the sequential case; in particular, the lines of every file
+     * are in the order of the query ID file.
+     */
+    protected void performExperimentsInParallel( List<ExperimentConfiguration> configs,
+                                                 List<String> queryIDs,
+                                                 List<ExperimentSchedule.Entry> schedule )
+    {
+    	final ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+
+    	try
+    	{
+    		final List<List<Future<String>>> results = new ArrayList<>();
+    		for ( int i = 0; i < configs.size(); ++i )
+    			results.add( new ArrayList<Future<String>>( Collections.<Future<String>>nCopies(queryIDs.size(), null) ) );
+
+    		for ( ExperimentSchedule.Entry e : schedule )
+    		{
+    			final ExperimentConfiguration config = configs.get(e.configIndex);
+    			final String queryID = queryIDs.get(e.queryIndex);
+    			final Callable<String> c = new Callable<String>() {
+    				@Override
+    				public String call() throws Exception {
+    					return runQuery(config, queryID);
+    				}
+    			};
+    			results.get(e.configIndex).set( e.queryIndex, pool.submit(c) );
+    		}
+
+    		for ( int i = 0; i < configs.size(); ++i )
+    		{
+    			final String outfileName = configs.get(i).getOutfileName();
+    			final File csvOutputFile = new File( "measurements-" + outfileName );
+
+    			System.out.println(outfileName);
+
+    			try ( PrintWriter w = new PrintWriter(csvOutputFile) )
+    			{
+    				MeasurementColumns.writeSidecar( csvOutputFile, MeasurementColumns.create(checkpoints) );
+    				final List<Future<String>> resultsForConfig = results.get(i);
+    				for ( int j = 0; j < queryIDs.size(); ++j )
+    				{
+    					w.println( getResult(resultsForConfig.get(j), queryIDs.get(j)) );
+    					w.flush();
+    				}
+    			}
+    			catch ( IOException e ) {
+    				System.err.println( e.getMessage() );
+    			}
+    		}
+    	}
+    	finally
+    	{
+    		pool.shutdownNow();
+    	}
+    }
+
+    static protected String getResult( Future<String> f, String queryID )
+    {
+    	try {
+    		return f.get();
+    	}
+    	catch ( InterruptedException e ) {
+    		Thread.currentThread().interrupt();
+    		return queryID + ", ERROR: interrupted while waiting for the worker thread (" + e.getMessage() + ")";
+    	}
+    	catch ( ExecutionException e ) {
+    		return queryID + ", ERROR: caught " + e.getCause().getClass().getName() + " in the worker thread (" + e.getCause().getMessage() + ")";
+    	}
+    }
+
+    /**
+     * Runs the given query with the given configuration and returns the
+     * resulting CSV line, while the progress is tracked. When resuming,
+     * the line from the journal is returned instead if the pair has been
+     * finished already, and every new line is recorded in the journal.
+     */
+    protected String runQuery( ExperimentConfiguration config, String queryID )
     {
-    	final File queryDir = new File(queriesDir, queryID);
-//    	if ( ! queryDir.exists() || queryDir.canRead() )
-//    		return queryID + ", ERROR: directory with the query files does not exist or cannot be read " + queryDir.toString();
+    	progress.queryStarted( config.getName(), queryID );
+
+    	String csv = ( journal == null ) ? null : journal.getFinished(config, queryID, rerunFailed);
+    	if ( csv == null )
+    	{
+    		csv = prepareAndRunQuery(config, queryID);
+    		if ( journal != null ) {
+    			try {
+    				journal.record(config, queryID, csv);
+    			}
+    			catch ( IOException e ) {
+    				System.err.println("Recording " + queryID + " in the journal failed: " + e.getMessage() );
+    			}
+    		}
+    	}
+
+    	progress.queryFinished( config.getName(), queryID, csv );
+    	return csv;
+    }
 
-    	final File queryFile = new File(queryDir, filenamePrefix + "_file" + queryID + ".txt");
+    protected String prepareAndRunQuery( ExperimentConfiguration config, String queryID )
+    {
+    	final File queryFile = config.getQueryFile(queriesDir, queryID);
 //    	if ( ! queryFile.exists() || queryFile.canRead() )
 //    		return queryID + ", ERROR: the query file does not exist or cannot be read";
 
-    	final Query query;
+    	final CompiledQuery query;
     	try
     	{
-    		query = QueryFactory.read( queryFile.getPath() );
+    		query = queryCache.get(config, queryID);
     	}
     	catch ( JenaException e )
     	{
     		return queryID + ", ERROR: reading the query failed (" + e.getMessage() + ")";
     	}
 
-    	final File csvfileTimesUntilSolutions    = new File( queryDir, "TimesUntilSolutions-" + outfileName );
-    	final File csvfileAccessesUntilSolutions = new File( queryDir, "AccessesUntilSolutions-" + outfileName );
-
+    	File tmpTraceFile = null;
     	try {
-    		return runQuery(query, queryID, csvfileTimesUntilSolutions, csvfileAccessesUntilSolutions);
+    		if ( ! keepTraces && ! traceInMemory )
+    			tmpTraceFile = File.createTempFile("SolutionTrace-", ".bin");
+
+    		return runQuery(query, queryID, config, queryFile.getParentFile(), tmpTraceFile);
     	}
     	catch ( Throwable e )
     	{
@@ -259,289 +1206,533 @@ public class RunExperiment extends CmdGeneral
 
     		return queryID + ", ERROR: caught " + e.getClass().getName() + " when running query (" + e.getMessage() + ")";
     	}
+    	finally
+    	{
+    		if ( tmpTraceFile != null )
+    			tmpTraceFile.delete();
+    	}
     }
 
-    protected String runQuery( Query q,
+    /**
+     * Performs the warm-up runs and the measured runs of the given query,
+     * and returns the resulting CSV line. The existing columns describe
+     * the measured run with the median overall time; the statistics over
+     * all measured runs are appended. If a run times out, the measured
+     * runs that have finished before are discarded and only their number
+     * is reported in the TIMEOUT line.
+     *
+     * @param queryDir directory in which the traces are kept (if requested)
+     * @param tmpTraceFile file to be used for the traces that are not kept,
+     *                     or null if they are to be recorded in memory
+     */
+    protected String runQuery( CompiledQuery q,
                                String queryID,
-                               File csvfileTimesUntilSolutions,
-                               File csvfileAccessesUntilSolutions )
+                               ExperimentConfiguration config,
+                               File queryDir,
+                               File tmpTraceFile )
     {
+    	final long timeoutInMillis = timeouts.getTimeoutInMillis(queryID, config);
+    	final List<Measurement> measurements = new ArrayList<>();
+
     	try
     	{
-        	int solutionCounter = 0;
         	for ( int i=0; i < warmupsPerQuery; ++i )
-        		solutionCounter = warmupQueryExecWithTimeout(q);
+        		warmupQueryExecWithTimeout(q, queryID, config, timeoutInMillis);
+
+        	final long startTime = System.currentTimeMillis();
+        	while ( measurements.size() < runsPerQuery )
+        	{
+        		final File traceFile;
+        		if ( keepTraces ) {
+        			final String suffix = ( runsPerQuery == 1 ) ? "" : "-" + measurements.size();
+        			traceFile = new File( queryDir, "SolutionTrace-" + config.getName() + suffix + ".bin" );
+        		}
+        		else
+        			traceFile = tmpTraceFile;
+
+        		measurements.add( measureQueryExecOnce(q, queryID, config, timeoutInMillis, traceFile) );
 
-        	return measureQueryExecWithTimeout(q, queryID, solutionCounter, csvfileTimesUntilSolutions, csvfileAccessesUntilSolutions);
+        		if ( adaptive && isPrecisionReached(measurements) )
+        			break;
+        		if ( adaptive && System.currentTimeMillis() - startTime >= timeBudgetPerQueryInMillis )
+        			break;
+        	}
+
+        	return toCSV(queryID, measurements);
+    	}
+    	catch ( IOException e ) {
+    		return queryID + ", ERROR: preparing the HDT file for the cold run failed (" + e.getMessage() + ")";
     	}
     	catch ( InterruptedException e ) {
     		return queryID + ", ERROR: timeout thread interrupted (" + e.getMessage() + ")";
     	}
     	catch ( ExecutionException e ) {
-    		return queryID + ", ERROR: caught " + e.getClass().getName() + " when executing timeout thread (" + e.getMessage() + ")";
+    		final BudgetExceededException be = BudgetExceededException.find( e.getCause() );
+    		if ( be != null )
+    			return queryID + ", " + RankingSummary.BUDGET_EXCEEDED + ", " + be.getLimit() + " " + be.getResource()
+    			               + ", after " + be.getAccesses() + " accesses"
+    			               + ", " + be.getTriples() + " triples"
+    			               + ", " + be.getAllocatedBytes() + " allocated bytes";
+
+    		return queryID + ", ERROR: caught " + e.getCause().getClass().getName() + " when executing query (" + e.getCause().getMessage() + ")";
     	}
-    	catch ( TimeoutException e ) {
-    		return queryID + ", TIMEOUT, " + TIMEOUT_IN_SECONDS + " seconds";
+    	catch ( QueryTimeoutException e ) {
+    		return queryID + ", TIMEOUT, " + e.getTimeoutInMillis()/1000d + " seconds"
+    		               + ", abort took " + e.getAbortTimeInNanos()/1000000d + " ms"
+    		               + ", " + ( e.isFreedHeapKnown() ? "freed " + e.getFreedHeapInBytes()/(1024d*1024d) + " MB" : "" )
+    		               + ( e.hasTerminated() ? "" : ", NOT TERMINATED" )
+    		               + ", after " + measurements.size() + " finished runs";
     	}
     }
 
-    protected int warmupQueryExecWithTimeout( final Query q ) throws InterruptedException, ExecutionException, TimeoutException
+    protected Measurement measureQueryExecOnce( CompiledQuery q,
+                                                String queryID,
+                                                ExperimentConfiguration config,
+                                                long timeoutInMillis,
+                                                File traceFile )
+                                   throws IOException, InterruptedException, ExecutionException, QueryTimeoutException
     {
+    	if ( ! coldRun )
+    		return measureQueryExecWithTimeout(q, queryID, config, timeoutInMillis, hdtGraph, hdtLoadTime, traceFile);
+
+    	if ( coldCache )
+    		dropHDTFromPageCache();
+
+    	final long startTime = System.nanoTime();
+    	final HDT freshHDT = loadHDT();
+    	final long freshHDTLoadTime = System.nanoTime() - startTime;
+    	boolean inUse = false;
+    	try {
+    		return measureQueryExecWithTimeout(q, queryID, config, timeoutInMillis, new HDTGraph(freshHDT), freshHDTLoadTime, traceFile);
+    	}
+    	catch ( QueryTimeoutException e ) {
+    		// the worker thread may still read the HDT file, which must not
+    		// be unmapped underneath it
+    		if ( ! e.hasTerminated() ) {
+    			inUse = true;
+    			System.err.println( "The aborted execution of query " + queryID + " for " + config.getName() + " has not terminated; its HDT file is left open" );
+    		}
+    		throw e;
+    	}
+    	finally {
+    		if ( ! inUse )
+    			freshHDT.close();
+    	}
+    }
+
+    protected boolean isPrecisionReached( List<Measurement> measurements )
+    {
+    	if ( measurements.size() < minRunsPerQueryAdaptive )
+    		return false;
+
+    	final double[] overallTimes = new double[ measurements.size() ];
+    	for ( int i = 0; i < overallTimes.length; ++i )
+    		overallTimes[i] = measurements.get(i).overallTime;
+
+    	return new MeasurementStatistics(overallTimes).getRelativeCIWidth() <= maxRelativeCIWidth;
+    }
+
+    protected int warmupQueryExecWithTimeout( final CompiledQuery q, final String queryID, final ExperimentConfiguration config, long timeoutInMillis )
+                                    throws InterruptedException, ExecutionException, QueryTimeoutException
+    {
+    	final QueryAbortHandle abortHandle = new QueryAbortHandle();
     	final Callable<Integer> c = new Callable<Integer>() {
     		@Override
 	        public Integer call() throws Exception {
-	            return warmupQueryExec(q);
+	            return warmupQueryExec(q, queryID, config, abortHandle);
 	        }
     	};
 
-    	return runWithTimeout(c);
+    	return runWithTimeout(c, abortHandle, timeoutInMillis);
     }
 
-    protected int warmupQueryExec( Query q )
+    protected int warmupQueryExec( CompiledQuery q, String queryID, ExperimentConfiguration config, QueryAbortHandle abortHandle )
     {
-        final QueryExecution qe = QueryExecutionFactory.create(q, dataset);
-        final ResultSet rs = qe.execSelect();
+        final ExperimentGraph instrumentedGraph = createInstrumentedGraph();
+        final Dataset dataset = createDataset(instrumentedGraph);
+        final FlightRecorderEvents.QueryExecution event = FlightRecorderEvents.INSTANCE.beginQueryExecution();
+        boolean completed = false;
         int solutionCounter = 0;
-        while ( rs.hasNext() ) {
-        	rs.next();
-        	solutionCounter++;
+        Plan plan = null;
+        QueryIterator it = null;
+        try {
+        	plan = createPlan(q, dataset, config);
+        	it = plan.iterator();
+        	abortHandle.register(it);
+
+        	final ResultSet rs = ResultSetFactory.create( it, q.query.getResultVars() );
+        	while ( rs.hasNext() ) {
+        		rs.next();
+        		solutionCounter++;
+        	}
+        	completed = true;
+        	return solutionCounter;
+        }
+        finally {
+        	if ( it != null )
+        		it.close();
+        	if ( plan != null )
+        		plan.close();
+        	finishEvent( event, queryID, config, false, completed, solutionCounter, instrumentedGraph );
         }
-        return solutionCounter;
     }
 
-    protected String measureQueryExecWithTimeout( final Query q,
-                                                  final String queryID,
-                                                  final int solutionCounter,
-                                                  final File csvfileTimesUntilSolutions,
-                                                  final File csvfileAccessesUntilSolutions )
-                                    		   throws InterruptedException, ExecutionException, TimeoutException
+    /**
+     * Finishes the given Flight Recorder event for a query execution,
+     * which is committed if such events are recorded.
+     */
+    static protected void finishEvent( FlightRecorderEvents.QueryExecution event,
+                                       String queryID,
+                                       ExperimentConfiguration config,
+                                       boolean measured,
+                                       boolean completed,
+                                       long solutions,
+                                       ExperimentGraph instrumentedGraph )
     {
-    	final Callable<String> c = new Callable<String>() {
+    	event.finish( queryID,
+    	              config.getName(),
+    	              measured,
+    	              completed,
+    	              solutions,
+    	              instrumentedGraph.getReadAccessCounter(),
+    	              instrumentedGraph.getTriplesCounter() );
+    }
+
+    protected Measurement measureQueryExecWithTimeout( final CompiledQuery q,
+                                                       final String queryID,
+                                                       final ExperimentConfiguration config,
+                                                       final long timeoutInMillis,
+                                                       final Graph baseGraph,
+                                                       final long hdtLoadTime,
+                                                       final File traceFile )
+                                                       throws InterruptedException, ExecutionException, QueryTimeoutException
+    {
+    	final QueryAbortHandle abortHandle = new QueryAbortHandle();
+    	final Callable<Measurement> c = new Callable<Measurement>() {
     		@Override
-	        public String call() throws Exception {
-	            return measureQueryExec(q, queryID, solutionCounter, csvfileTimesUntilSolutions, csvfileAccessesUntilSolutions);
+	        public Measurement call() throws Exception {
+	            return measureQueryExec(q, queryID, config, abortHandle, baseGraph, hdtLoadTime, traceFile);
 	        }
     	};
 
-    	return runWithTimeout(c);
+    	return runWithTimeout(c, abortHandle, timeoutInMillis);
     }
 
-    protected String measureQueryExec( Query q,
-                                       String queryID,
-                                       int solutionCounter,
-                                       File csvfileTimesUntilSolutions,
-                                       File csvfileAccessesUntilSolutions )
+    /**
+     * Executes the given query over the given graph and records the time,
+     * the read accesses, and the triples until every solution in a trace,
+     * from which the summary in the returned measurement is derived. The
+     * trace is written to the given file or, if that is null, kept in
+     * memory.
+     */
+    protected Measurement measureQueryExec( CompiledQuery q,
+                                            String queryID,
+                                            ExperimentConfiguration config,
+                                            QueryAbortHandle abortHandle,
+                                            Graph baseGraph,
+                                            long hdtLoadTime,
+                                            File traceFile ) throws IOException
     {
-    	instrumentedGraph.resetReadAccessCounter();
+    	final CachingGraph cachingGraph = createCachingGraph(baseGraph);
+    	final ExperimentGraph instrumentedGraph = new ExperimentGraph( (cachingGraph != null) ? cachingGraph : baseGraph );
+    	instrumentedGraph.setBudget(budget);
+    	final Dataset dataset = createDataset(instrumentedGraph);
+
+    	final InMemorySolutionTrace memoryTrace;
+    	final SolutionTraceRecorder traceRecorder;
+    	if ( traceFile == null ) {
+    		memoryTrace = new InMemorySolutionTrace();
+    		traceRecorder = memoryTrace;
+    	}
+    	else {
+    		memoryTrace = null;
+    		traceRecorder = new SolutionTraceWriter(traceFile);
+    	}
 
-    	final long[] timesUntilSolutions    = new long[solutionCounter];
-    	final long[] accessesUntilSolutions = new long[solutionCounter];
-    	final long[] triplesUntilSolutions  = new long[solutionCounter];
-    	int i = 0;
+    	final ExperimentProgress.Execution execution = progress.executionStarted( config.getName(), queryID, instrumentedGraph, traceRecorder );
 
-    	System.gc();
+    	// a full GC would stall the concurrently running measurements as well
+    	if ( parallelism == 1 )
+    		System.gc();
+
+    	// the peak heap usage cannot be captured per concurrent execution
+    	final ResourceUsageProbe resourceUsage = new ResourceUsageProbe( parallelism == 1 );
+    	resourceUsage.start();
+
+    	final FlightRecorderEvents.QueryExecution event = FlightRecorderEvents.INSTANCE.beginQueryExecution();
+    	boolean completed = false;
 
     	final long startTime = System.nanoTime();
-        final QueryExecution qe = QueryExecutionFactory.create(q, dataset);
-    	final long timeAfterCreate = System.nanoTime();
-        final ResultSet rs = qe.execSelect();
-        while ( rs.hasNext() )
+    	long timeAfterPlan = startTime;
+    	long timeAfterCreate = startTime;
+    	final long endTime;
+    	// creating the plan and its iterators may fail as well, e.g., if the
+    	// budget is exceeded, which must not leave the execution registered
+        Plan plan = null;
+        QueryIterator it = null;
+        try
         {
-        	rs.next();
-
-        	timesUntilSolutions[i]    = ( System.nanoTime() - startTime );
-        	accessesUntilSolutions[i] = instrumentedGraph.getReadAccessCounter();
-        	triplesUntilSolutions[i]  = instrumentedGraph.getTriplesCounter();
+        	plan = createPlan(q, dataset, config);
+        	timeAfterPlan = System.nanoTime();
+        	it = plan.iterator();
+        	timeAfterCreate = System.nanoTime();
+        	abortHandle.register(it);
+
+        	final ResultSet rs = ResultSetFactory.create( it, q.query.getResultVars() );
+        	while ( rs.hasNext() )
+        	{
+        		rs.next();
+
+        		traceRecorder.append( System.nanoTime() - startTime,
+        		                      instrumentedGraph.getReadAccessCounter(),
+        		                      instrumentedGraph.getTriplesCounter() );
+        	}
 
-        	i++; 
+        	endTime = System.nanoTime();
+        	resourceUsage.stop();
+        	completed = true;
+        }
+        finally
+        {
+        	if ( it != null )
+        		it.close();
+        	if ( plan != null )
+        		plan.close();
+        	traceRecorder.close();
+        	progress.executionFinished(execution);
+        	finishEvent( event, queryID, config, true, completed, traceRecorder.getSolutionCount(), instrumentedGraph );
         }
 
-    	final long endTime = System.nanoTime();
-
-    	System.gc();
+    	if ( parallelism == 1 )
+    		System.gc();
 
+    	final long solutionCounter = traceRecorder.getSolutionCount();
     	final long overallAccesses = instrumentedGraph.getReadAccessCounter();
     	final long overallTriples  = instrumentedGraph.getTriplesCounter();
     	final long overallTime  = endTime - startTime;
     	final long creationTime = timeAfterCreate - startTime;
+    	final long planTime     = timeAfterPlan - startTime;
     	final long execTime     = endTime - timeAfterCreate;
 
-    	final long[] timeToPercentageOfResult     = new long[10];
-    	final long[] accessesToPercentageOfResult = new long[10];
-    	final long[] triplesToPercentageOfResult  = new long[10];
-    	if ( solutionCounter > 0 )
-    	{
-    		for ( int j=1; j<11; ++j ) {
-    			final int tmp = (int) Math.ceil( (j*solutionCounter)/10d );
-        		final int arrayIndex = Math.min(tmp, solutionCounter-1);
-        		timeToPercentageOfResult[j-1]     = timesUntilSolutions[arrayIndex];
-        		accessesToPercentageOfResult[j-1] = accessesUntilSolutions[arrayIndex];
-        		triplesToPercentageOfResult[j-1]  = triplesUntilSolutions[arrayIndex];
-        	}
+    	final SolutionTraceSummary summary;
+    	if ( traceFile == null ) {
+    		summary = SolutionTraceSummary.create(memoryTrace, checkpoints);
     	}
-    	else
-    	{
-    		for ( int j=1; j<11; ++j ) {
-        		timeToPercentageOfResult[j-1]     = 0L;
-        		accessesToPercentageOfResult[j-1] = 0L;
-        		triplesToPercentageOfResult[j-1]  = 0L;
-        	}
+    	else {
+    		final SolutionTraceReader traceReader = new SolutionTraceReader(traceFile);
+    		try {
+    			summary = SolutionTraceSummary.create(traceReader, checkpoints);
+    		}
+    		finally {
+    			traceReader.close();
+    		}
     	}
 
-    	final long[] timeTo10Mappings     = new long[10];
-    	final long[] accessesTo10Mappings = new long[10];
-    	final long[] triplesTo10Mappings  = new long[10];
-    	if ( solutionCounter >= 100 )
+    	return new Measurement( solutionCounter, overallAccesses, overallTriples, overallTime, creationTime, execTime, summary,
+    	                        instrumentedGraph.getFindsByPattern(),
+    	                        instrumentedGraph.getContainsByPattern(),
+    	                        instrumentedGraph.getEarlyClosedIteratorsCounter(),
+    	                        (cachingGraph != null) ? cachingGraph.getHitsCounter() : 0L,
+    	                        (cachingGraph != null) ? cachingGraph.getMissesCounter() : 0L,
+    	                        (cachingGraph != null) ? cachingGraph.getEvictionsCounter() : 0L,
+    	                        resourceUsage,
+    	                        q.parseTime,
+    	                        q.algebraTime,
+    	                        planTime,
+    	                        hdtLoadTime );
+    }
+
+    /**
+     * Returns the CSV line for the given measurements of a query, which
+     * consists of the values of the measured run with the median overall
+     * time, followed by statistics over all measured runs.
+     */
+    protected String toCSV( String queryID, List<Measurement> measurements )
+    {
+    	final int n = measurements.size();
+    	final double[] overallTimes  = new double[n];
+    	final double[] creationTimes = new double[n];
+    	final double[] execTimes     = new double[n];
+    	for ( int i = 0; i < n; ++i )
     	{
-    		for ( int j=1; j<11; ++j ) {
-        		timeTo10Mappings[j-1]     = timesUntilSolutions[j*10];
-        		accessesTo10Mappings[j-1] = accessesUntilSolutions[j*10];
-        		triplesTo10Mappings[j-1]  = triplesUntilSolutions[j*10];
-        	}
+    		overallTimes[i]  = measurements.get(i).overallTime/1000000d;
+    		creationTimes[i] = measurements.get(i).creationTime/1000000d;
+    		execTimes[i]     = measurements.get(i).execTime/1000000d;
     	}
-    	else
-    	{
-    		for ( int j=1; j<11; ++j ) {
-    			timeTo10Mappings[j-1]     = 0L;
-    			accessesTo10Mappings[j-1] = 0L;
-    			triplesTo10Mappings[j-1]  = 0L;
-        	}
-    	}
-
-    	final String csv = queryID
-    	                   + ", " + solutionCounter
-    	                   + ", " + overallAccesses
-    	                   + ", " + overallTriples
-    	                   + ", " + overallTime/1000000d
-    	                   + ", " + creationTime/1000000d
-    	                   + ", " + execTime/1000000d
-    	                   + ", "
-    	                   + ", " + timeToPercentageOfResult[0]/1000000d
-    	                   + ", " + timeToPercentageOfResult[1]/1000000d
-    	                   + ", " + timeToPercentageOfResult[2]/1000000d
-    	                   + ", " + timeToPercentageOfResult[3]/1000000d
-    	                   + ", " + timeToPercentageOfResult[4]/1000000d
-    	                   + ", " + timeToPercentageOfResult[5]/1000000d
-    	                   + ", " + timeToPercentageOfResult[6]/1000000d
-    	                   + ", " + timeToPercentageOfResult[7]/1000000d
-    	                   + ", " + timeToPercentageOfResult[8]/1000000d
-    	                   + ", " + timeToPercentageOfResult[9]/1000000d
-    	                   + ", "
-    	                   + ", " + accessesToPercentageOfResult[0]
-    	                   + ", " + accessesToPercentageOfResult[1]
-    	                   + ", " + accessesToPercentageOfResult[2]
-    	                   + ", " + accessesToPercentageOfResult[3]
-    	                   + ", " + accessesToPercentageOfResult[4]
-    	                   + ", " + accessesToPercentageOfResult[5]
-    	                   + ", " + accessesToPercentageOfResult[6]
-    	                   + ", " + accessesToPercentageOfResult[7]
-    	                   + ", " + accessesToPercentageOfResult[8]
-    	                   + ", " + accessesToPercentageOfResult[9]
-    	                   + ", "
-    	                   + ", " + triplesToPercentageOfResult[0]
-    	                   + ", " + triplesToPercentageOfResult[1]
-    	                   + ", " + triplesToPercentageOfResult[2]
-    	                   + ", " + triplesToPercentageOfResult[3]
-    	                   + ", " + triplesToPercentageOfResult[4]
-    	                   + ", " + triplesToPercentageOfResult[5]
-    	                   + ", " + triplesToPercentageOfResult[6]
-    	                   + ", " + triplesToPercentageOfResult[7]
-    	                   + ", " + triplesToPercentageOfResult[8]
-    	                   + ", " + triplesToPercentageOfResult[9]
-    	                   + ", "
-    	                   + ", " + timeTo10Mappings[0]/1000000d
-    	                   + ", " + timeTo10Mappings[1]/1000000d
-    	                   + ", " + timeTo10Mappings[2]/1000000d
-    	                   + ", " + timeTo10Mappings[3]/1000000d
-    	                   + ", " + timeTo10Mappings[4]/1000000d
-    	                   + ", " + timeTo10Mappings[5]/1000000d
-    	                   + ", " + timeTo10Mappings[6]/1000000d
-    	                   + ", " + timeTo10Mappings[7]/1000000d
-    	                   + ", " + timeTo10Mappings[8]/1000000d
-    	                   + ", " + timeTo10Mappings[9]/1000000d
-    	                   + ", "
-    	                   + ", " + accessesTo10Mappings[0]
-    	                   + ", " + accessesTo10Mappings[1]
-    	                   + ", " + accessesTo10Mappings[2]
-    	                   + ", " + accessesTo10Mappings[3]
-    	                   + ", " + accessesTo10Mappings[4]
-    	                   + ", " + accessesTo10Mappings[5]
-    	                   + ", " + accessesTo10Mappings[6]
-    	                   + ", " + accessesTo10Mappings[7]
-    	                   + ", " + accessesTo10Mappings[8]
-    	                   + ", " + accessesTo10Mappings[9]
-    	                   + ", "
-    	                   + ", " + triplesTo10Mappings[0]
-    	                   + ", " + triplesTo10Mappings[1]
-    	                   + ", " + triplesTo10Mappings[2]
-    	                   + ", " + triplesTo10Mappings[3]
-    	                   + ", " + triplesTo10Mappings[4]
-    	                   + ", " + triplesTo10Mappings[5]
-    	                   + ", " + triplesTo10Mappings[6]
-    	                   + ", " + triplesTo10Mappings[7]
-    	                   + ", " + triplesTo10Mappings[8]
-    	                   + ", " + triplesTo10Mappings[9];
-
-/*
-		PrintWriter w1 = null;
-		PrintWriter w2 = null;
 
-    	try
-    	{
-    		w1 = new PrintWriter(csvfileTimesUntilSolutions);
-    		w2 = new PrintWriter(csvfileAccessesUntilSolutions);
+    	final MeasurementStatistics overallStats  = new MeasurementStatistics(overallTimes);
+    	final MeasurementStatistics creationStats = new MeasurementStatistics(creationTimes);
+    	final MeasurementStatistics execStats     = new MeasurementStatistics(execTimes);
 
-    		w1.println( queryID + ", " + overallTime/1000000d );
-    		w2.println( queryID + ", " + overallAccesses );
+    	// the run whose overall time is the (lower) median
+    	final List<Measurement> sorted = new ArrayList<>(measurements);
+    	sorted.sort( new Comparator<Measurement>() {
+    		@Override
+    		public int compare( Measurement m1, Measurement m2 ) { return Long.compare(m1.overallTime, m2.overallTime); }
+    	} );
+    	final Measurement m = sorted.get( (n-1) / 2 );
+
+    	final long solutionCounter = m.solutionCounter;
+    	final long overallAccesses = m.overallAccesses;
+    	final long overallTriples  = m.overallTriples;
+    	final long overallTime     = m.overallTime;
+    	final long creationTime    = m.creationTime;
+    	final long execTime        = m.execTime;
+    	final SolutionTraceSummary summary = m.summary;
+    	final long[] findsByPattern    = m.findsByPattern;
+    	final long[] containsByPattern = m.containsByPattern;
+
+    	final StringBuilder csv = new StringBuilder(2048);
+    	csv.append(queryID)
+    	   .append(", ").append(solutionCounter)
+    	   .append(", ").append(overallAccesses)
+    	   .append(", ").append(overallTriples)
+    	   .append(", ").append(overallTime/1000000d)
+    	   .append(", ").append(creationTime/1000000d)
+    	   .append(", ").append(execTime/1000000d);
+
+    	appendTimes(csv, summary.timeToPercentageOfResult);
+    	appendCounts(csv, summary.accessesToPercentageOfResult);
+    	appendCounts(csv, summary.triplesToPercentageOfResult);
+    	appendTimes(csv, summary.timeTo10Mappings);
+    	appendCounts(csv, summary.accessesTo10Mappings);
+    	appendCounts(csv, summary.triplesTo10Mappings);
+
+    	csv.append(", ")
+    	   .append(", ").append(n);
+    	for ( MeasurementStatistics stats : new MeasurementStatistics[] {overallStats, creationStats, execStats} ) {
+    		csv.append(", ").append(stats.median)
+    		   .append(", ").append(stats.min)
+    		   .append(", ").append(stats.p90)
+    		   .append(", ").append(stats.ciLow)
+    		   .append(", ").append(stats.ciHigh);
+    	}
 
-    		for ( int j=0; j < solutionCounter; ++j )
-    		{
-    			w1.println( " , , " + timesUntilSolutions[j]/1000000d );
-    			w2.println( " , , " + accessesUntilSolutions[j] );
-    		}
+    	appendCounts(csv, findsByPattern);
+    	appendCounts(csv, containsByPattern);
+
+    	csv.append(", ")
+    	   .append(", ").append(m.earlyClosedIterators)
+    	   .append(", ")
+    	   .append(", ").append(m.findCacheHits)
+    	   .append(", ").append(m.findCacheMisses)
+    	   .append(", ").append(m.findCacheEvictions)
+    	   .append(", ")
+    	   .append(", ").append( toCSVValue(m.allocatedBytes) )
+    	   .append(", ").append( toCSVValue(m.peakHeapBytes) )
+    	   .append(", ").append(m.gcCount)
+    	   .append(", ").append(m.gcTimeInMillis)
+    	   .append(", ")
+    	   .append(", ").append(m.parseTime/1000000d)
+    	   .append(", ").append(m.algebraTime/1000000d)
+    	   .append(", ").append(m.planTime/1000000d)
+    	   .append(", ")
+    	   .append(", ").append(m.hdtLoadTime/1000000d)
+    	   .append(", ").append( toCSVValue(m.residentSetBytes) );
+
+    	// the configurable checkpoints, in the order of SolutionCheckpoints.getColumnNames()
+    	if ( summary.timeToFirst.length > 0 ) {
+    		appendTimes(csv, summary.timeToFirst);
+    		appendCounts(csv, summary.accessesToFirst);
+    		appendCounts(csv, summary.triplesToFirst);
     	}
-    	catch ( Exception e ) {
-        	System.err.println( e.getMessage() );
-        }
-        finally
-        {
-        	if ( w1 != null ) {
-        		w1.flush();
-        		w1.close();
-        	}
+    	if ( summary.gapPercentiles.length > 0 )
+    		appendTimes(csv, summary.gapPercentiles);
 
-        	if ( w2 != null ) {
-        		w2.flush();
-        		w2.close();
-        	}
-        }
-*/
+    	return csv.toString();
+    }
 
-    	return csv;
+    /**
+     * Appends the given nanosecond values in milliseconds as a group of
+     * columns, preceded by an empty column.
+     */
+    static protected void appendTimes( StringBuilder csv, long[] nanos )
+    {
+    	csv.append(", ");
+    	for ( long t : nanos )
+    		csv.append(", ").append(t/1000000d);
+    }
+
+    /**
+     * Returns the given resource value for a CSV cell, where a negative
+     * value means that the value is not available and is written as an
+     * empty cell (which is not ranked, see {@link RankMeasurements}).
+     */
+    static protected String toCSVValue( long value )
+    {
+    	return ( value < 0L ) ? "" : Long.toString(value);
     }
 
+    /**
+     * Appends the given values as a group of columns, preceded by an
+     * empty column.
+     */
+    static protected void appendCounts( StringBuilder csv, long[] counts )
+    {
+    	csv.append(", ");
+    	for ( long c : counts )
+    		csv.append(", ").append(c);
+    }
 
-    @SuppressWarnings("deprecation")
-    static protected <T> T runWithTimeout( Callable<T> c ) throws InterruptedException, ExecutionException, TimeoutException
+
+    /**
+     * Executes the given task in one of the pooled worker threads. If the
+     * task does not finish within the given timeout, the query execution
+     * registered with the given abort handle is aborted and we wait for
+     * the task to stop, which is then reported by a
+     * {@link QueryTimeoutException}.
+     */
+    protected <T> T runWithTimeout( Callable<T> c, QueryAbortHandle abortHandle, long timeoutInMillis )
+                           throws InterruptedException, ExecutionException, QueryTimeoutException
     {
-    	final FutureTask<T> timeoutTask = new FutureTask<T>(c);
-    	final Thread thread = new Thread(timeoutTask);
-    	thread.start();
+    	final Future<T> f = queryExecPool.submit(c);
 
-    	T result;
     	try
     	{
-        	result = timeoutTask.get( TIMEOUT_IN_SECONDS, TimeUnit.SECONDS );
+    		return f.get(timeoutInMillis, TimeUnit.MILLISECONDS);
     	}
-    	finally
+    	catch ( TimeoutException e )
     	{
-    		timeoutTask.cancel(true);
+    		// fall through to abort the execution
+    	}
 
-    		if ( thread.isAlive() )
-    			thread.stop();
+    	final long usedHeapBeforeAbort = getUsedHeap();
+    	final long abortStartTime = System.nanoTime();
+    	abortHandle.abort();
+
+    	boolean terminated = true;
+    	try {
+    		f.get(ABORT_GRACE_PERIOD_IN_SECONDS, TimeUnit.SECONDS);
+    	}
+    	catch ( ExecutionException e ) {
+    		// expected; usually a QueryCancelledException
     	}
+    	catch ( TimeoutException e ) {
+    		// the execution did not react to the abort; interrupting the
+    		// worker thread is all we can do without leaving the data
+    		// structures of the execution in an undefined state
+    		f.cancel(true);
+    		terminated = false;
+    	}
+
+    	final long abortTime = System.nanoTime() - abortStartTime;
 
-    	return result;
+    	// with concurrent executions, the freed heap memory would be noise
+    	final long freedHeap;
+    	if ( parallelism == 1 ) {
+    		System.gc();
+    		freedHeap = usedHeapBeforeAbort - getUsedHeap();
+    	}
+    	else
+    		freedHeap = QueryTimeoutException.UNKNOWN;
+
+    	throw new QueryTimeoutException(timeoutInMillis, abortTime, freedHeap, terminated);
+    }
+
+    static protected long getUsedHeap()
+    {
+    	final Runtime rt = Runtime.getRuntime();
+    	return rt.totalMemory() - rt.freeMemory();
     }
 
 }
@@ -0,0 +1,642 @@
+package se.liu.ida.jenaext.optplus;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import jena.cmd.ArgDecl;
+
+import org.apache.jena.query.QueryCancelledException;
+import org.apache.jena.query.ResultSet;
+import org.apache.jena.query.ResultSetFactory;
+import org.apache.jena.shared.JenaException;
+import org.apache.jena.sparql.engine.Plan;
+import org.apache.jena.sparql.engine.QueryIterator;
+
+import se.liu.ida.jenaext.optplus.QueryCache.CompiledQuery;
+import se.liu.ida.jenaext.optplus.graph.BudgetExceededException;
+import se.liu.ida.jenaext.optplus.graph.ExperimentGraph;
+import se.liu.ida.jenaext.optplus.load.LoadStatistics;
+import se.liu.ida.jenaext.optplus.load.QueryMix;
+
+/**
+ * Runs a closed-loop load test: for every configuration and every given
+ * number of clients, the clients execute queries drawn from the query
+ * ID file one after another, concurrently over the same HDT graph, for
+ * a fixed duration (after a warm-up period). For every such phase, the
+ * queries per second, the latency percentiles, and the timeouts and
+ * errors are reported and appended to a CSV file.
+ *
+ * With a target arrival rate, the load test is open-loop instead: the
+ * arrivals of queries are scheduled in advance at the given rate (with
+ * constant or exponentially distributed gaps), and the clients act as
+ * workers that take the next arrival as soon as they are free. The
+ * latency of a query is measured from its scheduled arrival, such that
+ * it includes the time that the query waited for a free worker (that
+ * is, a slow query does not reduce the load, and the waiting is not
+ * omitted from the latencies). In step mode, the rate is increased step
+ * by step until the 99th percentile of the latencies exceeds the given
+ * SLO or queries time out.
+ *
+ * The HDT file, the queries, the configurations, and the timeouts are
+ * set up as for {@link RunExperiment}. Every query execution has its
+ * own {@link ExperimentGraph}, whose counters are thus confined to the
+ * client thread, and every client records into its own
+ * {@link LoadStatistics}; hence, the instrumentation does not introduce
+ * any contention between the clients.
+ */
+public class RunLoadTest extends RunExperiment
+{
+	static final public long DEFAULT_DURATION_IN_SECONDS = 60L;
+	static final public long DEFAULT_WARMUP_IN_SECONDS = 10L;
+	static final public String DEFAULT_OUTPUT_FILE = "loadtest.csv";
+
+	/** percentiles of the latencies that are reported */
+	static final public double[] PERCENTILES = { 50d, 90d, 99d, 99.9d, 100d };
+
+    final protected ArgDecl argClients       = new ArgDecl(ArgDecl.HasValue, "clients");
+    final protected ArgDecl argDuration      = new ArgDecl(ArgDecl.HasValue, "duration");
+    final protected ArgDecl argWarmup        = new ArgDecl(ArgDecl.HasValue, "warmup");
+    final protected ArgDecl argMix           = new ArgDecl(ArgDecl.HasValue, "mix");
+    final protected ArgDecl argLoadTestFile  = new ArgDecl(ArgDecl.HasValue, "loadTestFile");
+    final protected ArgDecl argArrivalRate   = new ArgDecl(ArgDecl.HasValue, "arrivalRate");
+    final protected ArgDecl argArrivals      = new ArgDecl(ArgDecl.HasValue, "arrivals");
+    final protected ArgDecl argRateStep      = new ArgDecl(ArgDecl.HasValue, "rateStep");
+    final protected ArgDecl argMaxRate       = new ArgDecl(ArgDecl.HasValue, "maxRate");
+    final protected ArgDecl argSLO           = new ArgDecl(ArgDecl.HasValue, "slo");
+
+    protected int[] clientCounts = { 1 };
+    protected long durationInMillis = DEFAULT_DURATION_IN_SECONDS * 1000L;
+    protected long warmupInMillis = DEFAULT_WARMUP_IN_SECONDS * 1000L;
+    protected boolean weightedMix = false;
+    protected String loadTestFileName = DEFAULT_OUTPUT_FILE;
+
+    /** target arrival rate in queries per second, or 0 for a closed-loop test */
+    protected double arrivalRate = 0d;
+    protected boolean poissonArrivals = false;
+    protected double rateStep = 0d;
+    protected double maxRate = Double.MAX_VALUE;
+    protected double sloInMillis = 0d;
+
+    /**
+     * Aborts the query executions that run into their timeout; in
+     * contrast to the measurements of {@link RunExperiment}, the clients
+     * execute the queries in their own threads.
+     */
+    final protected ScheduledExecutorService timeoutScheduler = Executors.newSingleThreadScheduledExecutor( new ThreadFactory() {
+    	@Override
+    	public Thread newThread( Runnable r ) {
+    		final Thread t = new Thread(r, "load-timeouts");
+    		t.setDaemon(true);
+    		return t;
+    	}
+    } );
+
+    public static void main( String... argv )
+    {
+        new RunLoadTest(argv).mainRun();
+    }
+
+    public RunLoadTest( String[] argv )
+    {
+    	super(argv);
+
+        super.getUsage().startCategory("Load test options");
+        super.add( argClients, "--clients", "Comma-separated numbers of concurrent clients, each of which is run for every configuration (optional, default is 1)" );
+        super.add( argDuration, "--duration", "Duration in seconds of the measured period for every configuration and number of clients (optional, default is " + DEFAULT_DURATION_IN_SECONDS + ")" );
+        super.add( argWarmup, "--warmup", "Duration in seconds of the warm-up period before every measured period (optional, default is " + DEFAULT_WARMUP_IN_SECONDS + ")" );
+        super.add( argMix, "--mix", "How the clients draw the queries, 'roundrobin' or 'weighted' (randomly, with the weights in the second column of the query ID file) (optional, default is 'roundrobin')" );
+        super.add( argLoadTestFile, "--loadTestFile", "CSV file to which the results are appended (optional, default is " + DEFAULT_OUTPUT_FILE + ")" );
+        super.add( argArrivalRate, "--arrivalRate", "Target rate of query arrivals per second, which makes the load test open-loop, with the clients as workers (optional, default is a closed-loop test)" );
+        super.add( argArrivals, "--arrivals", "Distribution of the gaps between arrivals, 'constant' or 'poisson' (optional, default is 'constant')" );
+        super.add( argRateStep, "--rateStep", "Increase of the arrival rate after every measured period until the p99 latency exceeds the SLO (optional, requires --arrivalRate and --slo)" );
+        super.add( argMaxRate, "--maxRate", "Arrival rate at which the step mode stops (optional, default is no limit)" );
+        super.add( argSLO, "--slo", "Objective for the p99 latency in milliseconds in step mode" );
+    }
+
+    @Override
+    protected String getSummary()
+    {
+        return getCommandName() + " --hdtfile=file --queryids=file --querydir=dir --clients=1,2,4,8";
+    }
+
+    @Override
+    protected void processModulesAndArgs()
+    {
+    	// check the options of the load test before the HDT file is loaded
+        if ( hasArg(argClients) ) {
+        	try {
+        		final String[] counts = getValue(argClients).split(",");
+        		clientCounts = new int[counts.length];
+        		for ( int i = 0; i < counts.length; ++i )
+        			clientCounts[i] = Integer.parseInt( counts[i].trim() );
+        	}
+        	catch ( NumberFormatException e ) {
+        		cmdError("Parsing the given numbers of clients failed: " + e.getMessage() );
+        	}
+
+        	for ( int c : clientCounts ) {
+        		if ( c < 1 )
+        			cmdError("The given numbers of clients must be at least 1");
+        	}
+        }
+
+        durationInMillis = parseSeconds(argDuration, durationInMillis);
+        warmupInMillis = parseSeconds(argWarmup, warmupInMillis);
+        if ( durationInMillis <= 0L ) {
+        	cmdError("The given duration must be positive");
+        }
+
+        if ( hasArg(argMix) ) {
+        	final String mix = getValue(argMix);
+        	if ( mix.equalsIgnoreCase("weighted") )
+        		weightedMix = true;
+        	else if ( ! mix.equalsIgnoreCase("roundrobin") )
+        		cmdError("Unknown mix '" + mix + "' (use 'roundrobin' or 'weighted')");
+        }
+
+        if ( hasArg(argLoadTestFile) ) {
+        	loadTestFileName = getValue(argLoadTestFile);
+        }
+
+        arrivalRate = parsePositive(argArrivalRate, arrivalRate);
+        rateStep = parsePositive(argRateStep, rateStep);
+        maxRate = parsePositive(argMaxRate, maxRate);
+        sloInMillis = parsePositive(argSLO, sloInMillis);
+
+        if ( hasArg(argArrivals) ) {
+        	final String arrivals = getValue(argArrivals);
+        	if ( arrivals.equalsIgnoreCase("poisson") )
+        		poissonArrivals = true;
+        	else if ( ! arrivals.equalsIgnoreCase("constant") )
+        		cmdError("Unknown arrivals '" + arrivals + "' (use 'constant' or 'poisson')");
+        }
+
+        if ( arrivalRate == 0d && (hasArg(argArrivals) || hasArg(argRateStep) || hasArg(argMaxRate) || hasArg(argSLO)) ) {
+        	cmdError("--arrivals, --rateStep, --maxRate, and --slo require --arrivalRate");
+        }
+
+        if ( rateStep > 0d && sloInMillis == 0d ) {
+        	cmdError("--rateStep requires --slo");
+        }
+
+        if ( contains(argColdRun) || contains(argColdCache) ) {
+        	cmdError("A load test cannot be combined with cold runs");
+        }
+
+        if ( contains(argFork) || contains(argStreamResults) ) {
+        	cmdError("A load test cannot be run in child JVMs");
+        }
+
+        if ( contains(argResume) ) {
+        	cmdError("A load test cannot be resumed");
+        }
+
+    	super.processModulesAndArgs();
+    }
+
+    protected long parseSeconds( ArgDecl arg, long defaultInMillis )
+    {
+    	if ( ! hasArg(arg) )
+    		return defaultInMillis;
+
+    	try {
+    		final long millis = Math.round( Double.parseDouble(getValue(arg)) * 1000d );
+    		if ( millis < 0L )
+    			cmdError("The given " + arg.getKeyName() + " must not be negative");
+    		return millis;
+    	}
+    	catch ( NumberFormatException e ) {
+    		cmdError("Parsing the given " + arg.getKeyName() + " failed: " + e.getMessage() );
+    		return defaultInMillis;
+    	}
+    }
+
+    protected double parsePositive( ArgDecl arg, double defaultValue )
+    {
+    	if ( ! hasArg(arg) )
+    		return defaultValue;
+
+    	try {
+    		final double value = Double.parseDouble( getValue(arg) );
+    		if ( ! (value > 0d) )
+    			cmdError("The given " + arg.getKeyName() + " must be positive");
+    		return value;
+    	}
+    	catch ( NumberFormatException e ) {
+    		cmdError("Parsing the given " + arg.getKeyName() + " failed: " + e.getMessage() );
+    		return defaultValue;
+    	}
+    }
+
+    @Override
+    protected void exec()
+    {
+        try {
+        	preparedQueryIDs.get();
+        }
+        catch ( InterruptedException e ) {
+        	Thread.currentThread().interrupt();
+        	return;
+        }
+        catch ( ExecutionException e ) {
+        	System.err.println( e.getCause().getMessage() );
+        	return;
+        }
+
+        startupProfiler.printSummary();
+
+        final QueryMix mix;
+        try {
+        	mix = QueryMix.read(queryidFile, weightedMix);
+        }
+        catch ( IOException | IllegalArgumentException e ) {
+        	System.err.println( "Reading the query mix failed: " + e.getMessage() );
+        	return;
+        }
+
+        try ( PrintWriter w = openLoadTestFile() )
+        {
+        	for ( ExperimentConfiguration config : matrix.getConfigurations() )
+        	{
+        		final CompiledQuery[] queries = compileQueries(config, mix);
+        		for ( int clients : clientCounts )
+        		{
+        			if ( arrivalRate == 0d ) {
+        				final LoadStatistics stats = runClosedLoop(config, mix, queries, clients);
+        				print( w, toCSV(config, "closed", clients, 0d, stats) );
+        				continue;
+        			}
+
+        			final String mode = poissonArrivals ? "open-poisson" : "open-constant";
+        			double rate = arrivalRate;
+        			double sustainableRate = 0d;
+        			while ( true )
+        			{
+        				final LoadStatistics stats = runOpenLoop(config, mix, queries, clients, rate);
+        				print( w, toCSV(config, mode, clients, rate, stats) );
+
+        				if ( rateStep == 0d )
+        					break;
+
+        				if ( stats.getLatencyInMillis(99d) > sloInMillis || stats.getTimeouts() > 0L ) {
+        					System.out.println( "The p99 SLO of " + sloInMillis + " ms is not met at " + rate + " queries per second; the sustainable rate of " + config.getName() + " with " + clients + " clients is " + sustainableRate + " queries per second" );
+        					break;
+        				}
+
+        				sustainableRate = rate;
+        				rate += rateStep;
+        				if ( rate > maxRate ) {
+        					System.out.println( "The p99 SLO of " + sloInMillis + " ms is met up to the maximum rate of " + sustainableRate + " queries per second" );
+        					break;
+        				}
+        			}
+        		}
+        	}
+        }
+        catch ( FileNotFoundException e ) {
+        	System.err.println( e.getMessage() );
+        }
+        finally
+        {
+        	timeoutScheduler.shutdownNow();
+        	queryExecPool.shutdownNow();
+        }
+    }
+
+    static protected void print( PrintWriter w, String line )
+    {
+    	System.out.println(line);
+    	w.println(line);
+    	w.flush();
+    }
+
+    protected PrintWriter openLoadTestFile() throws FileNotFoundException
+    {
+    	final File f = new File(loadTestFileName);
+    	final boolean exists = f.exists();
+    	final PrintWriter w = new PrintWriter( new FileOutputStream(f, true) );
+    	if ( ! exists )
+    		w.println( getCSVHeader() );
+    	return w;
+    }
+
+    /**
+     * Returns the compiled queries of the given mix for the given
+     * configuration, with null for every query that cannot be read (which
+     * is counted as an error whenever it is drawn).
+     */
+    protected CompiledQuery[] compileQueries( ExperimentConfiguration config, QueryMix mix )
+    {
+    	final CompiledQuery[] queries = new CompiledQuery[ mix.size() ];
+    	for ( int i = 0; i < queries.length; ++i )
+    	{
+    		try {
+    			queries[i] = queryCache.get( config, mix.getQueryIDs().get(i) );
+    		}
+    		catch ( JenaException e ) {
+    			System.err.println( "Reading query " + mix.getQueryIDs().get(i) + " for " + config.getName() + " failed: " + e.getMessage() );
+    		}
+    	}
+    	return queries;
+    }
+
+    /**
+     * Runs the given number of clients for the warm-up period and the
+     * measured period, and returns the statistics of the executions that
+     * have been started in the measured period. The clients finish the
+     * executions that are running at the end of the measured period.
+     */
+    protected LoadStatistics runClosedLoop( final ExperimentConfiguration config,
+                                            final QueryMix mix,
+                                            final CompiledQuery[] queries,
+                                            final int clients )
+    {
+    	final long measureStartTime = System.nanoTime() + warmupInMillis * 1000000L;
+    	final long endTime = measureStartTime + durationInMillis * 1000000L;
+
+    	final LoadStatistics[] stats = new LoadStatistics[clients];
+    	final List<Thread> threads = new ArrayList<>();
+    	for ( int i = 0; i < clients; ++i )
+    	{
+    		final int client = i;
+    		stats[i] = new LoadStatistics();
+    		final Thread t = new Thread( new Runnable() {
+    			@Override
+    			public void run()
+    			{
+    				final Random random = new Random(seed + client);
+    				for ( long seq = client; ; seq += clients )
+    				{
+    					final long startTime = System.nanoTime();
+    					if ( startTime >= endTime )
+    						break;
+
+    					final int q = mix.next(seq, random);
+    					final LoadStatistics s = ( startTime >= measureStartTime ) ? stats[client] : null;
+    					executeQuery( queries[q], mix.getQueryIDs().get(q), config, s, startTime );
+    				}
+    			}
+    		}, "load-client-" + (i+1) );
+    		threads.add(t);
+    		t.start();
+    	}
+
+    	final LoadStatistics result = new LoadStatistics();
+    	for ( int i = 0; i < clients; ++i )
+    	{
+    		try {
+    			threads.get(i).join();
+    		}
+    		catch ( InterruptedException e ) {
+    			Thread.currentThread().interrupt();
+    			break;
+    		}
+    		result.add( stats[i] );
+    	}
+
+    	// executions that are still running at the end of the measured period
+    	// are finished and counted, but they started inside the period
+    	result.setPeriodInNanos( durationInMillis * 1000000L );
+    	return result;
+    }
+
+    /**
+     * Runs an open-loop phase with the given number of workers and the
+     * given target arrival rate, and returns the statistics of the queries
+     * that arrive in the measured period. Queries that are not started
+     * until the end of the measured period plus the default timeout are
+     * counted as timeouts without being executed.
+     */
+    protected LoadStatistics runOpenLoop( final ExperimentConfiguration config,
+                                          final QueryMix mix,
+                                          final CompiledQuery[] queries,
+                                          final int workers,
+                                          final double rate )
+    {
+    	final long[] arrivals = createArrivals( rate, (warmupInMillis + durationInMillis) * 1000000L, poissonArrivals, new Random(seed) );
+    	final Random queryRandom = new Random(seed + 1L);
+    	final int[] drawn = new int[arrivals.length];
+    	for ( int i = 0; i < arrivals.length; ++i )
+    		drawn[i] = mix.next(i, queryRandom);
+
+    	final long startTime = System.nanoTime() + 1000000L; // leave time to start the workers
+    	final long measureStartTime = startTime + warmupInMillis * 1000000L;
+    	final long giveUpTime = startTime + (warmupInMillis + durationInMillis + timeouts.getDefaultTimeoutInMillis()) * 1000000L;
+    	final AtomicInteger next = new AtomicInteger();
+
+    	final LoadStatistics[] stats = new LoadStatistics[workers];
+    	final List<Thread> threads = new ArrayList<>();
+    	for ( int i = 0; i < workers; ++i )
+    	{
+    		final int worker = i;
+    		stats[i] = new LoadStatistics();
+    		final Thread t = new Thread( new Runnable() {
+    			@Override
+    			public void run()
+    			{
+    				for ( int k; (k = next.getAndIncrement()) < arrivals.length; )
+    				{
+    					final long intendedStartTime = startTime + arrivals[k];
+    					for ( long now; (now = System.nanoTime()) < intendedStartTime; )
+    						LockSupport.parkNanos(intendedStartTime - now);
+
+    					final LoadStatistics s = ( intendedStartTime >= measureStartTime ) ? stats[worker] : null;
+    					final long now = System.nanoTime();
+    					if ( now >= giveUpTime ) {
+    						if ( s != null )
+    							s.recordTimeout( now - intendedStartTime );
+    						continue;
+    					}
+
+    					final int q = drawn[k];
+    					executeQuery( queries[q], mix.getQueryIDs().get(q), config, s, intendedStartTime );
+    				}
+    			}
+    		}, "load-worker-" + (i+1) );
+    		threads.add(t);
+    		t.start();
+    	}
+
+    	final LoadStatistics result = new LoadStatistics();
+    	for ( int i = 0; i < workers; ++i )
+    	{
+    		try {
+    			threads.get(i).join();
+    		}
+    		catch ( InterruptedException e ) {
+    			Thread.currentThread().interrupt();
+    			break;
+    		}
+    		result.add( stats[i] );
+    	}
+
+    	// the arrivals of the measured period are counted, also if they are
+    	// executed or given up after its end
+    	result.setPeriodInNanos( durationInMillis * 1000000L );
+    	return result;
+    }
+
+    /**
+     * Returns the arrival times (in nanoseconds from the start) of the
+     * queries in a period of the given length at the given rate, either
+     * with constant gaps or with exponentially distributed gaps (that is,
+     * a Poisson process).
+     */
+    static public long[] createArrivals( double rate, long periodInNanos, boolean poisson, Random random )
+    {
+    	final double meanGap = 1e9d / rate;
+    	final long expected = (long) Math.ceil( periodInNanos / meanGap );
+    	if ( expected > Integer.MAX_VALUE / 2 )
+    		throw new IllegalArgumentException("Too many arrivals (" + expected + ")");
+
+    	long[] arrivals = new long[ (int) Math.max(16L, poisson ? expected + expected / 2 + 16L : expected) ];
+    	int n = 0;
+    	double t = 0d;
+    	while ( true )
+    	{
+    		if ( poisson )
+    			t += -Math.log( 1d - random.nextDouble() ) * meanGap;
+    		else if ( n > 0 )
+    			t = n * meanGap;
+
+    		if ( t >= periodInNanos )
+    			break;
+
+    		if ( n == arrivals.length )
+    			arrivals = Arrays.copyOf(arrivals, 2*n);
+    		arrivals[n++] = (long) t;
+    	}
+    	return Arrays.copyOf(arrivals, n);
+    }
+
+    /**
+     * Executes the given query and records the outcome in the given
+     * statistics (unless these are null), where the latency is measured
+     * from the given start time and the timeout starts now. An execution
+     * that exceeds the work budget is counted as a timeout. Timeouts are
+     * recorded with their latency until the execution was cut off.
+     */
+    protected void executeQuery( CompiledQuery q,
+                                 String queryID,
+                                 ExperimentConfiguration config,
+                                 LoadStatistics stats,
+                                 long startTime )
+    {
+    	if ( q == null ) {
+    		if ( stats != null )
+    			stats.recordError();
+    		return;
+    	}
+
+    	final ExperimentGraph instrumentedGraph = createInstrumentedGraph();
+    	final QueryAbortHandle abortHandle = new QueryAbortHandle();
+    	final ScheduledFuture<?> timer = timeoutScheduler.schedule( new Runnable() {
+    		@Override
+    		public void run() { abortHandle.abort(); }
+    	}, timeouts.getTimeoutInMillis(queryID, config), TimeUnit.MILLISECONDS );
+
+    	Plan plan = null;
+    	QueryIterator it = null;
+    	try
+    	{
+    		plan = createPlan( q, createDataset(instrumentedGraph), config );
+    		it = plan.iterator();
+    		abortHandle.register(it);
+
+    		final ResultSet rs = ResultSetFactory.create( it, q.query.getResultVars() );
+    		long solutions = 0L;
+    		while ( rs.hasNext() ) {
+    			rs.next();
+    			solutions++;
+    		}
+
+    		final long endTime = System.nanoTime();
+    		if ( stats != null )
+    			stats.recordCompleted( endTime - startTime, solutions, instrumentedGraph.getReadAccessCounter(), instrumentedGraph.getTriplesCounter() );
+    	}
+    	catch ( QueryCancelledException e )
+    	{
+    		if ( stats != null ) {
+    			if ( abortHandle.isAborted() )
+    				stats.recordTimeout( System.nanoTime() - startTime );
+    			else
+    				stats.recordError();
+    		}
+    	}
+    	catch ( RuntimeException e )
+    	{
+    		// an exceeded work budget cuts the execution off like a timeout
+    		if ( stats != null ) {
+    			if ( BudgetExceededException.find(e) != null )
+    				stats.recordTimeout( System.nanoTime() - startTime );
+    			else
+    				stats.recordError();
+    		}
+    	}
+    	finally
+    	{
+    		timer.cancel(false);
+    		if ( it != null )
+    			it.close();
+    		if ( plan != null )
+    			plan.close();
+    	}
+    }
+
+    static public String getCSVHeader()
+    {
+    	final StringBuilder sb = new StringBuilder("# configuration, mode, clients, target rate, seconds, completed, queries per second, timeouts, errors");
+    	for ( double p : PERCENTILES )
+    		sb.append(", ").append( (p == 100d) ? "max" : "p" + formatPercentile(p) ).append(" ms");
+    	sb.append(", solutions per query, accesses per query, triples per query");
+    	return sb.toString();
+    }
+
+    static protected String formatPercentile( double p )
+    {
+    	return ( p == Math.rint(p) ) ? Long.toString( (long) p ) : Double.toString(p);
+    }
+
+    /**
+     * Returns the CSV line for the given statistics of the given
+     * configuration, mode, number of clients, and target arrival rate
+     * (0 for the closed-loop mode).
+     */
+    static public String toCSV( ExperimentConfiguration config, String mode, int clients, double rate, LoadStatistics stats )
+    {
+    	final long completed = stats.getCompleted();
+    	final double seconds = stats.getPeriodInNanos() / 1e9d;
+    	final StringBuilder sb = new StringBuilder();
+    	sb.append( config.getName() )
+    	  .append(", ").append(mode)
+    	  .append(", ").append(clients)
+    	  .append(", ").append(rate)
+    	  .append(", ").append(seconds)
+    	  .append(", ").append(completed)
+    	  .append(", ").append( (seconds > 0d) ? completed / seconds : 0d )
+    	  .append(", ").append( stats.getTimeouts() )
+    	  .append(", ").append( stats.getErrors() );
+    	for ( double p : PERCENTILES )
+    		sb.append(", ").append( stats.getLatencyInMillis(p) );
+    	sb.append(", ").append( (completed == 0L) ? 0d : stats.getSolutions() / (double) completed )
+    	  .append(", ").append( (completed == 0L) ? 0d : stats.getAccesses() / (double) completed )
+    	  .append(", ").append( (completed == 0L) ? 0d : stats.getTriples() / (double) completed );
+    	return sb.toString();
+    }
+
+}
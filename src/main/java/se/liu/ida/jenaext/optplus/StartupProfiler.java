@@ -0,0 +1,100 @@
+package se.liu.ida.jenaext.optplus;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.rdfhdt.hdt.listener.ProgressListener;
+
+/**
+ * Times the phases of the startup of an experiment (loading the HDT
+ * file, generating or loading its index, loading the queries, etc.)
+ * and logs them. Phases may run concurrently in different threads.
+ *
+ * For the phases that are carried out by hdt-java, a progress listener
+ * can be obtained that logs every step reported by hdt-java (e.g., the
+ * mapping of the header, the dictionary, and the triples) with the time
+ * since the start of the phase.
+ */
+public class StartupProfiler
+{
+	final protected PrintStream out;
+	final protected long startTime = System.nanoTime();
+	final protected List<String> finishedPhases = new ArrayList<>();
+
+	/**
+	 * Creates a profiler that logs to the given stream, or does not log
+	 * anything if the stream is null.
+	 */
+	public StartupProfiler( PrintStream out )
+	{
+		this.out = out;
+	}
+
+	public Phase begin( String name )
+	{
+		return new Phase(name);
+	}
+
+	/**
+	 * Logs the time since this profiler was created, followed by the
+	 * times of all phases finished until now.
+	 */
+	public synchronized void printSummary()
+	{
+		log( "Startup took " + toMillis(System.nanoTime() - startTime) + " ms" );
+		for ( String phase : finishedPhases )
+			log( "  " + phase );
+	}
+
+	protected synchronized void log( String message )
+	{
+		if ( out != null )
+			out.println(message);
+	}
+
+	static protected long toMillis( long nanos ) { return nanos / 1000000L; }
+
+	public class Phase implements ProgressListener
+	{
+		final protected String name;
+		final protected long phaseStartTime = System.nanoTime();
+		protected String lastMessage = null;
+
+		protected Phase( String name )
+		{
+			this.name = name;
+			log( "Startup phase '" + name + "' started" );
+		}
+
+		/**
+		 * Logs the given step of this phase unless it is the same as the
+		 * previously reported one (hdt-java reports the progress of a step
+		 * repeatedly).
+		 */
+		@Override
+		public void notifyProgress( float level, String message )
+		{
+			if ( message == null || message.equals(lastMessage) )
+				return;
+
+			lastMessage = message;
+			log( "  " + name + ": " + message + " (after " + toMillis(System.nanoTime() - phaseStartTime) + " ms)" );
+		}
+
+		/**
+		 * Ends this phase and returns its duration in nanoseconds.
+		 */
+		public long end()
+		{
+			final long duration = System.nanoTime() - phaseStartTime;
+			final String phase = name + ": " + toMillis(duration) + " ms";
+			synchronized ( StartupProfiler.this ) {
+				finishedPhases.add(phase);
+			}
+			log( "Startup phase " + phase );
+			return duration;
+		}
+	}
+
+}
@@ -0,0 +1,106 @@
+package se.liu.ida.jenaext.optplus;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Captures the timeouts of the query executions. Next to a default
+ * timeout, there may be specific timeouts per query, per configuration,
+ * and per (query, configuration) pair. The most specific one applies.
+ *
+ * Specific timeouts can be read from a CSV file in which every line
+ * has the form <code>queryID, configuration, seconds</code>, where
+ * the configuration is given by its name (see
+ * {@link ExperimentConfiguration#getName()}) and where '*' can be
+ * used for the query ID or for the configuration to mean any query
+ * or any configuration, respectively; a line for '*' and '*' replaces
+ * the default timeout. Every timeout has to be positive. Empty lines and
+ * lines starting with '#' are ignored.
+ */
+public class TimeoutSettings
+{
+	static final public String WILDCARD = "*";
+
+	final protected long defaultTimeoutInMillis;
+	final protected Map<String,Long> timeouts = new HashMap<>();
+
+	public TimeoutSettings( long defaultTimeoutInMillis )
+	{
+		this.defaultTimeoutInMillis = defaultTimeoutInMillis;
+	}
+
+	public long getDefaultTimeoutInMillis() { return defaultTimeoutInMillis; }
+
+	/**
+	 * Sets a specific timeout; both the query ID and the configuration
+	 * name may be {@link #WILDCARD}.
+	 */
+	public void setTimeoutInMillis( String queryID, String configName, long timeoutInMillis )
+	{
+		timeouts.put( createKey(queryID, configName), timeoutInMillis );
+	}
+
+	public long getTimeoutInMillis( String queryID, ExperimentConfiguration config )
+	{
+		Long t = timeouts.get( createKey(queryID, config.getName()) );
+		if ( t == null )
+			t = timeouts.get( createKey(queryID, WILDCARD) );
+		if ( t == null )
+			t = timeouts.get( createKey(WILDCARD, config.getName()) );
+		if ( t == null )
+			t = timeouts.get( createKey(WILDCARD, WILDCARD) );
+
+		return ( t == null ) ? defaultTimeoutInMillis : t.longValue();
+	}
+
+	/**
+	 * Adds the timeouts from the given file to this object.
+	 *
+	 * @throws IllegalArgumentException if a line of the file is malformed
+	 */
+	public void read( File file ) throws IOException
+	{
+		final BufferedReader br = new BufferedReader( new FileReader(file) );
+		try {
+			int lineNumber = 0;
+			for ( String line; (line = br.readLine()) != null; )
+			{
+				lineNumber++;
+				line = line.trim();
+				if ( line.isEmpty() || line.startsWith("#") )
+					continue;
+
+				final String[] splittedLine = line.split(",");
+				if ( splittedLine.length != 3 )
+					throw new IllegalArgumentException("Line " + lineNumber + " of " + file.getName() + " does not have three fields");
+
+				final double seconds;
+				try {
+					seconds = Double.parseDouble( splittedLine[2].trim() );
+				}
+				catch ( NumberFormatException e ) {
+					throw new IllegalArgumentException("Line " + lineNumber + " of " + file.getName() + " has an invalid timeout (" + e.getMessage() + ")");
+				}
+
+				final long millis = Math.round(seconds*1000d);
+				if ( ! (millis > 0L) )
+					throw new IllegalArgumentException("Line " + lineNumber + " of " + file.getName() + " has a timeout that is not positive");
+
+				setTimeoutInMillis( splittedLine[0].trim(), splittedLine[1].trim(), millis );
+			}
+		}
+		finally {
+			br.close();
+		}
+	}
+
+	static protected String createKey( String queryID, String configName )
+	{
+		return queryID + "\t" + configName;
+	}
+
+}
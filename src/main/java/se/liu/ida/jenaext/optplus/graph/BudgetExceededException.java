@@ -0,0 +1,60 @@
+package se.liu.ida.jenaext.optplus.graph;
+
+/**
+ * Signals that a query execution has been cancelled because it exceeded
+ * its {@link WorkBudget}. Carries the counters of the execution at the
+ * point at which the budget was exceeded.
+ */
+public class BudgetExceededException extends RuntimeException
+{
+	private static final long serialVersionUID = 1L;
+
+	final protected String resource;
+	final protected long limit;
+	final protected long accesses;
+	final protected long triples;
+	final protected long allocatedBytes;
+
+	public BudgetExceededException( String resource, long limit, long accesses, long triples, long allocatedBytes )
+	{
+		super("query execution exceeded the budget of " + limit + " " + resource);
+		this.resource       = resource;
+		this.limit          = limit;
+		this.accesses       = accesses;
+		this.triples        = triples;
+		this.allocatedBytes = allocatedBytes;
+	}
+
+	/**
+	 * Returns the resource whose budget has been exceeded ("accesses",
+	 * "triples", or "allocated bytes").
+	 */
+	public String getResource() { return resource; }
+
+	public long getLimit() { return limit; }
+
+	public long getAccesses() { return accesses; }
+
+	public long getTriples() { return triples; }
+
+	/**
+	 * Returns the bytes allocated by the execution when the allocations
+	 * were last checked, or -1 if they are not tracked.
+	 */
+	public long getAllocatedBytes() { return allocatedBytes; }
+
+	/**
+	 * Returns the given exception if it is a BudgetExceededException,
+	 * or the first such exception among its causes, or null if there
+	 * is none.
+	 */
+	static public BudgetExceededException find( Throwable t )
+	{
+		for ( Throwable c = t; c != null; c = c.getCause() ) {
+			if ( c instanceof BudgetExceededException )
+				return (BudgetExceededException) c;
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,74 @@
+package se.liu.ida.jenaext.optplus.graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.sparql.graph.GraphWrapper;
+import org.apache.jena.util.iterator.ExtendedIterator;
+import org.apache.jena.util.iterator.WrappedIterator;
+
+/**
+ * Answers find calls from a {@link FindCache} where possible, and
+ * caches the results of the other find calls unless they are too
+ * large. Counts the cache hits, the cache misses, and the evictions
+ * caused by the results added to the cache.
+ */
+public class CachingGraph extends GraphWrapper
+{
+	final protected FindCache cache;
+
+	protected long hitsCounter      = 0L;
+	protected long missesCounter    = 0L;
+	protected long evictionsCounter = 0L;
+
+	public CachingGraph( Graph wrappedGraph, FindCache cache )
+	{
+		super(wrappedGraph);
+		this.cache = cache;
+	}
+
+	public long getHitsCounter() { return hitsCounter; }
+
+	public long getMissesCounter() { return missesCounter; }
+
+	public long getEvictionsCounter() { return evictionsCounter; }
+
+    @Override
+    public ExtendedIterator<Triple> find( Triple triple )
+    {
+    	return find( triple.getSubject(), triple.getPredicate(), triple.getObject() );
+    }
+
+    @Override
+    public ExtendedIterator<Triple> find( Node s, Node p, Node o )
+    {
+    	final Triple pattern = Triple.createMatch(s, p, o);
+    	final List<Triple> cachedResult = cache.get(pattern);
+    	if ( cachedResult != null ) {
+    		hitsCounter++;
+    		return WrappedIterator.create( cachedResult.iterator() );
+    	}
+
+    	missesCounter++;
+
+    	final ExtendedIterator<Triple> it = super.find(s, p, o);
+    	final List<Triple> result = new ArrayList<>();
+    	while ( result.size() <= cache.getMaxResultSize() && it.hasNext() )
+    		result.add( it.next() );
+
+    	if ( result.size() > cache.getMaxResultSize() ) {
+    		// too large to be cached; continue with the rest of the base iterator
+    		return WrappedIterator.create( result.iterator() ).andThen(it);
+    	}
+
+    	it.close();
+    	final List<Triple> unmodifiableResult = Collections.unmodifiableList(result);
+    	evictionsCounter += cache.put(pattern, unmodifiableResult);
+    	return WrappedIterator.create( unmodifiableResult.iterator() );
+    }
+
+}
@@ -7,57 +7,238 @@ import org.apache.jena.sparql.graph.GraphWrapper;
 import org.apache.jena.util.iterator.ExtendedIterator;
 import org.apache.jena.util.iterator.WrappedIterator;
 
+import se.liu.ida.jenaext.optplus.ResourceUsageProbe;
+import se.liu.ida.jenaext.optplus.jfr.FlightRecorderEvents;
+
 /**
- * 
+ * Counts the accesses to the wrapped graph and the triples retrieved.
+ * If a Flight Recorder recording with graph access events is running
+ * (see {@link FlightRecorderEvents}), every call on the graph and on the
+ * iterators returned by find additionally produces such an event.
+ *
+ * If a {@link WorkBudget} is set, every access and every retrieved triple
+ * is checked against it, and a {@link BudgetExceededException} is thrown
+ * as soon as the budget is exceeded, which cancels the query execution.
+ * The allocated bytes are those of the thread that accesses the graph,
+ * counted from the first access, and they are checked only every
+ * {@link #ALLOCATION_CHECK_INTERVAL} accesses and triples.
+ *
  * @author <a href="http://olafhartig.de">Olaf Hartig</a>
  */
 public class ExperimentGraph extends GraphWrapper
 {
+	/**
+	 * Names of the shapes of triple patterns, where '?' marks a position
+	 * that is not bound, indexed by {@link #getPatternShape(Node, Node, Node)}.
+	 */
+	static final public String[] PATTERN_SHAPES = { "SPO", "SP?", "S?O", "S??", "?PO", "?P?", "??O", "???" };
+
+	static final public int ALLOCATION_CHECK_INTERVAL = 1024;
+
+	static final protected FlightRecorderEvents EVENTS = FlightRecorderEvents.INSTANCE;
+
 	protected long readAccessCounter = 0L;
 	protected long triplesCounter    = 0L;
+	protected long earlyClosedIteratorsCounter = 0L;
+
+	final protected long[] findsByPattern    = new long[ PATTERN_SHAPES.length ];
+	final protected long[] containsByPattern = new long[ PATTERN_SHAPES.length ];
+
+	protected WorkBudget budget = null;
+	protected long allocatedBytesAtStart = -1L;
+	protected long allocatedBytes = -1L;
+	protected int allocationCheckCountdown = 0;
 
-	public ExperimentGraph( Graph wrappedGraph ) { super(wrappedGraph); } 
+	public ExperimentGraph( Graph wrappedGraph ) { super(wrappedGraph); }
 
-	public long getReadAccessCounter() { return readAccessCounter; } 
+	public long getReadAccessCounter() { return readAccessCounter; }
 
 	public long getTriplesCounter() { return triplesCounter; }
 
-	public void resetReadAccessCounter() { readAccessCounter = 0L; triplesCounter = 0L; }
+	/**
+	 * Returns the number of iterators returned by find that have been
+	 * closed before they were exhausted.
+	 */
+	public long getEarlyClosedIteratorsCounter() { return earlyClosedIteratorsCounter; }
+
+	/**
+	 * Returns the number of find calls per pattern shape (see {@link #PATTERN_SHAPES}).
+	 */
+	public long[] getFindsByPattern() { return findsByPattern.clone(); }
+
+	/**
+	 * Returns the number of contains calls per pattern shape (see {@link #PATTERN_SHAPES}).
+	 */
+	public long[] getContainsByPattern() { return containsByPattern.clone(); }
+
+	/**
+	 * Sets the budget for the accesses to this graph, or no budget if
+	 * the given one is null.
+	 */
+	public void setBudget( WorkBudget budget ) { this.budget = budget; }
+
+	public WorkBudget getBudget() { return budget; }
+
+	public void resetReadAccessCounter()
+	{
+		readAccessCounter = 0L;
+		triplesCounter = 0L;
+		earlyClosedIteratorsCounter = 0L;
+		allocatedBytesAtStart = -1L;
+		allocatedBytes = -1L;
+		allocationCheckCountdown = 0;
+		for ( int i = 0; i < PATTERN_SHAPES.length; ++i ) {
+			findsByPattern[i] = 0L;
+			containsByPattern[i] = 0L;
+		}
+	}
+
+	/**
+	 * Returns the index of the shape of the given triple pattern in
+	 * {@link #PATTERN_SHAPES}.
+	 */
+	static public int getPatternShape( Node s, Node p, Node o )
+	{
+		return ( isBound(s) ? 0 : 4 ) + ( isBound(p) ? 0 : 2 ) + ( isBound(o) ? 0 : 1 );
+	}
+
+	static protected boolean isBound( Node n )
+	{
+		return n != null && n.isConcrete();
+	}
+
+	/**
+	 * Throws a {@link BudgetExceededException} if the counters exceed
+	 * the budget (if any).
+	 */
+	protected void checkBudget()
+	{
+		if ( budget == null )
+			return;
+
+		if ( budget.limitsAllocatedBytes() && --allocationCheckCountdown <= 0 )
+		{
+			allocationCheckCountdown = ALLOCATION_CHECK_INTERVAL;
+			final long allocated = ResourceUsageProbe.getAllocatedBytesOfCurrentThread();
+			if ( allocated >= 0L ) {
+				if ( allocatedBytesAtStart < 0L )
+					allocatedBytesAtStart = allocated;
+				allocatedBytes = allocated - allocatedBytesAtStart;
+			}
+		}
+
+		if ( readAccessCounter > budget.getMaxAccesses() )
+			throw new BudgetExceededException( "accesses", budget.getMaxAccesses(), readAccessCounter, triplesCounter, allocatedBytes );
+		if ( triplesCounter > budget.getMaxTriples() )
+			throw new BudgetExceededException( "triples", budget.getMaxTriples(), readAccessCounter, triplesCounter, allocatedBytes );
+		if ( allocatedBytes > budget.getMaxAllocatedBytes() )
+			throw new BudgetExceededException( "allocated bytes", budget.getMaxAllocatedBytes(), readAccessCounter, triplesCounter, allocatedBytes );
+	}
 
     @Override
     public ExtendedIterator<Triple> find( Triple triple )
     {
     	readAccessCounter++;
-    	return new MyIterator( super.find(triple) );
+    	checkBudget();
+    	final int shape = getPatternShape( triple.getSubject(), triple.getPredicate(), triple.getObject() );
+    	findsByPattern[shape]++;
+    	final FlightRecorderEvents.GraphAccess event = EVENTS.beginGraphAccess();
+    	final ExtendedIterator<Triple> it = super.find(triple);
+    	if ( event != null )
+    		event.finish( "find", PATTERN_SHAPES[shape], 0L );
+    	return new MyIterator(it, shape);
     }
 
     @Override
     public ExtendedIterator<Triple> find( Node s, Node p, Node o )
     {
     	readAccessCounter++;
-    	return new MyIterator( super.find(s,p,o) );
+    	checkBudget();
+    	final int shape = getPatternShape(s, p, o);
+    	findsByPattern[shape]++;
+    	final FlightRecorderEvents.GraphAccess event = EVENTS.beginGraphAccess();
+    	final ExtendedIterator<Triple> it = super.find(s,p,o);
+    	if ( event != null )
+    		event.finish( "find", PATTERN_SHAPES[shape], 0L );
+    	return new MyIterator(it, shape);
     }
 
     @Override
     public boolean contains( Node s, Node p, Node o )
     {
     	readAccessCounter++;
-    	return super.contains(s, p, o);
+    	checkBudget();
+    	final int shape = getPatternShape(s, p, o);
+    	containsByPattern[shape]++;
+    	final FlightRecorderEvents.GraphAccess event = EVENTS.beginGraphAccess();
+    	final boolean result = super.contains(s, p, o);
+    	if ( event != null )
+    		event.finish( "contains", PATTERN_SHAPES[shape], result ? 1L : 0L );
+    	return result;
     }
 
     @Override
     public boolean contains( Triple t )
     {
     	readAccessCounter++;
-    	return super.contains(t);
+    	checkBudget();
+    	final int shape = getPatternShape( t.getSubject(), t.getPredicate(), t.getObject() );
+    	containsByPattern[shape]++;
+    	final FlightRecorderEvents.GraphAccess event = EVENTS.beginGraphAccess();
+    	final boolean result = super.contains(t);
+    	if ( event != null )
+    		event.finish( "contains", PATTERN_SHAPES[shape], result ? 1L : 0L );
+    	return result;
     }
 
     protected class MyIterator extends WrappedIterator<Triple>
     {
-    	public MyIterator( ExtendedIterator<Triple> base ) { super(base, true); }
+    	protected boolean exhausted = false;
+
+    	/** the pattern shape of the find call, for the events */
+    	final protected int shape;
+
+    	public MyIterator( ExtendedIterator<Triple> base, int shape )
+    	{
+    		super(base, true);
+    		this.shape = shape;
+    	}
+
+    	@Override
+    	public boolean hasNext()
+    	{
+    		final FlightRecorderEvents.GraphAccess event = EVENTS.beginGraphAccess();
+    		final boolean hasNext = base.hasNext();
+    		if ( event != null )
+    			event.finish( "hasNext", PATTERN_SHAPES[shape], hasNext ? 1L : 0L );
+
+    		if ( ! hasNext )
+    			exhausted = true;
+    		return hasNext;
+    	}
+
+    	@Override
+    	public Triple next()
+    	{
+    		triplesCounter++;
+    		checkBudget();
+
+    		final FlightRecorderEvents.GraphAccess event = EVENTS.beginGraphAccess();
+    		final Triple t = base.next();
+    		if ( event != null )
+    			event.finish( "next", PATTERN_SHAPES[shape], 1L );
+    		return t;
+    	}
 
     	@Override
-    	public Triple next() { triplesCounter++; return base.next(); }
+    	public void close()
+    	{
+    		if ( ! exhausted ) {
+    			exhausted = true; // count every iterator at most once
+    			earlyClosedIteratorsCounter++;
+    		}
+    		super.close();
+    	}
     }
 
 }
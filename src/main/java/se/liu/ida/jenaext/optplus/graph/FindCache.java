@@ -0,0 +1,92 @@
+package se.liu.ida.jenaext.optplus.graph;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.jena.graph.Triple;
+
+/**
+ * A bounded cache for the results of find calls, keyed by the triple
+ * pattern. The bound is the total number of triples in the cached
+ * results, where an empty result counts as one triple (such that the
+ * number of entries is bounded as well, also if most finds have no
+ * result, as is typical for the probes of OPTIONAL patterns); when it
+ * is exceeded, the least recently used results are evicted. Results
+ * with more than a given number of triples are not cached at all.
+ *
+ * The cache is thread-safe such that it can be shared by the graphs of
+ * concurrent query executions.
+ */
+public class FindCache
+{
+	final protected int maxCachedTriples;
+	final protected int maxResultSize;
+
+	final protected LinkedHashMap<Triple,List<Triple>> entries = new LinkedHashMap<>(16, 0.75f, true);
+	protected long cachedTriples = 0L;
+
+	/**
+	 * @param maxCachedTriples maximum number of triples in all cached results together
+	 * @param maxResultSize    maximum number of triples in a result that is cached
+	 */
+	public FindCache( int maxCachedTriples, int maxResultSize )
+	{
+		this.maxCachedTriples = maxCachedTriples;
+		this.maxResultSize    = maxResultSize;
+	}
+
+	public int getMaxResultSize() { return maxResultSize; }
+
+	/**
+	 * Returns the cached result for the given triple pattern, or null
+	 * if there is none.
+	 */
+	synchronized public List<Triple> get( Triple pattern )
+	{
+		return entries.get(pattern);
+	}
+
+	/**
+	 * Caches the given result for the given triple pattern and returns
+	 * the number of results that have been evicted to make room for it.
+	 */
+	synchronized public int put( Triple pattern, List<Triple> result )
+	{
+		if ( result.size() > maxResultSize || result.size() > maxCachedTriples )
+			return 0;
+
+		final List<Triple> old = entries.put(pattern, result);
+		if ( old != null )
+			cachedTriples -= getWeight(old);
+		cachedTriples += getWeight(result);
+
+		int evictions = 0;
+		final Iterator<Map.Entry<Triple,List<Triple>>> it = entries.entrySet().iterator();
+		while ( cachedTriples > maxCachedTriples && it.hasNext() )
+		{
+			final Map.Entry<Triple,List<Triple>> eldest = it.next();
+			if ( eldest.getKey().equals(pattern) )
+				continue;
+
+			cachedTriples -= getWeight( eldest.getValue() );
+			it.remove();
+			evictions++;
+		}
+
+		return evictions;
+	}
+
+	synchronized public int size() { return entries.size(); }
+
+	/**
+	 * Returns the number of triples that the given result counts for
+	 * in the bound of the cache.
+	 */
+	static protected int getWeight( List<Triple> result )
+	{
+		return Math.max( 1, result.size() );
+	}
+
+}
@@ -0,0 +1,54 @@
+package se.liu.ida.jenaext.optplus.graph;
+
+import se.liu.ida.jenaext.optplus.ResourceUsageProbe;
+
+/**
+ * Limits of the work that a single query execution may do over an
+ * {@link ExperimentGraph}: the number of read accesses, the number of
+ * triples retrieved, and the number of bytes allocated by the executing
+ * thread. Long.MAX_VALUE stands for no limit. Other than a timeout, these
+ * limits do not depend on the speed of the machine. The allocated bytes
+ * are measured using
+ * {@link ResourceUsageProbe#getAllocatedBytesOfCurrentThread()}.
+ */
+public class WorkBudget
+{
+	static final public long UNLIMITED = Long.MAX_VALUE;
+
+	final protected long maxAccesses;
+	final protected long maxTriples;
+	final protected long maxAllocatedBytes;
+
+	public WorkBudget( long maxAccesses, long maxTriples, long maxAllocatedBytes )
+	{
+		this.maxAccesses       = maxAccesses;
+		this.maxTriples        = maxTriples;
+		this.maxAllocatedBytes = maxAllocatedBytes;
+	}
+
+	public long getMaxAccesses() { return maxAccesses; }
+
+	public long getMaxTriples() { return maxTriples; }
+
+	public long getMaxAllocatedBytes() { return maxAllocatedBytes; }
+
+	/**
+	 * Returns true if the allocated bytes are limited, which requires
+	 * that the JVM supports measuring them.
+	 */
+	public boolean limitsAllocatedBytes() { return maxAllocatedBytes != UNLIMITED; }
+
+	@Override
+	public String toString()
+	{
+		return "accesses " + toString(maxAccesses)
+		       + ", triples " + toString(maxTriples)
+		       + ", allocated bytes " + toString(maxAllocatedBytes);
+	}
+
+	static protected String toString( long limit )
+	{
+		return ( limit == UNLIMITED ) ? "unlimited" : Long.toString(limit);
+	}
+
+}
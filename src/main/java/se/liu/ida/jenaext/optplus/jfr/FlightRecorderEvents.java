@@ -0,0 +1,87 @@
+package se.liu.ida.jenaext.optplus.jfr;
+
+/**
+ * Creates the Flight Recorder events of the experiments without
+ * referring to the Flight Recorder API, such that the classes that
+ * produce events can be loaded (and compiled) without JFR. The event
+ * classes are loaded only if the JVM provides the Flight Recorder API
+ * (OpenJDK 8u262 or later, or Java 11 or later); otherwise, no events
+ * are created.
+ */
+public abstract class FlightRecorderEvents
+{
+	static final public FlightRecorderEvents INSTANCE = create();
+
+	/**
+	 * Returns true if the JVM provides the Flight Recorder API.
+	 */
+	public abstract boolean isAvailable();
+
+	/**
+	 * Returns a started event for a graph access, or null if no such
+	 * events are recorded; this is checked before an event is created,
+	 * such that graph accesses do not allocate events if no recording
+	 * is running.
+	 */
+	public abstract GraphAccess beginGraphAccess();
+
+	/**
+	 * Returns a started event for a query execution.
+	 */
+	public abstract QueryExecution beginQueryExecution();
+
+	/** A started {@link GraphAccessEvent}. */
+	public interface GraphAccess
+	{
+		/**
+		 * Ends the event and commits it with the given values (if it
+		 * lasted at least the threshold of the recording).
+		 */
+		void finish( String operation, String patternShape, long results );
+	}
+
+	/** A started {@link QueryExecutionEvent}. */
+	public interface QueryExecution
+	{
+		/**
+		 * Ends the event and commits it with the given values (if such
+		 * events are recorded).
+		 */
+		void finish( String queryID,
+		             String configuration,
+		             boolean measured,
+		             boolean completed,
+		             long solutions,
+		             long accesses,
+		             long triples );
+	}
+
+	static protected FlightRecorderEvents create()
+	{
+		try {
+			Class.forName("jdk.jfr.Event");
+			return (FlightRecorderEvents) Class.forName( FlightRecorderEvents.class.getPackage().getName() + ".JFREvents" ).getDeclaredConstructor().newInstance();
+		}
+		catch ( ReflectiveOperationException | LinkageError e ) {
+			return new Unavailable();
+		}
+	}
+
+	static protected class Unavailable extends FlightRecorderEvents
+	{
+		static final protected QueryExecution NO_EXECUTION = new QueryExecution() {
+			@Override
+			public void finish( String queryID, String configuration, boolean measured, boolean completed, long solutions, long accesses, long triples ) {}
+		};
+
+		@Override
+		public boolean isAvailable() { return false; }
+
+		@Override
+		public GraphAccess beginGraphAccess() { return null; }
+
+		@Override
+		public QueryExecution beginQueryExecution() { return NO_EXECUTION; }
+	}
+
+}
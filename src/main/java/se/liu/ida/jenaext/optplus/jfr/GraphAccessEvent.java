@@ -0,0 +1,63 @@
+package se.liu.ida.jenaext.optplus.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * A Flight Recorder event for one call on an
+ * {@link se.liu.ida.jenaext.optplus.graph.ExperimentGraph}: a find or
+ * contains call, or a hasNext or next call on an iterator returned by
+ * find. The event lasts only for the call itself, such that the time
+ * that the consumer of the iterator spends between the calls is not
+ * included. By default, only calls that last at least
+ * {@link #DEFAULT_THRESHOLD} are recorded; the threshold can be changed
+ * in the recording settings. The stack trace of the event shows which
+ * iterator made the call.
+ */
+@Name(GraphAccessEvent.NAME)
+@Label("Graph Access")
+@Description("find or contains call on the instrumented graph")
+@Category({"OptPlus", "Graph"})
+@Threshold(GraphAccessEvent.DEFAULT_THRESHOLD)
+public class GraphAccessEvent extends jdk.jfr.Event implements FlightRecorderEvents.GraphAccess
+{
+	static final public String NAME = "se.liu.ida.jenaext.optplus.GraphAccess";
+	static final public String DEFAULT_THRESHOLD = "1 ms";
+
+	static final protected EventType TYPE = EventType.getEventType(GraphAccessEvent.class);
+
+	@Label("Operation")
+	public String operation;
+
+	@Label("Pattern Shape")
+	@Description("SPO, SP?, ..., where '?' marks a position that is not bound")
+	public String patternShape;
+
+	@Label("Results")
+	@Description("1 if contains or hasNext returned true or next returned a triple, 0 otherwise (and for find)")
+	public long results;
+
+	/**
+	 * Returns true if events of this type are currently recorded; this
+	 * is checked before an event is created, such that graph accesses
+	 * do not allocate events if no recording is running.
+	 */
+	static public boolean isRecorded() { return TYPE.isEnabled(); }
+
+	@Override
+	public void finish( String operation, String patternShape, long results )
+	{
+		end();
+		if ( shouldCommit() ) {
+			this.operation = operation;
+			this.patternShape = patternShape;
+			this.results = results;
+			commit();
+		}
+	}
+
+}
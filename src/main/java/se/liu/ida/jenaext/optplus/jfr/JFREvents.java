@@ -0,0 +1,32 @@
+package se.liu.ida.jenaext.optplus.jfr;
+
+/**
+ * Creates the Flight Recorder events; loaded by
+ * {@link FlightRecorderEvents} only if the JVM provides the Flight
+ * Recorder API.
+ */
+public class JFREvents extends FlightRecorderEvents
+{
+	@Override
+	public boolean isAvailable() { return true; }
+
+	@Override
+	public GraphAccess beginGraphAccess()
+	{
+		if ( ! GraphAccessEvent.isRecorded() )
+			return null;
+
+		final GraphAccessEvent event = new GraphAccessEvent();
+		event.begin();
+		return event;
+	}
+
+	@Override
+	public QueryExecution beginQueryExecution()
+	{
+		final QueryExecutionEvent event = new QueryExecutionEvent();
+		event.begin();
+		return event;
+	}
+
+}
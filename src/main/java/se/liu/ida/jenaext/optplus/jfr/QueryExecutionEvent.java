@@ -0,0 +1,68 @@
+package se.liu.ida.jenaext.optplus.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for one execution of a query, from creating
+ * the plan until the last solution (or until the execution was aborted).
+ */
+@Name(QueryExecutionEvent.NAME)
+@Label("Query Execution")
+@Description("Execution of a query of the experiment with one configuration")
+@Category({"OptPlus", "Experiment"})
+@StackTrace(false)
+public class QueryExecutionEvent extends jdk.jfr.Event implements FlightRecorderEvents.QueryExecution
+{
+	static final public String NAME = "se.liu.ida.jenaext.optplus.QueryExecution";
+
+	@Label("Query ID")
+	public String queryID;
+
+	@Label("Configuration")
+	public String configuration;
+
+	@Label("Measured")
+	@Description("False for warm-up runs")
+	public boolean measured;
+
+	@Label("Completed")
+	@Description("False if the execution was aborted or failed")
+	public boolean completed;
+
+	@Label("Solutions")
+	public long solutions;
+
+	@Label("Read Accesses")
+	public long accesses;
+
+	@Label("Triples")
+	public long triples;
+
+	@Override
+	public void finish( String queryID,
+	                    String configuration,
+	                    boolean measured,
+	                    boolean completed,
+	                    long solutions,
+	                    long accesses,
+	                    long triples )
+	{
+		end();
+		if ( shouldCommit() )
+		{
+			this.queryID = queryID;
+			this.configuration = configuration;
+			this.measured = measured;
+			this.completed = completed;
+			this.solutions = solutions;
+			this.accesses = accesses;
+			this.triples = triples;
+			commit();
+		}
+	}
+
+}
@@ -0,0 +1,89 @@
+package se.liu.ida.jenaext.optplus.load;
+
+import se.liu.ida.jenaext.optplus.trace.LogHistogram;
+
+/**
+ * The counts and the latency histogram of the query executions of a
+ * load test. Every client thread records into its own statistics
+ * object, without any synchronization, and the statistics of the
+ * clients are combined using {@link #add(LoadStatistics)} when the
+ * clients are done.
+ */
+public class LoadStatistics
+{
+	/**
+	 * latencies (in nanoseconds) of the completed executions and of the
+	 * timeouts recorded with their latency
+	 */
+	final public LogHistogram latencies = new LogHistogram();
+
+	protected long completed = 0L;
+	protected long timeouts  = 0L;
+	protected long errors    = 0L;
+	protected long solutions = 0L;
+	protected long accesses  = 0L;
+	protected long triples   = 0L;
+
+	/** length of the measured period */
+	protected long periodInNanos = 0L;
+
+	public void recordCompleted( long latency, long solutions, long accesses, long triples )
+	{
+		latencies.record(latency);
+		completed++;
+		this.solutions += solutions;
+		this.accesses  += accesses;
+		this.triples   += triples;
+	}
+
+	public void recordTimeout() { timeouts++; }
+
+	/**
+	 * Records a query that timed out (or was given up) after the given
+	 * latency, which is included in the latency percentiles, such that
+	 * these do not leave out the slowest queries.
+	 */
+	public void recordTimeout( long latency )
+	{
+		latencies.record(latency);
+		timeouts++;
+	}
+
+	public void recordError() { errors++; }
+
+	public void add( LoadStatistics other )
+	{
+		latencies.add(other.latencies);
+		completed += other.completed;
+		timeouts  += other.timeouts;
+		errors    += other.errors;
+		solutions += other.solutions;
+		accesses  += other.accesses;
+		triples   += other.triples;
+	}
+
+	public void setPeriodInNanos( long periodInNanos ) { this.periodInNanos = periodInNanos; }
+
+	public long getPeriodInNanos() { return periodInNanos; }
+
+	public long getCompleted() { return completed; }
+
+	public long getTimeouts() { return timeouts; }
+
+	public long getErrors() { return errors; }
+
+	public long getSolutions() { return solutions; }
+
+	public long getAccesses() { return accesses; }
+
+	public long getTriples() { return triples; }
+
+	/**
+	 * Returns the given percentile of the latencies in milliseconds.
+	 */
+	public double getLatencyInMillis( double percentile )
+	{
+		return latencies.getValueAtPercentile(percentile) / 1000000d;
+	}
+
+}
@@ -0,0 +1,128 @@
+package se.liu.ida.jenaext.optplus.load;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The queries of a load test and how they are drawn: either round-robin
+ * or randomly, with weights from the second column of the query ID file
+ * (queries without a weight have weight 1, and queries with weight 0
+ * are never drawn).
+ *
+ * A mix is not modified after it has been created and, thus, can be
+ * used by many client threads; every client brings its own random
+ * number generator and sequence numbers.
+ */
+public class QueryMix
+{
+	final protected List<String> queryIDs;
+	/** cumulative weights, or null for round-robin */
+	final protected double[] cumulativeWeights;
+
+	/**
+	 * Creates a mix of the given queries with the given weights, or a
+	 * round-robin mix if the weights are null.
+	 */
+	public QueryMix( List<String> queryIDs, double[] weights )
+	{
+		if ( queryIDs.isEmpty() )
+			throw new IllegalArgumentException("No queries given");
+
+		this.queryIDs = new ArrayList<>(queryIDs);
+
+		if ( weights == null ) {
+			cumulativeWeights = null;
+			return;
+		}
+
+		if ( weights.length != queryIDs.size() )
+			throw new IllegalArgumentException("The number of weights differs from the number of queries");
+
+		cumulativeWeights = new double[ weights.length ];
+		double sum = 0d;
+		for ( int i = 0; i < weights.length; ++i ) {
+			if ( weights[i] < 0d || Double.isNaN(weights[i]) )
+				throw new IllegalArgumentException("Illegal weight " + weights[i] + " for query " + queryIDs.get(i));
+			sum += weights[i];
+			cumulativeWeights[i] = sum;
+		}
+
+		if ( sum <= 0d )
+			throw new IllegalArgumentException("The weights of the queries sum up to 0");
+	}
+
+	/**
+	 * Reads the given query ID file, where the query ID is the first
+	 * column and the (optional) weight the second column. The weights
+	 * are used only if the mix is to be weighted.
+	 */
+	static public QueryMix read( File queryIDFile, boolean weighted ) throws IOException
+	{
+		final List<String> queryIDs = new ArrayList<>();
+		final List<Double> weights = new ArrayList<>();
+
+		try ( BufferedReader br = new BufferedReader(new FileReader(queryIDFile)) )
+		{
+			for ( String line; (line = br.readLine()) != null; )
+			{
+				final String[] fields = line.split(",");
+				if ( fields[0].trim().isEmpty() )
+					continue;
+
+				queryIDs.add( fields[0].trim() );
+
+				double weight = 1d;
+				if ( fields.length > 1 ) {
+					try {
+						weight = Double.parseDouble( fields[1].trim() );
+					}
+					catch ( NumberFormatException e ) {
+						// not a weight
+					}
+				}
+				weights.add(weight);
+			}
+		}
+
+		if ( ! weighted )
+			return new QueryMix(queryIDs, null);
+
+		final double[] w = new double[ weights.size() ];
+		for ( int i = 0; i < w.length; ++i )
+			w[i] = weights.get(i);
+		return new QueryMix(queryIDs, w);
+	}
+
+	public List<String> getQueryIDs() { return queryIDs; }
+
+	public int size() { return queryIDs.size(); }
+
+	public boolean isWeighted() { return cumulativeWeights != null; }
+
+	/**
+	 * Returns the index of the query to be executed next, where the given
+	 * sequence number is used for round-robin and the given random number
+	 * generator for a weighted mix.
+	 */
+	public int next( long sequenceNumber, Random random )
+	{
+		if ( cumulativeWeights == null )
+			return (int) ( sequenceNumber % queryIDs.size() );
+
+		final double r = random.nextDouble() * cumulativeWeights[ cumulativeWeights.length - 1 ];
+		int i = Arrays.binarySearch(cumulativeWeights, r);
+		i = ( i < 0 ) ? -i - 1 : i + 1;
+
+		// skip queries with weight 0, which have the same cumulative weight
+		while ( i < cumulativeWeights.length - 1 && cumulativeWeights[i] <= r )
+			i++;
+		return Math.min( i, cumulativeWeights.length - 1 );
+	}
+
+}
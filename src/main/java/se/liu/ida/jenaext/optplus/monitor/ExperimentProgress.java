@@ -0,0 +1,222 @@
+package se.liu.ida.jenaext.optplus.monitor;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import se.liu.ida.jenaext.optplus.CSVTokenizer;
+import se.liu.ida.jenaext.optplus.RankingSummary;
+import se.liu.ida.jenaext.optplus.graph.ExperimentGraph;
+import se.liu.ida.jenaext.optplus.trace.SolutionTraceRecorder;
+
+/**
+ * The live progress of a run of the experiment, which is exposed as an
+ * MBean (see {@link #OBJECT_NAME}) and, optionally, via a
+ * {@link MetricsHttpServer}.
+ *
+ * The counters of the running executions are read from their
+ * {@link ExperimentGraph} and {@link SolutionTraceRecorder} without
+ * synchronization, such that monitoring does not add any work to the
+ * measured executions; hence, these values may lag behind slightly.
+ */
+public class ExperimentProgress implements ExperimentProgressMBean
+{
+	static final public String OBJECT_NAME = "se.liu.ida.jenaext.optplus:type=ExperimentProgress";
+
+	/**
+	 * A measured query execution that is currently running.
+	 */
+	static public class Execution
+	{
+		final public String configuration;
+		final public String queryID;
+		final protected ExperimentGraph graph;
+		final protected SolutionTraceRecorder trace;
+		final protected long startTime = System.nanoTime();
+
+		protected Execution( String configuration, String queryID, ExperimentGraph graph, SolutionTraceRecorder trace )
+		{
+			this.configuration = configuration;
+			this.queryID = queryID;
+			this.graph = graph;
+			this.trace = trace;
+		}
+
+		public long getSolutions() { return trace.getSolutionCount(); }
+
+		public long getAccesses() { return graph.getReadAccessCounter(); }
+
+		public long getTriples() { return graph.getTriplesCounter(); }
+
+		public double getSeconds() { return ( System.nanoTime() - startTime ) / 1e9d; }
+
+		@Override
+		public String toString()
+		{
+			return configuration + " / " + queryID + ": " + getSolutions() + ", " + getAccesses() + ", " + getTriples() + ", " + getSeconds();
+		}
+	}
+
+	final protected long startTime = System.nanoTime();
+	protected volatile long plannedQueries = 0L;
+
+	final protected AtomicLong completedQueries = new AtomicLong();
+	final protected AtomicLong failedQueries    = new AtomicLong();
+	final protected AtomicLong timedOutQueries  = new AtomicLong();
+
+	/** solutions and nanoseconds of all finished measured executions */
+	final protected AtomicLong finishedSolutions = new AtomicLong();
+	final protected AtomicLong finishedNanos     = new AtomicLong();
+
+	final protected Set<String> currentQueries = ConcurrentHashMap.newKeySet();
+	final protected Set<Execution> currentExecutions = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Registers this object with the platform MBean server.
+	 */
+	public void register() throws JMException
+	{
+		final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		final ObjectName name = new ObjectName(OBJECT_NAME);
+		if ( server.isRegistered(name) )
+			server.unregisterMBean(name);
+		server.registerMBean(this, name);
+	}
+
+	public void setPlannedQueries( long plannedQueries ) { this.plannedQueries = plannedQueries; }
+
+	public void queryStarted( String configuration, String queryID )
+	{
+		currentQueries.add( configuration + " / " + queryID );
+	}
+
+	/**
+	 * Records that the given (configuration, query) pair is done, with
+	 * the given line of the measurements file, from which it is taken
+	 * whether the query timed out or failed.
+	 */
+	public void queryFinished( String configuration, String queryID, String csvLine )
+	{
+		currentQueries.remove( configuration + " / " + queryID );
+
+		final CSVTokenizer t = new CSVTokenizer();
+		t.reset(csvLine);
+		if ( RankingSummary.isCutOff(t) )
+			timedOutQueries.incrementAndGet();
+		else if ( t.getFieldCount() > 1 && t.getTrimmed(1).startsWith("ERROR") )
+			failedQueries.incrementAndGet();
+		else
+			completedQueries.incrementAndGet();
+	}
+
+	public Execution executionStarted( String configuration, String queryID, ExperimentGraph graph, SolutionTraceRecorder trace )
+	{
+		final Execution e = new Execution(configuration, queryID, graph, trace);
+		currentExecutions.add(e);
+		return e;
+	}
+
+	public void executionFinished( Execution e )
+	{
+		currentExecutions.remove(e);
+		finishedSolutions.addAndGet( e.getSolutions() );
+		finishedNanos.addAndGet( System.nanoTime() - e.startTime );
+	}
+
+	/**
+	 * Returns a snapshot of the measured query executions that are
+	 * currently running.
+	 */
+	public List<Execution> getExecutions() { return new ArrayList<>(currentExecutions); }
+
+	@Override
+	public long getPlannedQueries() { return plannedQueries; }
+
+	@Override
+	public long getCompletedQueries() { return completedQueries.get(); }
+
+	@Override
+	public long getFailedQueries() { return failedQueries.get(); }
+
+	@Override
+	public long getTimedOutQueries() { return timedOutQueries.get(); }
+
+	@Override
+	public String[] getCurrentQueries() { return currentQueries.toArray( new String[0] ); }
+
+	@Override
+	public String[] getCurrentExecutions()
+	{
+		final List<String> l = new ArrayList<>();
+		for ( Execution e : currentExecutions )
+			l.add( e.toString() );
+		return l.toArray( new String[0] );
+	}
+
+	@Override
+	public long getCurrentAccesses()
+	{
+		long sum = 0L;
+		for ( Execution e : currentExecutions )
+			sum += e.getAccesses();
+		return sum;
+	}
+
+	@Override
+	public long getCurrentTriples()
+	{
+		long sum = 0L;
+		for ( Execution e : currentExecutions )
+			sum += e.getTriples();
+		return sum;
+	}
+
+	@Override
+	public long getCurrentSolutions()
+	{
+		long sum = 0L;
+		for ( Execution e : currentExecutions )
+			sum += e.getSolutions();
+		return sum;
+	}
+
+	@Override
+	public double getCurrentSolutionsPerSecond()
+	{
+		double sum = 0d;
+		for ( Execution e : currentExecutions ) {
+			final double seconds = e.getSeconds();
+			if ( seconds > 0d )
+				sum += e.getSolutions() / seconds;
+		}
+		return sum;
+	}
+
+	@Override
+	public double getSolutionsPerSecond()
+	{
+		final long nanos = finishedNanos.get();
+		return ( nanos == 0L ) ? 0d : finishedSolutions.get() / (nanos / 1e9d);
+	}
+
+	@Override
+	public double getElapsedSeconds() { return ( System.nanoTime() - startTime ) / 1e9d; }
+
+	@Override
+	public double getEstimatedRemainingSeconds()
+	{
+		final long done = getCompletedQueries() + getFailedQueries() + getTimedOutQueries();
+		if ( done == 0L )
+			return Double.NaN;
+
+		return getElapsedSeconds() / done * Math.max( 0L, plannedQueries - done );
+	}
+
+}
@@ -0,0 +1,52 @@
+package se.liu.ida.jenaext.optplus.monitor;
+
+/**
+ * The management interface of {@link ExperimentProgress}.
+ */
+public interface ExperimentProgressMBean
+{
+	/** Returns the number of (configuration, query) pairs of the experiment. */
+	long getPlannedQueries();
+
+	long getCompletedQueries();
+
+	long getFailedQueries();
+
+	long getTimedOutQueries();
+
+	/**
+	 * Returns the (configuration, query) pairs that are currently being
+	 * run (including warm-up runs), as "configuration / query ID".
+	 */
+	String[] getCurrentQueries();
+
+	/**
+	 * Returns the measured query executions that are currently running,
+	 * as "configuration / query ID: solutions, accesses, triples, seconds".
+	 */
+	String[] getCurrentExecutions();
+
+	/** Returns the read accesses of the currently running executions so far. */
+	long getCurrentAccesses();
+
+	/** Returns the triples retrieved by the currently running executions so far. */
+	long getCurrentTriples();
+
+	/** Returns the solutions of the currently running executions so far. */
+	long getCurrentSolutions();
+
+	/** Returns the solutions per second of the currently running executions. */
+	double getCurrentSolutionsPerSecond();
+
+	/** Returns the solutions per second over all finished measured executions. */
+	double getSolutionsPerSecond();
+
+	double getElapsedSeconds();
+
+	/**
+	 * Returns the estimated time until all pairs are done, based on the
+	 * average time per pair so far (NaN if no pair is done yet).
+	 */
+	double getEstimatedRemainingSeconds();
+
+}
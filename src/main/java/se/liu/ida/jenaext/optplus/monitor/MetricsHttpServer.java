@@ -0,0 +1,113 @@
+package se.liu.ida.jenaext.optplus.monitor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Serves the {@link ExperimentProgress} of a run of the experiment in
+ * the Prometheus text format at <code>http://localhost:port/metrics</code>.
+ * The server listens on the loopback interface only.
+ */
+public class MetricsHttpServer implements HttpHandler
+{
+	static final public String PATH = "/metrics";
+	static final protected String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+	final protected ExperimentProgress progress;
+	final protected HttpServer server;
+
+	public MetricsHttpServer( ExperimentProgress progress, int port ) throws IOException
+	{
+		this.progress = progress;
+
+		server = HttpServer.create( new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0 );
+		server.createContext(PATH, this);
+	}
+
+	public void start() { server.start(); }
+
+	public void stop() { server.stop(0); }
+
+	/** Returns the port on which the server listens (useful for port 0). */
+	public int getPort() { return server.getAddress().getPort(); }
+
+	@Override
+	public void handle( HttpExchange exchange ) throws IOException
+	{
+		final byte[] body = format(progress).getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+		exchange.sendResponseHeaders(200, body.length);
+		try ( OutputStream out = exchange.getResponseBody() ) {
+			out.write(body);
+		}
+	}
+
+	/**
+	 * Returns the given progress in the Prometheus text format.
+	 */
+	static public String format( ExperimentProgress p )
+	{
+		final StringBuilder sb = new StringBuilder();
+		gauge( sb, "optplus_queries_planned", "(configuration, query) pairs of the experiment", p.getPlannedQueries() );
+
+		sb.append("# HELP optplus_queries_done_total (configuration, query) pairs done, by outcome\n");
+		sb.append("# TYPE optplus_queries_done_total counter\n");
+		sb.append("optplus_queries_done_total{outcome=\"completed\"} ").append( p.getCompletedQueries() ).append('\n');
+		sb.append("optplus_queries_done_total{outcome=\"failed\"} ").append( p.getFailedQueries() ).append('\n');
+		sb.append("optplus_queries_done_total{outcome=\"timeout\"} ").append( p.getTimedOutQueries() ).append('\n');
+
+		gauge( sb, "optplus_elapsed_seconds", "time since the start of the experiment", p.getElapsedSeconds() );
+		gauge( sb, "optplus_estimated_remaining_seconds", "estimated time until the experiment is done", p.getEstimatedRemainingSeconds() );
+		gauge( sb, "optplus_solutions_per_second", "solutions per second over all finished measured executions", p.getSolutionsPerSecond() );
+		gauge( sb, "optplus_current_solutions_per_second", "solutions per second of the running executions", p.getCurrentSolutionsPerSecond() );
+
+		sb.append("# HELP optplus_execution_solutions solutions of a running execution so far\n");
+		sb.append("# TYPE optplus_execution_solutions gauge\n");
+		sb.append("# HELP optplus_execution_accesses read accesses of a running execution so far\n");
+		sb.append("# TYPE optplus_execution_accesses gauge\n");
+		sb.append("# HELP optplus_execution_triples triples retrieved by a running execution so far\n");
+		sb.append("# TYPE optplus_execution_triples gauge\n");
+		sb.append("# HELP optplus_execution_seconds running time of a running execution\n");
+		sb.append("# TYPE optplus_execution_seconds gauge\n");
+		for ( ExperimentProgress.Execution e : p.getExecutions() )
+		{
+			final String labels = "{configuration=\"" + escape(e.configuration) + "\",query=\"" + escape(e.queryID) + "\"} ";
+			sb.append("optplus_execution_solutions").append(labels).append( e.getSolutions() ).append('\n');
+			sb.append("optplus_execution_accesses").append(labels).append( e.getAccesses() ).append('\n');
+			sb.append("optplus_execution_triples").append(labels).append( e.getTriples() ).append('\n');
+			sb.append("optplus_execution_seconds").append(labels).append( format(e.getSeconds()) ).append('\n');
+		}
+
+		return sb.toString();
+	}
+
+	static protected void gauge( StringBuilder sb, String name, String help, double value )
+	{
+		sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+		sb.append("# TYPE ").append(name).append(" gauge\n");
+		sb.append(name).append(' ').append( format(value) ).append('\n');
+	}
+
+	static protected String format( double value )
+	{
+		if ( Double.isNaN(value) )
+			return "NaN";
+		if ( value == Math.rint(value) && Math.abs(value) < 1e15 )
+			return Long.toString( (long) value );
+		return String.format(Locale.ROOT, "%.3f", value);
+	}
+
+	static protected String escape( String labelValue )
+	{
+		return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+	}
+
+}
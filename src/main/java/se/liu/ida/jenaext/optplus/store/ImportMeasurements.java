@@ -0,0 +1,213 @@
+package se.liu.ida.jenaext.optplus.store;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import jena.cmd.ArgDecl;
+import jena.cmd.CmdGeneral;
+
+import org.apache.jena.atlas.lib.Lib;
+
+import se.liu.ida.jenaext.optplus.MeasurementColumns;
+
+/**
+ * Imports measurements files (as written by
+ * {@link se.liu.ida.jenaext.optplus.RunExperiment}) into a columnar
+ * measurement store, as one run of the experiment. The configuration
+ * of every file is taken from the file name (without the prefix
+ * "measurements-" and the suffix ".csv").
+ *
+ * Usage: <code>ImportMeasurements [--store=dir] [--run=name] [--csv=file] files...</code>,
+ * where the store directory is {@link #DEFAULT_STORE_DIR} by default,
+ * and the run name is the current date and time by default. With
+ * <code>--csv</code>, the files are additionally appended to the given
+ * CSV file, each one preceded by a line with its file name (which is
+ * what mergeCSVs.sh did before).
+ */
+public class ImportMeasurements extends CmdGeneral
+{
+	static final public String DEFAULT_STORE_DIR = "measurements.store";
+
+	static final protected String FILE_PREFIX = "measurements-";
+	static final protected String FILE_SUFFIX = ".csv";
+
+	final protected ArgDecl argStore = new ArgDecl(ArgDecl.HasValue, "store");
+	final protected ArgDecl argRun   = new ArgDecl(ArgDecl.HasValue, "run");
+	final protected ArgDecl argCSV   = new ArgDecl(ArgDecl.HasValue, "csv");
+
+	protected File storeDir = new File(DEFAULT_STORE_DIR);
+	protected String run = new SimpleDateFormat("yyyyMMdd-HHmmss").format( new Date() );
+	protected File csvFile = null;
+	final protected List<File> files = new ArrayList<>();
+
+	static public void main( String... argv )
+	{
+		new ImportMeasurements(argv).mainRun();
+	}
+
+	public ImportMeasurements( String[] argv )
+	{
+		super(argv);
+
+		super.getUsage().startCategory("Import options");
+		super.add( argStore, "--store", "Directory of the measurement store (optional, default is " + DEFAULT_STORE_DIR + ")" );
+		super.add( argRun, "--run", "Name of the run as which the files are imported (optional, default is the current date and time)" );
+		super.add( argCSV, "--csv", "CSV file to which the files are appended as well, each one preceded by a line with its file name (optional)" );
+	}
+
+	@Override
+	protected String getCommandName()
+	{
+		return Lib.className(this);
+	}
+
+	@Override
+	protected String getSummary()
+	{
+		return getCommandName() + " [--store=dir] [--run=name] [--csv=file] measurements-*.csv";
+	}
+
+	@Override
+	protected void processModulesAndArgs()
+	{
+		super.processModulesAndArgs();
+
+		if ( hasArg(argStore) )
+			storeDir = new File( getValue(argStore) );
+		if ( hasArg(argRun) )
+			run = getValue(argRun);
+		if ( hasArg(argCSV) )
+			csvFile = new File( getValue(argCSV) );
+
+		if ( ! hasPositional() )
+			cmdError("No measurements files given.");
+
+		for ( String fileName : getPositional() )
+		{
+			final File f = new File(fileName);
+			if ( ! f.canRead() )
+				cmdError("The file " + f.getPath() + " cannot be read.");
+			files.add(f);
+		}
+	}
+
+	@Override
+	protected void exec()
+	{
+		try
+		{
+			final long rows = importFiles( storeDir, run, files );
+			System.out.println( "Imported " + rows + " rows of " + files.size() + " files as run '" + run + "' into " + storeDir.getPath() );
+
+			if ( csvFile != null )
+				appendToCSV( csvFile, files );
+		}
+		catch ( IOException | IllegalArgumentException e ) {
+			cmdError( e.getMessage() );
+		}
+	}
+
+	/**
+	 * Imports the given measurements files as the given run into the
+	 * store in the given directory, and returns the number of rows
+	 * imported.
+	 *
+	 * The columns of the files are taken from their sidecar files (see
+	 * {@link MeasurementColumns#readFor(File)}) and must be the same for
+	 * all files.
+	 *
+	 * If reading a file fails or a line cannot be parsed, none of the
+	 * rows are imported.
+	 *
+	 * @throws IllegalArgumentException if the store has the given run already,
+	 *                                  or if the files have different columns
+	 */
+	static public long importFiles( File storeDir, String run, List<File> files ) throws IOException
+	{
+		long rows = 0L;
+		final List<String> columns = MeasurementColumns.readFor( files.get(0) );
+		for ( File f : files ) {
+			if ( ! MeasurementColumns.readFor(f).equals(columns) )
+				throw new IllegalArgumentException("The file " + f.getPath() + " has different columns than " + files.get(0).getPath());
+		}
+
+		final MeasurementStoreWriter w = new MeasurementStoreWriter(storeDir, columns);
+		boolean closed = false;
+		try
+		{
+			if ( w.containsRun(run) )
+				throw new IllegalArgumentException("The store has a run '" + run + "' already.");
+
+			for ( File f : files )
+			{
+				final String configuration = getConfigurationName(f);
+				final BufferedReader br = new BufferedReader( new FileReader(f), 1 << 16 );
+				try {
+					for ( String line; (line = br.readLine()) != null; ) {
+						if ( line.trim().isEmpty() )
+							continue;
+						w.appendLine(run, configuration, line);
+						rows++;
+					}
+				}
+				finally {
+					br.close();
+				}
+			}
+
+			w.close();
+			closed = true;
+		}
+		finally
+		{
+			// a failed import leaves the store as it was
+			if ( ! closed )
+				w.abort();
+		}
+
+		return rows;
+	}
+
+	static public String getConfigurationName( File measurementsFile )
+	{
+		String name = measurementsFile.getName();
+		if ( name.startsWith(FILE_PREFIX) )
+			name = name.substring( FILE_PREFIX.length() );
+		if ( name.endsWith(FILE_SUFFIX) )
+			name = name.substring( 0, name.length() - FILE_SUFFIX.length() );
+		return name;
+	}
+
+	static protected void appendToCSV( File csvFile, List<File> files ) throws IOException
+	{
+		final PrintWriter w = new PrintWriter( new FileOutputStream(csvFile, true) );
+		try
+		{
+			for ( File f : files )
+			{
+				w.println( f.getName() );
+				final BufferedReader br = new BufferedReader( new FileReader(f) );
+				try {
+					for ( String line; (line = br.readLine()) != null; )
+						w.println(line);
+				}
+				finally {
+					br.close();
+				}
+			}
+		}
+		finally
+		{
+			w.close();
+		}
+	}
+
+}
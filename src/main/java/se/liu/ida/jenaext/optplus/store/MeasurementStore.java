@@ -0,0 +1,212 @@
+package se.liu.ida.jenaext.optplus.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * Read access to a columnar measurement store (see {@link StoreFormat}).
+ * The column files are memory-mapped when they are accessed for the
+ * first time; the store does not change while it is open, even if a
+ * {@link MeasurementStoreWriter} appends rows in the meantime.
+ *
+ * Rows are identified by their position (from 0 to {@link #size()}-1),
+ * and runs, configurations, and queries by their dictionary IDs. Sets
+ * of rows are represented as sorted arrays of row positions, which can
+ * be obtained using {@link #filter(IntPredicate)} or {@link #select(String, String)}
+ * and passed to {@link #scan(String, int[])} to get the values of a
+ * metric column for these rows.
+ *
+ * A column file can be mapped only if it is smaller than 2 GB (i.e.,
+ * for stores with less than 268 million rows).
+ */
+public class MeasurementStore
+{
+	final protected File storeDir;
+	final protected int size;
+
+	final protected List<String> columns;
+	final protected List<String> runs;
+	final protected List<String> configurations;
+	final protected List<String> queries;
+
+	final protected IntBuffer runColumn;
+	final protected IntBuffer configurationColumn;
+	final protected IntBuffer queryColumn;
+	final protected ByteBuffer statusColumn;
+
+	final protected Map<String,DoubleBuffer> metricColumns = new HashMap<>();
+	protected Map<Long,Integer> rowIndex = null;
+
+	public MeasurementStore( File storeDir ) throws IOException
+	{
+		this.storeDir = storeDir;
+
+		final File statusFile = new File(storeDir, StoreFormat.STATUS_COLUMN);
+		if ( ! statusFile.exists() )
+			throw new IOException("There is no measurement store in " + storeDir.getPath());
+
+		final long rows = statusFile.length();
+		if ( rows > Integer.MAX_VALUE / 8 )
+			throw new IOException("The measurement store in " + storeDir.getPath() + " is too large to be mapped");
+		size = (int) rows;
+
+		columns        = StoreFormat.readLines( new File(storeDir, StoreFormat.COLUMNS_FILE) );
+		runs           = StoreFormat.readLines( new File(storeDir, StoreFormat.RUNS_FILE) );
+		configurations = StoreFormat.readLines( new File(storeDir, StoreFormat.CONFIGURATIONS_FILE) );
+		queries        = StoreFormat.readLines( new File(storeDir, StoreFormat.QUERIES_FILE) );
+
+		runColumn           = map(StoreFormat.RUN_COLUMN, 4).asIntBuffer();
+		configurationColumn = map(StoreFormat.CONFIGURATION_COLUMN, 4).asIntBuffer();
+		queryColumn         = map(StoreFormat.QUERY_COLUMN, 4).asIntBuffer();
+		statusColumn        = map(StoreFormat.STATUS_COLUMN, 1);
+	}
+
+	/**
+	 * Returns the number of rows of this store.
+	 */
+	public int size() { return size; }
+
+	/**
+	 * Returns the names of the metric columns of this store.
+	 */
+	public List<String> getColumns() { return columns; }
+
+	public List<String> getRuns() { return runs; }
+
+	public List<String> getConfigurations() { return configurations; }
+
+	public List<String> getQueryIDs() { return queries; }
+
+	public int getRunId( int row ) { return runColumn.get(row); }
+
+	public int getConfigurationId( int row ) { return configurationColumn.get(row); }
+
+	public int getQueryId( int row ) { return queryColumn.get(row); }
+
+	public byte getStatus( int row ) { return statusColumn.get(row); }
+
+	public String getRun( int row ) { return runs.get( getRunId(row) ); }
+
+	public String getConfiguration( int row ) { return configurations.get( getConfigurationId(row) ); }
+
+	public String getQueryID( int row ) { return queries.get( getQueryId(row) ); }
+
+	/**
+	 * Returns the value of the given metric column in the given row
+	 * (NaN if the row does not have a value for the column).
+	 */
+	public double get( String column, int row ) throws IOException
+	{
+		return getMetricColumn(column).get(row);
+	}
+
+	/**
+	 * Returns the values of the given metric column in the given rows.
+	 */
+	public double[] scan( String column, int[] rows ) throws IOException
+	{
+		final DoubleBuffer c = getMetricColumn(column);
+		final double[] values = new double[rows.length];
+		for ( int i = 0; i < rows.length; ++i )
+			values[i] = c.get( rows[i] );
+		return values;
+	}
+
+	/**
+	 * Returns the rows that satisfy the given predicate, which is given
+	 * the position of every row.
+	 */
+	public int[] filter( IntPredicate p )
+	{
+		int[] rows = new int[64];
+		int n = 0;
+		for ( int row = 0; row < size; ++row )
+		{
+			if ( p.test(row) ) {
+				if ( n == rows.length )
+					rows = Arrays.copyOf(rows, 2*n);
+				rows[n++] = row;
+			}
+		}
+		return Arrays.copyOf(rows, n);
+	}
+
+	/**
+	 * Returns the rows of the given run and configuration, where null
+	 * stands for any run or any configuration, respectively.
+	 */
+	public int[] select( String run, String configuration )
+	{
+		final int runId    = ( run == null ) ? -1 : runs.indexOf(run);
+		final int configId = ( configuration == null ) ? -1 : configurations.indexOf(configuration);
+		if ( (run != null && runId < 0) || (configuration != null && configId < 0) )
+			return new int[0];
+
+		return filter( new IntPredicate() {
+			@Override
+			public boolean test( int row ) {
+				return ( runId < 0 || runColumn.get(row) == runId )
+				       && ( configId < 0 || configurationColumn.get(row) == configId );
+			}
+		});
+	}
+
+	/**
+	 * Returns the row for the given run, configuration, and query ID (all
+	 * given as dictionary IDs), or -1 if there is no such row. If there
+	 * are several such rows, the last one is returned.
+	 */
+	synchronized public int findRow( int runId, int configurationId, int queryId )
+	{
+		if ( rowIndex == null )
+		{
+			final Map<Long,Integer> index = new HashMap<>();
+			for ( int row = 0; row < size; ++row )
+				index.put( createKey(runColumn.get(row), configurationColumn.get(row), queryColumn.get(row)), row );
+			rowIndex = index;
+		}
+
+		final Integer row = rowIndex.get( createKey(runId, configurationId, queryId) );
+		return ( row == null ) ? -1 : row.intValue();
+	}
+
+	protected long createKey( int runId, int configurationId, int queryId )
+	{
+		return ( (long) runId * configurations.size() + configurationId ) * queries.size() + queryId;
+	}
+
+	synchronized protected DoubleBuffer getMetricColumn( String column ) throws IOException
+	{
+		DoubleBuffer c = metricColumns.get(column);
+		if ( c == null )
+		{
+			if ( ! columns.contains(column) )
+				throw new IllegalArgumentException("The store has no column '" + column + "'");
+
+			c = map(column + StoreFormat.METRIC_COLUMN_SUFFIX, 8).asDoubleBuffer();
+			metricColumns.put(column, c);
+		}
+		return c;
+	}
+
+	protected ByteBuffer map( String fileName, int width ) throws IOException
+	{
+		try ( RandomAccessFile raf = new RandomAccessFile(new File(storeDir, fileName), "r");
+		      FileChannel channel = raf.getChannel() )
+		{
+			return channel.map( FileChannel.MapMode.READ_ONLY, 0L, (long) size * width ).order(ByteOrder.LITTLE_ENDIAN);
+		}
+	}
+
+}
@@ -0,0 +1,344 @@
+package se.liu.ida.jenaext.optplus.store;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import se.liu.ida.jenaext.optplus.CSVTokenizer;
+import se.liu.ida.jenaext.optplus.RankingSummary;
+
+/**
+ * Appends the lines of measurements files to a columnar measurement
+ * store (see {@link StoreFormat}), creating the store if it does not
+ * exist yet.
+ *
+ * The writer is given the names of the columns of the measurements
+ * files (see {@link se.liu.ida.jenaext.optplus.MeasurementColumns});
+ * the first column is the query ID, and the columns with an empty name
+ * are skipped. A store can only be extended with lines of the same
+ * columns.
+ *
+ * The rows become visible to readers only when the writer is closed:
+ * the new names of the dictionaries are kept in memory until then, and
+ * so is the status column, whose length determines the number of rows.
+ * When the writer is closed, the dictionaries and the other columns are
+ * written and synced to the disk first, and the status column is
+ * written last. The values that a writer has written to the other
+ * columns beyond the number of rows (because it was killed or aborted)
+ * are removed by {@link #abort()} or by the next writer.
+ */
+public class MeasurementStoreWriter implements Closeable
+{
+	static final protected int ROWS_PER_BUFFER = 4096;
+
+	final protected File storeDir;
+	final protected List<String> csvColumns;
+	final protected int[] metricIndexes;
+
+	final protected Dictionary runs;
+	final protected Dictionary configurations;
+	final protected Dictionary queries;
+
+	final protected ColumnFile runColumn;
+	final protected ColumnFile configurationColumn;
+	final protected ColumnFile queryColumn;
+	final protected File statusFile;
+	final protected ByteArrayOutputStream statusColumn = new ByteArrayOutputStream();
+	final protected ColumnFile[] metricColumns;
+
+	final protected CSVTokenizer tokenizer = new CSVTokenizer();
+
+	public MeasurementStoreWriter( File storeDir, List<String> csvColumns ) throws IOException
+	{
+		this.storeDir = storeDir;
+		this.csvColumns = csvColumns;
+
+		if ( ! storeDir.isDirectory() && ! storeDir.mkdirs() )
+			throw new IOException("Creating the store directory " + storeDir.getPath() + " failed");
+
+		final List<String> metricNames = new ArrayList<>();
+		final List<Integer> indexes = new ArrayList<>();
+		for ( int i = 1; i < csvColumns.size(); ++i ) {
+			if ( ! csvColumns.get(i).isEmpty() ) {
+				metricNames.add( csvColumns.get(i) );
+				indexes.add(i);
+			}
+		}
+
+		metricIndexes = new int[ indexes.size() ];
+		for ( int i = 0; i < metricIndexes.length; ++i )
+			metricIndexes[i] = indexes.get(i);
+
+		final File columnsFile = new File(storeDir, StoreFormat.COLUMNS_FILE);
+		final List<String> existingColumns = StoreFormat.readLines(columnsFile);
+		if ( existingColumns.isEmpty() ) {
+			final PrintWriter w = new PrintWriter(columnsFile);
+			for ( String name : metricNames )
+				w.println(name);
+			w.close();
+		}
+		else if ( ! existingColumns.equals(metricNames) ) {
+			throw new IOException("The store in " + storeDir.getPath() + " has different columns");
+		}
+
+		runs           = new Dictionary( new File(storeDir, StoreFormat.RUNS_FILE) );
+		configurations = new Dictionary( new File(storeDir, StoreFormat.CONFIGURATIONS_FILE) );
+		queries        = new Dictionary( new File(storeDir, StoreFormat.QUERIES_FILE) );
+
+		statusFile = new File(storeDir, StoreFormat.STATUS_COLUMN);
+		final long rows = statusFile.length();
+		runColumn           = new ColumnFile( new File(storeDir, StoreFormat.RUN_COLUMN), 4, rows );
+		configurationColumn = new ColumnFile( new File(storeDir, StoreFormat.CONFIGURATION_COLUMN), 4, rows );
+		queryColumn         = new ColumnFile( new File(storeDir, StoreFormat.QUERY_COLUMN), 4, rows );
+
+		metricColumns = new ColumnFile[ metricNames.size() ];
+		for ( int i = 0; i < metricColumns.length; ++i )
+			metricColumns[i] = new ColumnFile( StoreFormat.getMetricColumnFile(storeDir, metricNames.get(i)), 8, rows );
+	}
+
+	/**
+	 * Returns true if the store has rows of a run with the given name
+	 * already.
+	 */
+	public boolean containsRun( String run ) throws IOException
+	{
+		if ( ! runs.contains(run) )
+			return false;
+
+		// the name may be left over from a writer that was killed while closing
+		final int id = runs.getId(run);
+		return runColumn.containsInt(id);
+	}
+
+	/**
+	 * Appends the given line of the measurements file of the given
+	 * configuration in the given run.
+	 *
+	 * @throws NumberFormatException if a line with the expected number of
+	 *                               columns has a value that is not a number
+	 */
+	public void appendLine( String run, String configuration, String line ) throws IOException
+	{
+		tokenizer.reset(line);
+
+		final byte status;
+		if ( tokenizer.getFieldCount() == csvColumns.size() )
+			status = StoreFormat.STATUS_OK;
+		else if ( tokenizer.getFieldCount() > 1 && tokenizer.trimmedEquals(1, RankingSummary.TIMEOUT) )
+			status = StoreFormat.STATUS_TIMEOUT;
+		else if ( tokenizer.getFieldCount() > 1 && tokenizer.trimmedEquals(1, RankingSummary.BUDGET_EXCEEDED) )
+			status = StoreFormat.STATUS_BUDGET_EXCEEDED;
+		else
+			status = StoreFormat.STATUS_ERROR;
+
+		for ( int i = 0; i < metricColumns.length; ++i ) {
+			final int index = metricIndexes[i];
+			if ( status != StoreFormat.STATUS_OK || tokenizer.isBlank(index) )
+				metricColumns[i].putDouble(Double.NaN);
+			else
+				metricColumns[i].putDouble( tokenizer.parseDouble(index) );
+		}
+
+		runColumn.putInt( runs.getId(run) );
+		configurationColumn.putInt( configurations.getId(configuration) );
+		queryColumn.putInt( queries.getId(tokenizer.getTrimmed(0)) );
+		statusColumn.write(status);
+	}
+
+	/**
+	 * Makes the appended rows visible: writes and syncs the new names of
+	 * the dictionaries and the columns, and then the status column.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		runs.commit();
+		configurations.commit();
+		queries.commit();
+
+		for ( ColumnFile c : metricColumns )
+			c.close();
+		runColumn.close();
+		configurationColumn.close();
+		queryColumn.close();
+
+		try ( FileOutputStream out = new FileOutputStream(statusFile, true) )
+		{
+			statusColumn.writeTo(out);
+			out.getFD().sync();
+		}
+	}
+
+	/**
+	 * Discards the appended rows, such that the store is left as it was
+	 * before this writer was created.
+	 */
+	public void abort() throws IOException
+	{
+		for ( ColumnFile c : metricColumns )
+			c.abort();
+		runColumn.abort();
+		configurationColumn.abort();
+		queryColumn.abort();
+	}
+
+
+	/**
+	 * A dictionary file to which new names are appended when the
+	 * dictionary is committed.
+	 */
+	static protected class Dictionary
+	{
+		final protected File file;
+		final protected Map<String,Integer> ids = new HashMap<>();
+		final protected List<String> newNames = new ArrayList<>();
+
+		public Dictionary( File file ) throws IOException
+		{
+			this.file = file;
+			for ( String name : StoreFormat.readLines(file) )
+				ids.put( name, ids.size() );
+		}
+
+		public boolean contains( String name ) { return ids.containsKey(name); }
+
+		public int getId( String name )
+		{
+			Integer id = ids.get(name);
+			if ( id == null ) {
+				id = ids.size();
+				ids.put(name, id);
+				newNames.add(name);
+			}
+			return id;
+		}
+
+		/**
+		 * Appends the new names to the dictionary file and syncs it.
+		 */
+		public void commit() throws IOException
+		{
+			if ( newNames.isEmpty() )
+				return;
+
+			try ( FileOutputStream out = new FileOutputStream(file, true) )
+			{
+				final PrintWriter w = new PrintWriter(out);
+				for ( String name : newNames )
+					w.println(name);
+				w.flush();
+				out.getFD().sync();
+			}
+			newNames.clear();
+		}
+	}
+
+	/**
+	 * A column file to which values of a fixed width are appended, after
+	 * the given number of rows that are in the file already.
+	 */
+	static protected class ColumnFile implements Closeable
+	{
+		final protected FileChannel channel;
+		final protected ByteBuffer buffer;
+		/** the length of the file with the rows that are visible */
+		final protected long committedLength;
+
+		@SuppressWarnings("resource")
+		public ColumnFile( File file, int width, long rows ) throws IOException
+		{
+			channel = new RandomAccessFile(file, "rw").getChannel();
+			committedLength = rows * width;
+			channel.truncate(committedLength);
+			channel.position(committedLength);
+			buffer = ByteBuffer.allocateDirect( width * ROWS_PER_BUFFER ).order(ByteOrder.LITTLE_ENDIAN);
+		}
+
+		/**
+		 * Returns true if the given value is one of the visible rows of
+		 * this column of 4-byte integers.
+		 */
+		public boolean containsInt( int value ) throws IOException
+		{
+			final ByteBuffer b = ByteBuffer.allocate( 4 * ROWS_PER_BUFFER ).order(ByteOrder.LITTLE_ENDIAN);
+			for ( long pos = 0L; pos < committedLength; )
+			{
+				b.clear();
+				b.limit( (int) Math.min(b.capacity(), committedLength - pos) );
+				final int n = channel.read(b, pos);
+				if ( n <= 0 )
+					break;
+				pos += n;
+
+				b.flip();
+				while ( b.remaining() >= 4 ) {
+					if ( b.getInt() == value )
+						return true;
+				}
+			}
+			return false;
+		}
+
+		public void putInt( int value ) throws IOException
+		{
+			ensureSpace(4);
+			buffer.putInt(value);
+		}
+
+		public void putByte( byte value ) throws IOException
+		{
+			ensureSpace(1);
+			buffer.put(value);
+		}
+
+		public void putDouble( double value ) throws IOException
+		{
+			ensureSpace(8);
+			buffer.putDouble(value);
+		}
+
+		protected void ensureSpace( int bytes ) throws IOException
+		{
+			if ( buffer.remaining() < bytes )
+				flush();
+		}
+
+		protected void flush() throws IOException
+		{
+			buffer.flip();
+			while ( buffer.hasRemaining() )
+				channel.write(buffer);
+			buffer.clear();
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			flush();
+			channel.force(false);
+			channel.close();
+		}
+
+		/**
+		 * Removes the values that have been appended and closes the file.
+		 */
+		public void abort() throws IOException
+		{
+			buffer.clear();
+			channel.truncate(committedLength);
+			channel.close();
+		}
+	}
+
+}
@@ -0,0 +1,350 @@
+package se.liu.ida.jenaext.optplus.store;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import se.liu.ida.jenaext.optplus.MeasurementColumns;
+
+/**
+ * Compares a candidate run of the experiment with one or more baseline
+ * runs in a measurement store, per configuration and query.
+ *
+ * For the overall time and the execution time, a change is significant
+ * if the 95% confidence interval of the candidate does not overlap with
+ * the range spanned by the confidence intervals of the baselines, and
+ * the median of the candidate differs from the median of the medians
+ * of the baselines by more than the time threshold (relative). With
+ * one measured run per query, the confidence intervals are points and,
+ * thus, only the threshold applies. The read accesses and the triples
+ * are deterministic; a change is significant if the value of the
+ * candidate is outside the range of the values of the baselines by more
+ * than the count threshold (relative, default 0). Moreover, changes of
+ * the status (ok, TIMEOUT, ERROR) and of the number of solutions with
+ * respect to the most recent baseline are reported.
+ *
+ * Usage: <code>RegressionDetector [--store=dir] [--candidate=run] [--baseline=run,...]
+ * [--timeThreshold=x] [--countThreshold=x] [--top=n] [--report=file]</code>,
+ * where the candidate is the last run of the store by default and the
+ * baseline is the run before the candidate by default. The (at most)
+ * <code>top</code> worst regressions are printed, and all changes are
+ * written as CSV to the report file if one is given. The exit status is
+ * 1 if there is a regression, and 0 otherwise.
+ */
+public class RegressionDetector
+{
+	static final public String STATUS    = "status";
+	static final public String SOLUTIONS = MeasurementColumns.SOLUTIONS;
+
+	static final protected String[] TIME_METRICS  = { MeasurementColumns.OVERALL_TIME, MeasurementColumns.EXEC_TIME };
+	static final protected String[] COUNT_METRICS = { MeasurementColumns.ACCESSES, MeasurementColumns.TRIPLES };
+
+	/**
+	 * A significant change of one metric for one configuration and query.
+	 */
+	static public class Change
+	{
+		final public String configuration;
+		final public String queryID;
+		final public String metric;
+		final public String baselineValue;
+		final public String candidateValue;
+		/** relative change of the value (NaN for the status) */
+		final public double relativeChange;
+		final public boolean regression;
+		/** used to rank the changes; higher is worse */
+		final public double severity;
+
+		public Change( String configuration, String queryID, String metric,
+		               String baselineValue, String candidateValue,
+		               double relativeChange, boolean regression, double severity )
+		{
+			this.configuration = configuration;
+			this.queryID = queryID;
+			this.metric = metric;
+			this.baselineValue = baselineValue;
+			this.candidateValue = candidateValue;
+			this.relativeChange = relativeChange;
+			this.regression = regression;
+			this.severity = severity;
+		}
+
+		@Override
+		public String toString()
+		{
+			return ( regression ? "REGRESSION" : "IMPROVEMENT" )
+			       + ", " + configuration
+			       + ", " + queryID
+			       + ", " + metric
+			       + ", " + baselineValue
+			       + ", " + candidateValue
+			       + ", " + ( Double.isNaN(relativeChange) ? "" : String.format("%+.1f%%", 100d*relativeChange) );
+		}
+	}
+
+	/** orders the changes by decreasing severity */
+	static final public Comparator<Change> BY_SEVERITY = new Comparator<Change>() {
+		@Override
+		public int compare( Change c1, Change c2 ) { return Double.compare(c2.severity, c1.severity); }
+	};
+
+	final protected MeasurementStore store;
+	protected double timeThreshold  = 0.1d;
+	protected double countThreshold = 0d;
+
+	public RegressionDetector( MeasurementStore store )
+	{
+		this.store = store;
+	}
+
+	public void setTimeThreshold( double timeThreshold ) { this.timeThreshold = timeThreshold; }
+
+	public void setCountThreshold( double countThreshold ) { this.countThreshold = countThreshold; }
+
+	/**
+	 * Compares the given candidate run with the given baseline runs (where
+	 * the last one is the most recent baseline) and returns the significant
+	 * changes, ordered by decreasing severity.
+	 */
+	public List<Change> compare( String candidate, List<String> baselines ) throws IOException
+	{
+		final int candidateId = getRunId(candidate);
+		final int[] baselineIds = new int[ baselines.size() ];
+		for ( int b = 0; b < baselineIds.length; ++b )
+			baselineIds[b] = getRunId( baselines.get(b) );
+
+		final List<Change> changes = new ArrayList<>();
+		final int[] baselineRows = new int[ baselineIds.length ];
+		for ( int row : store.select(candidate, null) )
+		{
+			int n = 0;
+			for ( int baselineId : baselineIds ) {
+				final int r = store.findRow( baselineId, store.getConfigurationId(row), store.getQueryId(row) );
+				if ( r >= 0 )
+					baselineRows[n++] = r;
+			}
+
+			if ( n > 0 && store.findRow(candidateId, store.getConfigurationId(row), store.getQueryId(row)) == row )
+				compareRow(row, baselineRows, n, changes);
+		}
+
+		Collections.sort(changes, BY_SEVERITY);
+		return changes;
+	}
+
+	protected void compareRow( int row, int[] baselineRows, int n, List<Change> changes ) throws IOException
+	{
+		final String config = store.getConfiguration(row);
+		final String queryID = store.getQueryID(row);
+
+		// status and number of solutions w.r.t. the most recent baseline
+		final int lastBaselineRow = baselineRows[n-1];
+		final byte baselineStatus  = store.getStatus(lastBaselineRow);
+		final byte candidateStatus = store.getStatus(row);
+		if ( baselineStatus != candidateStatus )
+		{
+			final boolean regression = ( candidateStatus != StoreFormat.STATUS_OK );
+			changes.add( new Change(config, queryID, STATUS,
+			                        StoreFormat.getStatusName(baselineStatus), StoreFormat.getStatusName(candidateStatus),
+			                        Double.NaN, regression, regression ? Double.MAX_VALUE : -Double.MAX_VALUE) );
+			return;
+		}
+
+		if ( candidateStatus != StoreFormat.STATUS_OK )
+			return;
+
+		final double baselineSolutions  = store.get(SOLUTIONS, lastBaselineRow);
+		final double candidateSolutions = store.get(SOLUTIONS, row);
+		if ( baselineSolutions != candidateSolutions )
+		{
+			// a different result is a regression, whatever the direction
+			changes.add( new Change(config, queryID, SOLUTIONS,
+			                        format(baselineSolutions), format(candidateSolutions),
+			                        relativeChange(baselineSolutions, candidateSolutions), true, Double.MAX_VALUE / 2d) );
+		}
+
+		for ( String metric : TIME_METRICS )
+		{
+			final double[] baselineMedians = new double[n];
+			double baselineCIHigh = Double.NEGATIVE_INFINITY;
+			double baselineCILow  = Double.POSITIVE_INFINITY;
+			for ( int b = 0; b < n; ++b ) {
+				baselineMedians[b] = store.get( metric + "Median", baselineRows[b] );
+				baselineCIHigh = Math.max( baselineCIHigh, store.get(metric + "CIHigh", baselineRows[b]) );
+				baselineCILow  = Math.min( baselineCILow,  store.get(metric + "CILow",  baselineRows[b]) );
+			}
+
+			final double baselineMedian  = median(baselineMedians);
+			final double candidateMedian = store.get( metric + "Median", row );
+			final double change = relativeChange(baselineMedian, candidateMedian);
+			if ( Double.isNaN(change) || Math.abs(change) <= timeThreshold )
+				continue;
+
+			if ( change > 0d && store.get(metric + "CILow", row) > baselineCIHigh )
+				changes.add( new Change(config, queryID, metric, format(baselineMedian), format(candidateMedian), change, true, change) );
+			else if ( change < 0d && store.get(metric + "CIHigh", row) < baselineCILow )
+				changes.add( new Change(config, queryID, metric, format(baselineMedian), format(candidateMedian), change, false, change) );
+		}
+
+		for ( String metric : COUNT_METRICS )
+		{
+			double baselineMin = Double.POSITIVE_INFINITY;
+			double baselineMax = Double.NEGATIVE_INFINITY;
+			for ( int b = 0; b < n; ++b ) {
+				final double v = store.get( metric, baselineRows[b] );
+				baselineMin = Math.min(baselineMin, v);
+				baselineMax = Math.max(baselineMax, v);
+			}
+
+			final double candidateValue = store.get(metric, row);
+			if ( candidateValue > baselineMax ) {
+				final double change = relativeChange(baselineMax, candidateValue);
+				if ( change > countThreshold )
+					changes.add( new Change(config, queryID, metric, format(baselineMax), format(candidateValue), change, true, change) );
+			}
+			else if ( candidateValue < baselineMin ) {
+				final double change = relativeChange(baselineMin, candidateValue);
+				if ( -change > countThreshold )
+					changes.add( new Change(config, queryID, metric, format(baselineMin), format(candidateValue), change, false, change) );
+			}
+		}
+	}
+
+	protected int getRunId( String run )
+	{
+		final int id = store.getRuns().indexOf(run);
+		if ( id < 0 )
+			throw new IllegalArgumentException("The store has no run '" + run + "'");
+		return id;
+	}
+
+	static protected double relativeChange( double baseline, double candidate )
+	{
+		if ( baseline == 0d )
+			return ( candidate == 0d ) ? 0d : Double.POSITIVE_INFINITY;
+		return ( candidate - baseline ) / baseline;
+	}
+
+	static protected double median( double[] values )
+	{
+		final double[] sorted = values.clone();
+		Arrays.sort(sorted);
+		final int n = sorted.length;
+		return ( n % 2 == 1 ) ? sorted[n/2] : ( sorted[n/2 - 1] + sorted[n/2] ) / 2d;
+	}
+
+	static protected String format( double value )
+	{
+		return ( value == Math.rint(value) && Math.abs(value) < 1e15 ) ? Long.toString( (long) value ) : Double.toString(value);
+	}
+
+	static final public int DEFAULT_TOP = 20;
+
+	static public void main( String... argv )
+	{
+		String storeDir = ImportMeasurements.DEFAULT_STORE_DIR;
+		String candidate = null;
+		List<String> baselines = null;
+		String reportFileName = null;
+		int top = DEFAULT_TOP;
+		double timeThreshold = -1d;
+		double countThreshold = -1d;
+
+		try
+		{
+			for ( String arg : argv )
+			{
+				if ( arg.startsWith("--store=") )
+					storeDir = arg.substring( "--store=".length() );
+				else if ( arg.startsWith("--candidate=") )
+					candidate = arg.substring( "--candidate=".length() );
+				else if ( arg.startsWith("--baseline=") )
+					baselines = Arrays.asList( arg.substring("--baseline=".length()).split(",") );
+				else if ( arg.startsWith("--timeThreshold=") )
+					timeThreshold = Double.parseDouble( arg.substring("--timeThreshold=".length()) );
+				else if ( arg.startsWith("--countThreshold=") )
+					countThreshold = Double.parseDouble( arg.substring("--countThreshold=".length()) );
+				else if ( arg.startsWith("--top=") )
+					top = Integer.parseInt( arg.substring("--top=".length()) );
+				else if ( arg.startsWith("--report=") )
+					reportFileName = arg.substring( "--report=".length() );
+				else
+					exitWithError("Unknown argument " + arg);
+			}
+		}
+		catch ( NumberFormatException e ) {
+			exitWithError("Illegal number: " + e.getMessage());
+		}
+
+		final List<Change> changes;
+		try
+		{
+			final MeasurementStore store = new MeasurementStore( new File(storeDir) );
+			final List<String> runs = store.getRuns();
+
+			if ( candidate == null ) {
+				if ( runs.isEmpty() )
+					exitWithError("The store has no runs.");
+				candidate = runs.get( runs.size() - 1 );
+			}
+
+			if ( baselines == null ) {
+				final int c = runs.indexOf(candidate);
+				if ( c < 1 )
+					exitWithError("There is no run before '" + candidate + "' that can be used as the baseline.");
+				baselines = Collections.singletonList( runs.get(c-1) );
+			}
+
+			final RegressionDetector detector = new RegressionDetector(store);
+			if ( timeThreshold >= 0d )
+				detector.setTimeThreshold(timeThreshold);
+			if ( countThreshold >= 0d )
+				detector.setCountThreshold(countThreshold);
+
+			changes = detector.compare(candidate, baselines);
+
+			if ( reportFileName != null )
+			{
+				try ( PrintWriter w = new PrintWriter( new FileOutputStream(reportFileName) ) ) {
+					w.println("# change, configuration, queryID, metric, baseline, candidate, relative change");
+					for ( Change c : changes )
+						w.println(c);
+				}
+			}
+		}
+		catch ( IOException | IllegalArgumentException e ) {
+			exitWithError( e.getMessage() );
+			return;
+		}
+
+		int regressions = 0;
+		for ( Change c : changes ) {
+			if ( c.regression )
+				regressions++;
+		}
+
+		System.out.println( "Run '" + candidate + "' compared with " + baselines + ": "
+		                    + regressions + " regressions, " + (changes.size() - regressions) + " improvements" );
+
+		int printed = 0;
+		for ( Change c : changes ) {
+			if ( c.regression && printed++ < top )
+				System.out.println(c);
+		}
+
+		System.exit( regressions > 0 ? 1 : 0 );
+	}
+
+	static protected void exitWithError( String errMsg )
+	{
+		System.err.println(errMsg);
+		System.exit(-1);
+	}
+
+}
@@ -0,0 +1,91 @@
+package se.liu.ida.jenaext.optplus.store;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The layout of a columnar measurement store, which is a directory with
+ * the following files. Every row of the store is one line of one of the
+ * imported measurements files.
+ *
+ * <ul>
+ * <li><code>columns.txt</code> lists the names of the metric columns,
+ *     one per line;</li>
+ * <li><code>runs.txt</code>, <code>configurations.txt</code>, and
+ *     <code>queries.txt</code> are the dictionaries of the names of the
+ *     runs, of the configurations, and of the query IDs, one per line,
+ *     such that the n-th line has the ID n (starting from 0);</li>
+ * <li><code>run.int</code>, <code>configuration.int</code>, and
+ *     <code>query.int</code> contain the dictionary IDs of every row as
+ *     32-bit integers;</li>
+ * <li><code>status.byte</code> contains the status of every row as one
+ *     byte ({@link #STATUS_OK}, {@link #STATUS_TIMEOUT},
+ *     {@link #STATUS_ERROR}, or {@link #STATUS_BUDGET_EXCEEDED}); its
+ *     length determines the number of rows;</li>
+ * <li><code>&lt;column&gt;.double</code> contains the values of the metric
+ *     column of every row as 64-bit floating point numbers (NaN for the
+ *     rows that are not {@link #STATUS_OK}).</li>
+ * </ul>
+ *
+ * All numbers are little-endian.
+ */
+public class StoreFormat
+{
+	static final public byte STATUS_OK      = 0;
+	static final public byte STATUS_TIMEOUT = 1;
+	static final public byte STATUS_ERROR   = 2;
+	static final public byte STATUS_BUDGET_EXCEEDED = 3;
+
+	static final public String COLUMNS_FILE        = "columns.txt";
+	static final public String RUNS_FILE           = "runs.txt";
+	static final public String CONFIGURATIONS_FILE = "configurations.txt";
+	static final public String QUERIES_FILE        = "queries.txt";
+
+	static final public String RUN_COLUMN           = "run.int";
+	static final public String CONFIGURATION_COLUMN = "configuration.int";
+	static final public String QUERY_COLUMN         = "query.int";
+	static final public String STATUS_COLUMN        = "status.byte";
+
+	static final public String METRIC_COLUMN_SUFFIX = ".double";
+
+	static public File getMetricColumnFile( File storeDir, String column )
+	{
+		return new File( storeDir, column + METRIC_COLUMN_SUFFIX );
+	}
+
+	/**
+	 * Returns the lines of the given file, or an empty list if the file
+	 * does not exist.
+	 */
+	static public List<String> readLines( File file ) throws IOException
+	{
+		final List<String> lines = new ArrayList<>();
+		if ( ! file.exists() )
+			return lines;
+
+		final BufferedReader br = new BufferedReader( new FileReader(file) );
+		try {
+			for ( String line; (line = br.readLine()) != null; )
+				lines.add(line);
+		}
+		finally {
+			br.close();
+		}
+		return lines;
+	}
+
+	static public String getStatusName( byte status )
+	{
+		switch ( status ) {
+		case STATUS_OK:      return "ok";
+		case STATUS_TIMEOUT: return "TIMEOUT";
+		case STATUS_BUDGET_EXCEEDED: return "BUDGET_EXCEEDED";
+		default:             return "ERROR";
+		}
+	}
+
+}
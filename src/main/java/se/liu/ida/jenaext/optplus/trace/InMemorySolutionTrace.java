@@ -0,0 +1,75 @@
+package se.liu.ida.jenaext.optplus.trace;
+
+/**
+ * Keeps a solution trace in memory. The records are stored in chunks of
+ * primitive long arrays that are allocated as the trace grows, such
+ * that the number of solutions does not need to be known in advance
+ * and growing the trace never copies the records recorded so far.
+ */
+public class InMemorySolutionTrace implements SolutionTrace, SolutionTraceRecorder
+{
+	static final public int RECORDS_PER_CHUNK_LOG2 = 13;
+	static final public int RECORDS_PER_CHUNK = 1 << RECORDS_PER_CHUNK_LOG2;
+
+	static final protected int VALUES_PER_RECORD = 3;
+
+	protected long[][] chunks = new long[16][];
+	protected long[] currentChunk = null;
+	protected int positionInCurrentChunk = RECORDS_PER_CHUNK * VALUES_PER_RECORD;
+	protected int numberOfChunks = 0;
+	protected long solutionCounter = 0L;
+
+	@Override
+	public void append( long time, long accesses, long triples )
+	{
+		if ( positionInCurrentChunk == RECORDS_PER_CHUNK * VALUES_PER_RECORD )
+			addChunk();
+
+		currentChunk[positionInCurrentChunk++] = time;
+		currentChunk[positionInCurrentChunk++] = accesses;
+		currentChunk[positionInCurrentChunk++] = triples;
+		solutionCounter++;
+	}
+
+	@Override
+	public long getSolutionCount() { return solutionCounter; }
+
+	@Override
+	public void close() {}
+
+	@Override
+	public long size() { return solutionCounter; }
+
+	@Override
+	public long getTime( long i ) { return getValue(i, 0); }
+
+	@Override
+	public long getAccesses( long i ) { return getValue(i, 1); }
+
+	@Override
+	public long getTriples( long i ) { return getValue(i, 2); }
+
+	protected long getValue( long i, int offsetInRecord )
+	{
+		if ( i < 0L || i >= solutionCounter )
+			throw new IndexOutOfBoundsException("No solution " + i + " in a trace of " + solutionCounter + " solutions");
+
+		final long[] chunk = chunks[ (int) (i >>> RECORDS_PER_CHUNK_LOG2) ];
+		final int record = (int) (i & (RECORDS_PER_CHUNK - 1));
+		return chunk[ record * VALUES_PER_RECORD + offsetInRecord ];
+	}
+
+	protected void addChunk()
+	{
+		if ( numberOfChunks == chunks.length ) {
+			final long[][] newChunks = new long[ 2 * chunks.length ][];
+			System.arraycopy(chunks, 0, newChunks, 0, numberOfChunks);
+			chunks = newChunks;
+		}
+
+		currentChunk = new long[ RECORDS_PER_CHUNK * VALUES_PER_RECORD ];
+		chunks[numberOfChunks++] = currentChunk;
+		positionInCurrentChunk = 0;
+	}
+
+}
@@ -0,0 +1,100 @@
+package se.liu.ida.jenaext.optplus.trace;
+
+/**
+ * A histogram of non-negative long values (such as nanoseconds) with
+ * logarithmic buckets: every power of two is split into
+ * {@link #SUB_BUCKETS} linear sub-buckets, such that values that are
+ * smaller than {@link #SUB_BUCKETS} are recorded exactly and all other
+ * values with a relative error of less than 1/{@link #SUB_BUCKETS}
+ * (about 3%). Hence, the histogram has a fixed size of a few kilobytes,
+ * independent of the number of recorded values and of their range.
+ */
+public class LogHistogram
+{
+	static final public int SUB_BUCKET_BITS = 5;
+	static final public int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	/** values below 2^SUB_BUCKET_BITS go into the first SUB_BUCKETS buckets */
+	static final protected int BUCKETS = ( 64 - SUB_BUCKET_BITS ) * SUB_BUCKETS;
+
+	final protected long[] counts = new long[BUCKETS];
+	protected long count = 0L;
+	protected long min = Long.MAX_VALUE;
+	protected long max = 0L;
+
+	public void record( long value )
+	{
+		if ( value < 0L )
+			throw new IllegalArgumentException("Negative value " + value);
+
+		counts[ getBucket(value) ]++;
+		count++;
+		if ( value < min ) min = value;
+		if ( value > max ) max = value;
+	}
+
+	/**
+	 * Adds the values recorded by the given histogram to this one.
+	 */
+	public void add( LogHistogram other )
+	{
+		for ( int i = 0; i < BUCKETS; ++i )
+			counts[i] += other.counts[i];
+		count += other.count;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+	}
+
+	public long getCount() { return count; }
+
+	/** Returns the smallest recorded value (0 if there is none). */
+	public long getMin() { return ( count == 0L ) ? 0L : min; }
+
+	/** Returns the largest recorded value (0 if there is none). */
+	public long getMax() { return max; }
+
+	/**
+	 * Returns the value below or at which the given percentage (0 to 100)
+	 * of the recorded values are, that is, the highest value of the bucket
+	 * that contains this value (but not more than the largest recorded
+	 * value), or 0 if there are no values.
+	 */
+	public long getValueAtPercentile( double percentile )
+	{
+		if ( count == 0L )
+			return 0L;
+
+		final long rank = Math.max( 1L, (long) Math.ceil(percentile / 100d * count) );
+		long seen = 0L;
+		for ( int i = 0; i < BUCKETS; ++i )
+		{
+			seen += counts[i];
+			if ( seen >= rank )
+				return Math.max( min, Math.min(max, getHighestValue(i)) );
+		}
+		return max;
+	}
+
+	static protected int getBucket( long value )
+	{
+		if ( value < SUB_BUCKETS )
+			return (int) value;
+
+		final int exponent = 63 - Long.numberOfLeadingZeros(value);
+		final int shift = exponent - SUB_BUCKET_BITS;
+		final int subBucket = (int) ( (value >>> shift) & (SUB_BUCKETS - 1) );
+		return ( shift + 1 ) * SUB_BUCKETS + subBucket;
+	}
+
+	static protected long getHighestValue( int bucket )
+	{
+		if ( bucket < SUB_BUCKETS )
+			return bucket;
+
+		final int shift = bucket / SUB_BUCKETS - 1;
+		final long subBucket = bucket % SUB_BUCKETS;
+		final long lowest = ( SUB_BUCKETS + subBucket ) << shift;
+		return lowest + ( 1L << shift ) - 1L;
+	}
+
+}
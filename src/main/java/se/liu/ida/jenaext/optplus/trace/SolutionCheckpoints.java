@@ -0,0 +1,153 @@
+package se.liu.ida.jenaext.optplus.trace;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The configurable checkpoints of a {@link SolutionTrace} that are
+ * reported in the measurements files in addition to the fixed grid of
+ * {@link SolutionTraceSummary} (each 10% of the result and the 10th,
+ * 20th, ..., 100th solution). There are two kinds of checkpoints:
+ * <ul>
+ * <li>a solution number k, for which the time, the accesses, and the
+ *     triples until the k-th solution are reported (columns
+ *     <code>timeToFirst</code>k etc.; 0 if there are less than k
+ *     solutions), and</li>
+ * <li>a percentile of the gaps between consecutive solutions, where the
+ *     first gap is the time until the first solution (columns
+ *     <code>gapP</code>x, and <code>gapMax</code> for the largest gap,
+ *     all based on a {@link LogHistogram} of the gaps).</li>
+ * </ul>
+ *
+ * Checkpoints are given as a comma-separated list such as
+ * <code>1,10,1000,p50,p99,max</code> (which is {@link #DEFAULT_SPEC}).
+ */
+public class SolutionCheckpoints
+{
+	static final public String DEFAULT_SPEC = "1,10,1000,p50,p99,max";
+
+	static final public SolutionCheckpoints DEFAULT = parse(DEFAULT_SPEC);
+
+	static final public SolutionCheckpoints NONE = parse("");
+
+	/** the solution numbers, starting from 1 */
+	final protected long[] solutions;
+	/** the percentiles of the gaps, where 100 stands for the largest gap */
+	final protected double[] gapPercentiles;
+
+	public SolutionCheckpoints( long[] solutions, double[] gapPercentiles )
+	{
+		this.solutions = solutions.clone();
+		this.gapPercentiles = gapPercentiles.clone();
+	}
+
+	/**
+	 * Parses the given comma-separated list of checkpoints; the empty
+	 * string is the empty list.
+	 *
+	 * @throws IllegalArgumentException if the list contains an illegal checkpoint
+	 */
+	static public SolutionCheckpoints parse( String spec )
+	{
+		final List<Long> solutions = new ArrayList<>();
+		final List<Double> percentiles = new ArrayList<>();
+
+		for ( String token : spec.split(",") )
+		{
+			final String t = token.trim();
+			if ( t.isEmpty() )
+				continue;
+
+			try
+			{
+				if ( t.equalsIgnoreCase("max") )
+					percentiles.add(100d);
+				else if ( t.startsWith("p") || t.startsWith("P") ) {
+					final double p = Double.parseDouble( t.substring(1) );
+					if ( p <= 0d || p > 100d )
+						throw new IllegalArgumentException("Percentile out of range: " + t);
+					percentiles.add(p);
+				}
+				else {
+					final long k = Long.parseLong(t);
+					if ( k < 1L )
+						throw new IllegalArgumentException("Solution numbers start from 1: " + t);
+					solutions.add(k);
+				}
+			}
+			catch ( NumberFormatException e ) {
+				throw new IllegalArgumentException("Illegal checkpoint: " + t);
+			}
+		}
+
+		final long[] s = new long[ solutions.size() ];
+		for ( int i = 0; i < s.length; ++i )
+			s[i] = solutions.get(i);
+
+		final double[] p = new double[ percentiles.size() ];
+		for ( int i = 0; i < p.length; ++i )
+			p[i] = percentiles.get(i);
+
+		return new SolutionCheckpoints(s, p);
+	}
+
+	public int getNumberOfSolutionCheckpoints() { return solutions.length; }
+
+	public long getSolution( int i ) { return solutions[i]; }
+
+	public int getNumberOfGapPercentiles() { return gapPercentiles.length; }
+
+	public double getGapPercentile( int i ) { return gapPercentiles[i]; }
+
+	/**
+	 * Returns the names of the columns for these checkpoints, in the
+	 * order in which they are written, with an empty name for the empty
+	 * column before every group of columns.
+	 */
+	public List<String> getColumnNames()
+	{
+		final List<String> names = new ArrayList<>();
+		if ( solutions.length > 0 )
+		{
+			for ( String metric : new String[] {"time", "accesses", "triples"} ) {
+				names.add("");
+				for ( long k : solutions )
+					names.add( metric + "ToFirst" + k );
+			}
+		}
+
+		if ( gapPercentiles.length > 0 )
+		{
+			names.add("");
+			for ( double p : gapPercentiles )
+				names.add( getGapColumnName(p) );
+		}
+		return names;
+	}
+
+	static protected String getGapColumnName( double p )
+	{
+		if ( p == 100d )
+			return "gapMax";
+		if ( p == Math.rint(p) )
+			return "gapP" + (long) p;
+		return "gapP" + Double.toString(p).replace('.', '_');
+	}
+
+	@Override
+	public String toString()
+	{
+		final StringBuilder sb = new StringBuilder();
+		for ( long k : solutions )
+			sb.append( (sb.length() == 0) ? "" : "," ).append(k);
+		for ( double p : gapPercentiles ) {
+			sb.append( (sb.length() == 0) ? "" : "," );
+			if ( p == 100d )
+				sb.append("max");
+			else
+				sb.append("p").append( (p == Math.rint(p)) ? Long.toString((long) p) : Double.toString(p) );
+		}
+		return sb.toString();
+	}
+
+}
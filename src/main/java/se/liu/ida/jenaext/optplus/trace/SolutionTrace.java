@@ -0,0 +1,33 @@
+package se.liu.ida.jenaext.optplus.trace;
+
+/**
+ * The measurements taken for every solution of a query execution,
+ * namely the time, the number of read accesses, and the number of
+ * triples until the solution was produced.
+ */
+public interface SolutionTrace
+{
+	/**
+	 * Returns the number of solutions covered by this trace.
+	 */
+	long size();
+
+	/**
+	 * Returns the time (in nanoseconds) from the start of the query
+	 * execution until the i-th solution (counting from 0).
+	 */
+	long getTime( long i );
+
+	/**
+	 * Returns the number of read accesses from the start of the query
+	 * execution until the i-th solution (counting from 0).
+	 */
+	long getAccesses( long i );
+
+	/**
+	 * Returns the number of triples retrieved from the start of the
+	 * query execution until the i-th solution (counting from 0).
+	 */
+	long getTriples( long i );
+
+}
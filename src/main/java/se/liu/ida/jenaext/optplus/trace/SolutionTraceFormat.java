@@ -0,0 +1,24 @@
+package se.liu.ida.jenaext.optplus.trace;
+
+/**
+ * Constants of the binary format of solution trace files.
+ *
+ * A trace file starts with a header of {@link #HEADER_SIZE} bytes that
+ * consists of the magic number (int), the format version (int), and
+ * the number of solutions (long), which is -1 if the file has not been
+ * closed properly. The header is followed by one record per solution,
+ * each of which consists of three longs: the time, the read accesses,
+ * and the triples until the solution. All values are little endian.
+ */
+public class SolutionTraceFormat
+{
+	static final public int MAGIC   = 0x4F505454; // "OPTT"
+	static final public int VERSION = 1;
+
+	static final public int HEADER_SIZE = 16;
+	static final public int COUNT_POSITION = 8;
+
+	static final public int RECORD_SIZE = 3 * 8;
+
+	private SolutionTraceFormat() {}
+}
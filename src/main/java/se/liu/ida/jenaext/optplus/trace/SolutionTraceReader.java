@@ -0,0 +1,96 @@
+package se.liu.ida.jenaext.optplus.trace;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Provides random access to the records of a solution trace file (see
+ * {@link SolutionTraceFormat}) by mapping the file into memory. Files
+ * that are larger than what a single buffer can map are mapped in
+ * several segments.
+ *
+ * If the file has not been closed properly by the writer (e.g., because
+ * the query execution was aborted), the number of solutions is derived
+ * from the file size.
+ */
+public class SolutionTraceReader implements SolutionTrace, Closeable
+{
+	static final public int RECORDS_PER_SEGMENT = 1 << 26;
+
+	final protected FileChannel channel;
+	final protected MappedByteBuffer[] segments;
+	final protected long solutionCounter;
+
+	public SolutionTraceReader( File file ) throws IOException
+	{
+		channel = FileChannel.open( file.toPath(), StandardOpenOption.READ );
+
+		try {
+			final long fileSize = channel.size();
+			if ( fileSize < SolutionTraceFormat.HEADER_SIZE )
+				throw new IOException("The file " + file.getName() + " is too short to be a solution trace");
+
+			final MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0L, SolutionTraceFormat.HEADER_SIZE);
+			header.order(ByteOrder.LITTLE_ENDIAN);
+			if ( header.getInt(0) != SolutionTraceFormat.MAGIC )
+				throw new IOException("The file " + file.getName() + " is not a solution trace");
+			if ( header.getInt(4) != SolutionTraceFormat.VERSION )
+				throw new IOException("The solution trace " + file.getName() + " has an unsupported version (" + header.getInt(4) + ")");
+
+			final long recordsInFile = (fileSize - SolutionTraceFormat.HEADER_SIZE) / SolutionTraceFormat.RECORD_SIZE;
+			final long count = header.getLong(SolutionTraceFormat.COUNT_POSITION);
+			solutionCounter = ( count < 0L ) ? recordsInFile : Math.min(count, recordsInFile);
+
+			final int numberOfSegments = (int) ( (solutionCounter + RECORDS_PER_SEGMENT - 1) / RECORDS_PER_SEGMENT );
+			segments = new MappedByteBuffer[numberOfSegments];
+			for ( int s = 0; s < numberOfSegments; ++s )
+			{
+				final long firstRecord = ((long) s) * RECORDS_PER_SEGMENT;
+				final long records = Math.min(RECORDS_PER_SEGMENT, solutionCounter - firstRecord);
+				segments[s] = channel.map( FileChannel.MapMode.READ_ONLY,
+				                           SolutionTraceFormat.HEADER_SIZE + firstRecord * SolutionTraceFormat.RECORD_SIZE,
+				                           records * SolutionTraceFormat.RECORD_SIZE );
+				segments[s].order(ByteOrder.LITTLE_ENDIAN);
+			}
+		}
+		catch ( IOException e ) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	@Override
+	public long size() { return solutionCounter; }
+
+	@Override
+	public long getTime( long i ) { return getValue(i, 0); }
+
+	@Override
+	public long getAccesses( long i ) { return getValue(i, 8); }
+
+	@Override
+	public long getTriples( long i ) { return getValue(i, 16); }
+
+	protected long getValue( long i, int offsetInRecord )
+	{
+		if ( i < 0L || i >= solutionCounter )
+			throw new IndexOutOfBoundsException("No solution " + i + " in a trace of " + solutionCounter + " solutions");
+
+		final ByteBuffer segment = segments[ (int) (i / RECORDS_PER_SEGMENT) ];
+		final int position = (int) (i % RECORDS_PER_SEGMENT) * SolutionTraceFormat.RECORD_SIZE + offsetInRecord;
+		return segment.getLong(position);
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		channel.close();
+	}
+
+}
@@ -0,0 +1,23 @@
+package se.liu.ida.jenaext.optplus.trace;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Records the measurements for the solutions of a query execution one
+ * after another.
+ */
+public interface SolutionTraceRecorder extends Closeable
+{
+	/**
+	 * Records the time (in nanoseconds), the number of read accesses,
+	 * and the number of triples until the next solution.
+	 */
+	void append( long time, long accesses, long triples ) throws IOException;
+
+	/**
+	 * Returns the number of solutions recorded so far.
+	 */
+	long getSolutionCount();
+
+}
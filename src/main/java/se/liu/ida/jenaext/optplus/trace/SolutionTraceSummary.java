@@ -0,0 +1,109 @@
+package se.liu.ida.jenaext.optplus.trace;
+
+/**
+ * The summary of a {@link SolutionTrace} that is reported in the
+ * measurements files: the time, accesses, and triples until each 10%
+ * of the result, and until the 10th, 20th, ..., 100th solution, plus
+ * the values for the configured {@link SolutionCheckpoints}, which are
+ * taken from the trace and, for the gaps between solutions, from a
+ * {@link LogHistogram} of the gaps.
+ */
+public class SolutionTraceSummary
+{
+	final public long[] timeToPercentageOfResult     = new long[10];
+	final public long[] accessesToPercentageOfResult = new long[10];
+	final public long[] triplesToPercentageOfResult  = new long[10];
+
+	final public long[] timeTo10Mappings     = new long[10];
+	final public long[] accessesTo10Mappings = new long[10];
+	final public long[] triplesTo10Mappings  = new long[10];
+
+	final public SolutionCheckpoints checkpoints;
+
+	/** values for the solution checkpoints, in the order of the checkpoints */
+	final public long[] timeToFirst;
+	final public long[] accessesToFirst;
+	final public long[] triplesToFirst;
+
+	/** values for the gap percentiles, in the order of the checkpoints */
+	final public long[] gapPercentiles;
+	/** the gaps between solutions, or null if no gap percentiles are configured */
+	final public LogHistogram gapHistogram;
+
+	public SolutionTraceSummary( SolutionCheckpoints checkpoints, LogHistogram gapHistogram )
+	{
+		this.checkpoints = checkpoints;
+		this.gapHistogram = gapHistogram;
+
+		timeToFirst     = new long[ checkpoints.getNumberOfSolutionCheckpoints() ];
+		accessesToFirst = new long[ checkpoints.getNumberOfSolutionCheckpoints() ];
+		triplesToFirst  = new long[ checkpoints.getNumberOfSolutionCheckpoints() ];
+		gapPercentiles  = new long[ checkpoints.getNumberOfGapPercentiles() ];
+	}
+
+	/**
+	 * Creates the summary of the given trace for the default checkpoints
+	 * (see {@link SolutionCheckpoints#DEFAULT}).
+	 */
+	static public SolutionTraceSummary create( SolutionTrace trace )
+	{
+		return create(trace, SolutionCheckpoints.DEFAULT);
+	}
+
+	/**
+	 * Creates the summary of the given trace. Values that do not exist
+	 * because the trace is too short remain 0.
+	 */
+	static public SolutionTraceSummary create( SolutionTrace trace, SolutionCheckpoints checkpoints )
+	{
+		final boolean needsGaps = checkpoints.getNumberOfGapPercentiles() > 0;
+		final SolutionTraceSummary s = new SolutionTraceSummary( checkpoints, needsGaps ? new LogHistogram() : null );
+		final long solutionCounter = trace.size();
+
+		if ( solutionCounter > 0L )
+		{
+			for ( int j=1; j<11; ++j ) {
+				final long tmp = (long) Math.ceil( (j*solutionCounter)/10d );
+				final long index = Math.min(tmp, solutionCounter-1);
+				s.timeToPercentageOfResult[j-1]     = trace.getTime(index);
+				s.accessesToPercentageOfResult[j-1] = trace.getAccesses(index);
+				s.triplesToPercentageOfResult[j-1]  = trace.getTriples(index);
+			}
+		}
+
+		if ( solutionCounter > 100L )
+		{
+			for ( int j=1; j<11; ++j ) {
+				s.timeTo10Mappings[j-1]     = trace.getTime(j*10);
+				s.accessesTo10Mappings[j-1] = trace.getAccesses(j*10);
+				s.triplesTo10Mappings[j-1]  = trace.getTriples(j*10);
+			}
+		}
+
+		for ( int i = 0; i < checkpoints.getNumberOfSolutionCheckpoints(); ++i )
+		{
+			final long k = checkpoints.getSolution(i);
+			if ( k <= solutionCounter ) {
+				s.timeToFirst[i]     = trace.getTime(k-1);
+				s.accessesToFirst[i] = trace.getAccesses(k-1);
+				s.triplesToFirst[i]  = trace.getTriples(k-1);
+			}
+		}
+
+		if ( needsGaps )
+		{
+			long previousTime = 0L;
+			for ( long i = 0L; i < solutionCounter; ++i ) {
+				final long time = trace.getTime(i);
+				s.gapHistogram.record( Math.max(0L, time - previousTime) );
+				previousTime = time;
+			}
+
+			for ( int i = 0; i < checkpoints.getNumberOfGapPercentiles(); ++i )
+				s.gapPercentiles[i] = s.gapHistogram.getValueAtPercentile( checkpoints.getGapPercentile(i) );
+		}
+
+		return s;
+	}
+
+}
@@ -0,0 +1,98 @@
+package se.liu.ida.jenaext.optplus.trace;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes a solution trace file (see {@link SolutionTraceFormat}) in an
+ * append-only manner. The records are collected in a direct buffer that
+ * is written to the file channel whenever it is full, which keeps the
+ * cost per solution very low.
+ */
+public class SolutionTraceWriter implements SolutionTraceRecorder
+{
+	static final public int DEFAULT_BUFFER_RECORDS = 4096;
+
+	final protected FileChannel channel;
+	final protected ByteBuffer buffer;
+	protected long solutionCounter = 0L;
+
+	public SolutionTraceWriter( File file ) throws IOException
+	{
+		this(file, DEFAULT_BUFFER_RECORDS);
+	}
+
+	public SolutionTraceWriter( File file, int bufferRecords ) throws IOException
+	{
+		channel = FileChannel.open( file.toPath(),
+		                            StandardOpenOption.CREATE,
+		                            StandardOpenOption.WRITE,
+		                            StandardOpenOption.TRUNCATE_EXISTING );
+
+		buffer = ByteBuffer.allocateDirect( bufferRecords * SolutionTraceFormat.RECORD_SIZE );
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+		final ByteBuffer header = ByteBuffer.allocate(SolutionTraceFormat.HEADER_SIZE);
+		header.order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(SolutionTraceFormat.MAGIC);
+		header.putInt(SolutionTraceFormat.VERSION);
+		header.putLong(-1L);
+		header.flip();
+		writeFully(header);
+	}
+
+	@Override
+	public void append( long time, long accesses, long triples ) throws IOException
+	{
+		if ( buffer.remaining() < SolutionTraceFormat.RECORD_SIZE )
+			flushBuffer();
+
+		buffer.putLong(time);
+		buffer.putLong(accesses);
+		buffer.putLong(triples);
+		solutionCounter++;
+	}
+
+	@Override
+	public long getSolutionCount() { return solutionCounter; }
+
+	/**
+	 * Writes the remaining records and the number of solutions, and
+	 * closes the file.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		try {
+			flushBuffer();
+
+			final ByteBuffer count = ByteBuffer.allocate(8);
+			count.order(ByteOrder.LITTLE_ENDIAN);
+			count.putLong(solutionCounter);
+			count.flip();
+			channel.position(SolutionTraceFormat.COUNT_POSITION);
+			writeFully(count);
+		}
+		finally {
+			channel.close();
+		}
+	}
+
+	protected void flushBuffer() throws IOException
+	{
+		buffer.flip();
+		writeFully(buffer);
+		buffer.clear();
+	}
+
+	protected void writeFully( ByteBuffer b ) throws IOException
+	{
+		while ( b.hasRemaining() )
+			channel.write(b);
+	}
+
+}
@@ -0,0 +1,46 @@
+package se.liu.ida.jenaext.optplus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class CSVTokenizerTest
+{
+	@Test
+	public void sameFieldsAsSplit()
+	{
+		final String[] lines = { "1, 2.5, , 3", "1, ERROR", "1, 2, ,", "", "a,,b,," };
+		final CSVTokenizer t = new CSVTokenizer();
+		for ( String line : lines )
+		{
+			t.reset(line);
+			final String[] fields = line.split(",");
+			assertEquals( fields.length, t.getFieldCount() );
+			for ( int i = 0; i < fields.length; ++i )
+				assertEquals( fields[i].trim(), t.getTrimmed(i) );
+		}
+	}
+
+	@Test
+	public void sameValuesAsParseDouble()
+	{
+		final String[] values = { "0", "-0.0", "3.0", " 1.1 ", "123456789.123456", "0.30000000000000004",
+		                          "1.2345678E7", "-7.", ".5", "NaN", "1e-3" };
+		final CSVTokenizer t = new CSVTokenizer();
+		for ( String v : values )
+		{
+			t.reset("1," + v);
+			final double expected = Double.parseDouble(v);
+			assertTrue( v, Double.compare(expected, t.parseDouble(1)) == 0 );
+		}
+	}
+
+	@Test(expected=NumberFormatException.class)
+	public void notANumber()
+	{
+		final CSVTokenizer t = new CSVTokenizer();
+		t.reset("1, TIMEOUT");
+		t.parseDouble(1);
+	}
+}
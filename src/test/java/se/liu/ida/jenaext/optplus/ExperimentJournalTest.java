@@ -0,0 +1,84 @@
+package se.liu.ida.jenaext.optplus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ExperimentJournalTest
+{
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	final protected ExperimentConfiguration c1 = new ExperimentConfiguration("Opt", true, "QueryIterNestedLoopJoinPlus");
+	final protected ExperimentConfiguration c2 = new ExperimentConfiguration("Opt", false, "-");
+
+	@Test
+	public void recordAndRead() throws IOException
+	{
+		final File f = new File( tmp.getRoot(), "experiment.journal" );
+
+		final ExperimentJournal j = new ExperimentJournal(f);
+		assertEquals( 0, j.read() );
+		j.record( c1, "1", "1, 120, 3" );
+		j.record( c1, "2", "2, TIMEOUT, 10.0 seconds" );
+		j.record( c2, "1", "1, ERROR: caught java.lang.OutOfMemoryError" );
+		j.record( c1, "1", "1, 110, 3" );
+		j.close();
+
+		final ExperimentJournal r = new ExperimentJournal(f);
+		assertEquals( 3, r.read() );
+		assertEquals( "1, 110, 3", r.get(c1, "1") );
+		assertNull( r.get(c2, "2") );
+
+		assertEquals( "2, TIMEOUT, 10.0 seconds", r.getFinished(c1, "2", false) );
+		assertNull( r.getFinished(c1, "2", true) );
+		assertNull( r.getFinished(c2, "1", true) );
+		assertEquals( "1, 110, 3", r.getFinished(c1, "1", true) );
+	}
+
+	@Test
+	public void incompleteLastLine() throws IOException
+	{
+		final File f = new File( tmp.getRoot(), "experiment.journal" );
+		try ( FileWriter w = new FileWriter(f) ) {
+			w.write( c1.getName() + "\t1\t1, 120, 3\n" );
+			w.write( c1.getName() + "\t3\t3, 13" );
+		}
+
+		final ExperimentJournal j = new ExperimentJournal(f);
+		assertEquals( 1, j.read() );
+		assertNull( j.get(c1, "3") );
+
+		j.record( c1, "2", "2, 130, 5" );
+		j.close();
+
+		// the incomplete line must not be turned into a line of its own
+		final String expected = c1.getName() + "\t1\t1, 120, 3\n" + c1.getName() + "\t2\t2, 130, 5\n";
+		assertEquals( expected, new String(Files.readAllBytes(f.toPath()), StandardCharsets.UTF_8) );
+
+		final ExperimentJournal r = new ExperimentJournal(f);
+		assertEquals( 2, r.read() );
+		assertEquals( "2, 130, 5", r.get(c1, "2") );
+		assertNull( r.get(c1, "3") );
+	}
+
+	@Test
+	public void failed()
+	{
+		assertTrue( ExperimentJournal.isFailed("1, TIMEOUT, 10.0 seconds") );
+		assertTrue( ExperimentJournal.isFailed("1, ERROR: reading the query failed") );
+		assertFalse( ExperimentJournal.isFailed("1, 120, 3") );
+	}
+
+}
@@ -0,0 +1,51 @@
+package se.liu.ida.jenaext.optplus;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ExperimentMatrixTest
+{
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	@Test
+	public void alternativesAreCombined() throws IOException
+	{
+		final File f = tmp.newFile("configs.csv");
+		final PrintWriter w = new PrintWriter(f);
+		w.println("# comment");
+		w.println("Opt|OptP, false, -");
+		w.println();
+		w.println("Opt, true|false, QueryIterNestedLoopJoinPlus|QueryIterHashJoinPlusMaterializeRightFirst");
+		w.close();
+
+		final ExperimentMatrix m = new ExperimentMatrix();
+		m.read(f);
+
+		final List<ExperimentConfiguration> configs = m.getConfigurations();
+		assertEquals( 4, configs.size() );
+		assertEquals( "Opt-false-null", configs.get(0).getName() );
+		assertEquals( "OptP-false-null", configs.get(1).getName() );
+		assertEquals( "Opt-true-QueryIterNestedLoopJoinPlus", configs.get(2).getName() );
+		assertEquals( "Opt-true-QueryIterHashJoinPlusMaterializeRightFirst", configs.get(3).getName() );
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void invalidSemantics() throws IOException
+	{
+		final File f = tmp.newFile("configs.csv");
+		final PrintWriter w = new PrintWriter(f);
+		w.println("Opt, yes, QueryIterNestedLoopJoinPlus");
+		w.close();
+
+		new ExperimentMatrix().read(f);
+	}
+}
@@ -0,0 +1,47 @@
+package se.liu.ida.jenaext.optplus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class ExperimentScheduleTest
+{
+	@Test
+	public void interleavedCoversEveryPairOnce()
+	{
+		final List<ExperimentSchedule.Entry> s = ExperimentSchedule.createInterleaved(6, 4, 42L);
+		assertEquals( 24, s.size() );
+
+		final Set<String> pairs = new HashSet<>();
+		final int[] lastQueryIndex = { -1, -1, -1, -1, -1, -1 };
+		for ( int i = 0; i < s.size(); ++i )
+		{
+			final ExperimentSchedule.Entry e = s.get(i);
+			assertTrue( pairs.add(e.toString()) );
+			// all configurations for one query before the next query
+			assertEquals( i / 6, e.queryIndex );
+			// the queries of every configuration in the given order
+			assertTrue( e.queryIndex > lastQueryIndex[e.configIndex] );
+			lastQueryIndex[e.configIndex] = e.queryIndex;
+		}
+	}
+
+	@Test
+	public void interleavedIsReproducible()
+	{
+		assertEquals( ExperimentSchedule.createInterleaved(6, 10, 7L).toString(),
+		              ExperimentSchedule.createInterleaved(6, 10, 7L).toString() );
+	}
+
+	@Test
+	public void sequential()
+	{
+		final List<ExperimentSchedule.Entry> s = ExperimentSchedule.createSequential(2, 3);
+		assertEquals( "[(0, 0), (0, 1), (0, 2), (1, 0), (1, 1), (1, 2)]", s.toString() );
+	}
+}
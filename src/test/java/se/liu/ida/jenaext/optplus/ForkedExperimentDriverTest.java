@@ -0,0 +1,47 @@
+package se.liu.ida.jenaext.optplus;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+
+import jena.cmd.ArgDecl;
+
+import org.junit.Test;
+
+public class ForkedExperimentDriverTest
+{
+	@Test
+	public void removeOptions()
+	{
+		final ArgDecl fork = new ArgDecl(ArgDecl.NoValue, "fork");
+		final ArgDecl jvmArgs = new ArgDecl(ArgDecl.HasValue, "jvmArgs");
+		final String[] argv = { "--hdtfile=data.hdt", "--fork", "--jvmArgs", "-Xmx8g -Xms8g", "-queryids", "ids.csv", "--jvmArgs=-Xmx1g", "--timeout=5" };
+
+		final List<String> args = ForkedExperimentDriver.removeOptions(argv, fork, jvmArgs);
+		assertEquals( Arrays.asList("--hdtfile=data.hdt", "-queryids", "ids.csv", "--timeout=5"), args );
+	}
+
+	@Test
+	public void completeResults()
+	{
+		final List<String> queryIDs = Arrays.asList("1", "2", "3");
+
+		final List<String> lines = ForkedExperimentDriver.completeResults( Arrays.asList("1, 12, 3"), queryIDs, "crashed" );
+		assertEquals( 3, lines.size() );
+		assertEquals( "1, 12, 3", lines.get(0) );
+		assertEquals( "2, ERROR: crashed", lines.get(1) );
+		assertEquals( "3, ERROR: not executed because the child JVM ended at query 2", lines.get(2) );
+
+		assertEquals( Arrays.asList("1, x", "2, y", "3, z"),
+		              ForkedExperimentDriver.completeResults(Arrays.asList("1, x", "2, y", "3, z"), queryIDs, "crashed") );
+	}
+
+	@Test
+	public void splitJVMArgs()
+	{
+		assertEquals( Arrays.asList("-Xmx8g", "-XX:+ExitOnOutOfMemoryError"), ForkedExperimentDriver.splitJVMArgs(" -Xmx8g  -XX:+ExitOnOutOfMemoryError ") );
+		assertEquals( 0, ForkedExperimentDriver.splitJVMArgs("  ").size() );
+	}
+
+}
@@ -0,0 +1,88 @@
+package se.liu.ida.jenaext.optplus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class HDTIndexCacheTest
+{
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	@Test
+	public void storedIndexIsLinked() throws IOException
+	{
+		final File hdtFile = createFile( tmp.newFile("data.hdt"), 100 );
+		final File localIndex = HDTIndexCache.getLocalIndexFile(hdtFile);
+		final HDTIndexCache cache = new HDTIndexCache( new File(tmp.getRoot(), "cache") );
+
+		assertFalse( cache.link(hdtFile) );
+
+		createFile(localIndex, 50);
+		cache.store(hdtFile);
+		assertTrue( cache.isValid(hdtFile, cache.getCachedIndexFile(hdtFile)) );
+
+		Files.delete( localIndex.toPath() );
+		assertTrue( cache.link(hdtFile) );
+		assertTrue( Files.isSymbolicLink(localIndex.toPath()) );
+		assertEquals( 50L, localIndex.length() );
+	}
+
+	@Test
+	public void relativeCacheDir() throws IOException
+	{
+		final File hdtFile = createFile( tmp.newFile("data.hdt"), 100 );
+		final File localIndex = createFile( HDTIndexCache.getLocalIndexFile(hdtFile), 50 );
+
+		// relative to the working directory, not to the directory of the HDT file
+		final Path cwd = Paths.get("").toAbsolutePath();
+		final File cacheDir = cwd.relativize( new File(tmp.getRoot(), "cache").toPath() ).toFile();
+		assertFalse( cacheDir.isAbsolute() );
+
+		final HDTIndexCache cache = new HDTIndexCache(cacheDir);
+		cache.store(hdtFile);
+		Files.delete( localIndex.toPath() );
+
+		assertTrue( cache.link(hdtFile) );
+		assertTrue( localIndex.exists() );
+		assertEquals( 50L, localIndex.length() );
+
+		// an existing link is recognized as up to date
+		assertTrue( cache.link(hdtFile) );
+		assertTrue( Files.isSymbolicLink(localIndex.toPath()) );
+	}
+
+	@Test
+	public void modifiedHDTFileInvalidatesIndex() throws IOException
+	{
+		final File hdtFile = createFile( tmp.newFile("data.hdt"), 100 );
+		final File localIndex = createFile( HDTIndexCache.getLocalIndexFile(hdtFile), 50 );
+		final HDTIndexCache cache = new HDTIndexCache( new File(tmp.getRoot(), "cache") );
+		cache.store(hdtFile);
+		Files.delete( localIndex.toPath() );
+
+		createFile(hdtFile, 200);
+		assertFalse( cache.isValid(hdtFile, cache.getCachedIndexFile(hdtFile)) );
+		assertFalse( cache.link(hdtFile) );
+		assertFalse( localIndex.exists() );
+	}
+
+	static protected File createFile( File f, int size ) throws IOException
+	{
+		try ( FileOutputStream out = new FileOutputStream(f) ) {
+			out.write( new byte[size] );
+		}
+		return f;
+	}
+}
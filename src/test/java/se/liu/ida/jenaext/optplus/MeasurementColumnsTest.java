@@ -0,0 +1,56 @@
+package se.liu.ida.jenaext.optplus;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import se.liu.ida.jenaext.optplus.trace.SolutionCheckpoints;
+
+public class MeasurementColumnsTest
+{
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	@Test
+	public void sidecar() throws IOException
+	{
+		final File f = tmp.newFile("measurements.csv");
+		MeasurementColumns.writeSidecar( f, MeasurementColumns.NAMES );
+
+		assertEquals( MeasurementColumns.NAMES, MeasurementColumns.readFor(f) );
+	}
+
+	@Test
+	public void noSidecar() throws IOException
+	{
+		final File f = tmp.newFile("measurements.csv");
+		try ( FileWriter w = new FileWriter(f) ) {
+			w.write("1, TIMEOUT, 10.0 seconds\n");
+			w.write("2, ERROR: reading the query failed\n");
+			w.write("3, 5, 20, 18, 1.5, 0.5, 1.0\n");
+		}
+
+		final List<String> names = MeasurementColumns.readFor(f);
+		assertEquals( 7, names.size() );
+		assertEquals( MeasurementColumns.EXEC_TIME, names.get(6) );
+	}
+
+	@Test
+	public void noSidecarWithoutCompleteLine() throws IOException
+	{
+		final File f = tmp.newFile("measurements.csv");
+		try ( FileWriter w = new FileWriter(f) ) {
+			w.write("1, TIMEOUT, 10.0 seconds\n");
+		}
+
+		assertEquals( MeasurementColumns.create(SolutionCheckpoints.NONE), MeasurementColumns.readFor(f) );
+	}
+
+}
@@ -0,0 +1,40 @@
+package se.liu.ida.jenaext.optplus;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class MeasurementStatisticsTest
+{
+	@Test
+	public void singleValue()
+	{
+		final MeasurementStatistics s = new MeasurementStatistics( new double[] {4d} );
+
+		assertEquals( 1, s.n );
+		assertEquals( 4d, s.median, 0d );
+		assertEquals( 4d, s.min, 0d );
+		assertEquals( 4d, s.p90, 0d );
+		assertEquals( 4d, s.ciLow, 0d );
+		assertEquals( 4d, s.ciHigh, 0d );
+		assertEquals( 0d, s.getRelativeCIWidth(), 0d );
+	}
+
+	@Test
+	public void severalValues()
+	{
+		final double[] values = { 5d, 1d, 4d, 2d, 3d, 10d, 9d, 8d, 7d, 6d };
+		final MeasurementStatistics s = new MeasurementStatistics(values);
+
+		assertEquals( 10, s.n );
+		assertEquals( 5.5d, s.median, 0d );
+		assertEquals( 1d, s.min, 0d );
+		assertEquals( 9d, s.p90, 0d );
+		assertEquals( 5.5d, s.mean, 0d );
+
+		// standard deviation is sqrt(82.5/9), t-quantile for 9 df is 2.262
+		final double halfWidth = 2.262d * Math.sqrt(82.5d/9d) / Math.sqrt(10d);
+		assertEquals( 5.5d - halfWidth, s.ciLow, 1e-9 );
+		assertEquals( 5.5d + halfWidth, s.ciHigh, 1e-9 );
+	}
+}
@@ -0,0 +1,59 @@
+package se.liu.ida.jenaext.optplus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PageCacheControlTest
+{
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	@Test
+	public void prefetchTouchesWholeFile() throws IOException
+	{
+		final File f = tmp.newFile("data.hdt");
+		try ( FileOutputStream out = new FileOutputStream(f) ) {
+			out.write( new byte[100000] );
+		}
+
+		assertEquals( 100000L, PageCacheControl.prefetch(f) );
+	}
+
+	@Test
+	public void indexFileIsIncludedIfPresent() throws IOException
+	{
+		final File f = tmp.newFile("data.hdt");
+		assertEquals( 1, PageCacheControl.getHDTFiles(f.getPath()).size() );
+
+		tmp.newFile( "data.hdt" + PageCacheControl.HDT_INDEX_SUFFIX );
+		assertEquals( 2, PageCacheControl.getHDTFiles(f.getPath()).size() );
+	}
+
+	@Test
+	public void cachedBytesAreAtMostTheFileSize() throws IOException
+	{
+		final File f = tmp.newFile("data.hdt");
+		try ( FileOutputStream out = new FileOutputStream(f) ) {
+			out.write( new byte[100000] );
+		}
+
+		// -1 if the command is not available
+		final long cached = PageCacheControl.getCachedBytes(f);
+		assertTrue( cached >= -1L && cached <= 100000L + 4096L );
+		assertEquals( -1L, PageCacheControl.getCachedBytes(new File(tmp.getRoot(), "missing")) );
+	}
+
+	@Test(expected=IOException.class)
+	public void failingDropCommand() throws IOException
+	{
+		PageCacheControl.drop( tmp.newFile("data.hdt"), "test ! -e " + PageCacheControl.FILE_PLACEHOLDER );
+	}
+}
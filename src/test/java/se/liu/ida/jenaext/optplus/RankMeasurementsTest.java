@@ -2,6 +2,12 @@ package se.liu.ida.jenaext.optplus;
 
 import static org.junit.Assert.assertEquals;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+
 import org.junit.Test;
 
 public class RankMeasurementsTest
@@ -76,4 +82,50 @@ public class RankMeasurementsTest
 		assertEquals( "1, ",       result[1] );
 		assertEquals( "1, 1, 2, ", result[2] );
 	}
+
+	@Test
+	public void blankCellInLaterTuple()
+	{
+		final String[] lines = {"1, 1, 3.0", "1, 2, ", "1, 3, 2.1"};
+		final String[] result = RankMeasurements.processLine(lines, 3);
+
+		assertEquals( 3, result.length );
+		assertEquals( "1, 2, , ", result[0] );
+		assertEquals( "1, 1, , ", result[1] );
+		assertEquals( "1, 0, , ", result[2] );
+	}
+
+	@Test
+	public void blocksInParallel() throws IOException
+	{
+		final StringBuilder[] in = { new StringBuilder(), new StringBuilder() };
+		for ( int q = 0; q < 10; ++q ) {
+			in[0].append(q).append(", ").append(q % 3).append(", 1.5\n");
+			in[1].append(q).append( (q % 2 == 0) ? ", 1, 2.5" : ", ERROR" ).append("\n");
+		}
+
+		final int blockSize = RankMeasurements.blockSize;
+		RankMeasurements.blockSize = 3;
+		try {
+			for ( int threads = 1; threads <= 2; ++threads )
+			{
+				final BufferedReader[] readers = { new BufferedReader(new StringReader(in[0].toString())),
+				                                   new BufferedReader(new StringReader(in[1].toString())) };
+				final StringWriter[] out = { new StringWriter(), new StringWriter() };
+				RankMeasurements.rank( readers, new Writer[] {out[0], out[1]}, 3, threads );
+
+				final String[] lines0 = out[0].toString().split(System.lineSeparator());
+				final String[] lines1 = out[1].toString().split(System.lineSeparator());
+				assertEquals( 10, lines0.length );
+				assertEquals( "0, 1, 1, ", lines0[0] );
+				assertEquals( "0, 0, 0, ", lines1[0] );
+				assertEquals( "1, 1, 1, ", lines0[1] );
+				assertEquals( "1, ",       lines1[1] );
+				assertEquals( "9, 1, 1, ", lines0[9] );
+			}
+		}
+		finally {
+			RankMeasurements.blockSize = blockSize;
+		}
+	}
 }
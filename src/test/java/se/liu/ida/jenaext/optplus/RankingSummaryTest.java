@@ -0,0 +1,65 @@
+package se.liu.ida.jenaext.optplus;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class RankingSummaryTest
+{
+	@Test
+	public void winsTiesLossesAndErrors() throws IOException
+	{
+		final String[] in = {
+			"1, 1.0, 4.0\n2, 2.0, 1.0\n3, TIMEOUT\n4, 1.0, 2.0\n",
+			"1, 2.0, 4.0\n2, 1.0, 1.0\n3, 5.0, 5.0\n4, ERROR\n" };
+
+		final BufferedReader[] readers = { new BufferedReader(new StringReader(in[0])),
+		                                   new BufferedReader(new StringReader(in[1])) };
+		final RankingSummary s = RankMeasurements.rank( readers, new Writer[] {new StringWriter(), new StringWriter()}, 3, 1 );
+
+		assertEquals( 4L, s.getLines() );
+		assertEquals( 1L, s.getTimeoutLines(0) );
+		assertEquals( 0L, s.getErrorLines(0) );
+		assertEquals( 0L, s.getTimeoutLines(1) );
+		assertEquals( 1L, s.getErrorLines(1) );
+
+		// column 1: config 0 wins queries 1 and 4, loses query 2
+		assertEquals( 3L, s.getCells(0, 1) );
+		assertEquals( 2L, s.getWins(0, 1) );
+		assertEquals( 0L, s.getTies(0, 1) );
+		assertEquals( 1L, s.getLosses(0, 1) );
+		assertEquals( 2d/3d, s.getMeanRank(0, 1), 1e-9 );
+
+		// column 2: ties for queries 1 and 2, config 1 alone for query 3
+		assertEquals( 2L, s.getTies(1, 2) );
+		assertEquals( 1L, s.getWins(1, 2) );
+		assertEquals( Math.cbrt(4d*1d*5d), s.getGeometricMean(1, 2), 1e-9 );
+	}
+
+	@Test
+	public void writeWithColumnNames() throws IOException
+	{
+		final String[] in = { "1, 1.0\n", "1, 2.0\n" };
+		final BufferedReader[] readers = { new BufferedReader(new StringReader(in[0])),
+		                                   new BufferedReader(new StringReader(in[1])) };
+		final RankingSummary s = RankMeasurements.rank( readers, new Writer[] {new StringWriter(), new StringWriter()}, 2, 1 );
+
+		final StringWriter out = new StringWriter();
+		try ( PrintWriter w = new PrintWriter(out) ) {
+			s.write( w, new String[] {"a", "b"}, Arrays.asList(MeasurementColumns.QUERY_ID, MeasurementColumns.SOLUTIONS) );
+		}
+
+		final String[] lines = out.toString().split(System.lineSeparator());
+		assertEquals( 3, lines.length );
+		assertEquals( "a, " + MeasurementColumns.SOLUTIONS + ", 1, 1.0, 1, 0, 0, 1.0, 0, 0", lines[1] );
+		assertEquals( "b, " + MeasurementColumns.SOLUTIONS + ", 1, 0.0, 0, 0, 1, 2.0, 0, 0", lines[2] );
+	}
+}
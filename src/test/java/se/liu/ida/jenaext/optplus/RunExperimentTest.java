@@ -0,0 +1,108 @@
+package se.liu.ida.jenaext.optplus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Collections;
+
+import org.apache.jena.atlas.io.IndentedLineBuffer;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.sparql.engine.Plan;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import se.liu.ida.jenaext.optplus.QueryCache.CompiledQuery;
+import se.liu.ida.jenaext.optplus.sparql.engine.main.QueryEnginePlus;
+import se.liu.ida.jenaext.optplus.trace.SolutionCheckpoints;
+import se.liu.ida.jenaext.optplus.trace.SolutionTraceSummary;
+
+public class RunExperimentTest
+{
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	@BeforeClass
+	static public void register()
+	{
+		QueryEnginePlus.register();
+	}
+
+	@Test
+	public void planContainsOptPlusIterator() throws IOException
+	{
+		final ExperimentConfiguration config = new ExperimentConfiguration("Opt", true, "QueryIterNestedLoopJoinPlus");
+		final String plan = createPlan(config);
+
+		assertTrue( plan, plan.contains(config.getClassnameOptPlusIterator()) );
+	}
+
+	@Test
+	public void planWithoutOptPlusSemantics() throws IOException
+	{
+		final ExperimentConfiguration config = new ExperimentConfiguration("Opt", false, "QueryIterNestedLoopJoinPlus");
+		final String plan = createPlan(config);
+
+		assertFalse( plan, plan.contains(config.getClassnameOptPlusIterator()) );
+	}
+
+	@Test
+	public void csvLineMatchesColumnNames()
+	{
+		for ( SolutionCheckpoints checkpoints : new SolutionCheckpoints[] {SolutionCheckpoints.DEFAULT, SolutionCheckpoints.NONE} )
+		{
+			final String csv = createCSVLine(checkpoints);
+			final CSVTokenizer tokenizer = new CSVTokenizer();
+			tokenizer.reset(csv);
+
+			assertEquals( csv, MeasurementColumns.create(checkpoints).size(), tokenizer.getFieldCount() );
+		}
+	}
+
+	/**
+	 * Returns the CSV line for a measurement with the given checkpoints
+	 * whose resource usage is not available (i.e., with empty cells).
+	 */
+	protected String createCSVLine( SolutionCheckpoints checkpoints )
+	{
+		final Measurement m = new Measurement( 1L, 2L, 3L, 4000000L, 1000000L, 3000000L,
+		                                       new SolutionTraceSummary(checkpoints, null),
+		                                       new long[8], new long[8], 0L, 0L, 0L, 0L,
+		                                       new ResourceUsageProbe(false),
+		                                       0L, 0L, 0L, 0L );
+		return new RunExperiment( new String[0] ).toCSV( "1", Collections.singletonList(m) );
+	}
+
+	/**
+	 * Creates the plan for a query with an OPTIONAL pattern over an
+	 * empty dataset and returns the output of the plan, which contains
+	 * the class names of its iterators.
+	 */
+	protected String createPlan( ExperimentConfiguration config ) throws IOException
+	{
+		final File queryFile = config.getQueryFile( tmp.getRoot(), "1" );
+		queryFile.getParentFile().mkdirs();
+		try ( FileWriter w = new FileWriter(queryFile) ) {
+			w.write("SELECT * WHERE { ?s <http://example.org/p> ?o OPTIONAL { ?o <http://example.org/q> ?x } }\n");
+		}
+
+		final CompiledQuery q = new QueryCache( tmp.getRoot() ).get(config, "1");
+		final Dataset dataset = DatasetFactory.create();
+		final Plan plan = RunExperiment.createPlan(q, dataset, config);
+		try {
+			final IndentedLineBuffer out = new IndentedLineBuffer();
+			plan.output(out);
+			return out.asString();
+		}
+		finally {
+			plan.close();
+		}
+	}
+
+}
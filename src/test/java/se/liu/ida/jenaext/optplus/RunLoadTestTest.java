@@ -0,0 +1,39 @@
+package se.liu.ida.jenaext.optplus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class RunLoadTestTest
+{
+	@Test
+	public void constantArrivals()
+	{
+		final long[] a = RunLoadTest.createArrivals( 10d, 1000000000L, false, new Random(1L) );
+		assertEquals( 10, a.length );
+		assertEquals( 0L, a[0] );
+		assertEquals( 100000000L, a[1] );
+		assertEquals( 900000000L, a[9] );
+	}
+
+	@Test
+	public void poissonArrivals()
+	{
+		final long[] a = RunLoadTest.createArrivals( 1000d, 10000000000L, true, new Random(1L) );
+
+		// about 10000 arrivals, in order and within the period
+		assertTrue( a.length > 9500 && a.length < 10500 );
+		for ( int i = 1; i < a.length; ++i )
+			assertTrue( a[i-1] <= a[i] );
+		assertTrue( a[a.length-1] < 10000000000L );
+
+		// the same seed gives the same arrivals
+		final long[] b = RunLoadTest.createArrivals( 1000d, 10000000000L, true, new Random(1L) );
+		assertEquals( a.length, b.length );
+		assertEquals( a[a.length-1], b[b.length-1] );
+	}
+
+}
@@ -0,0 +1,81 @@
+package se.liu.ida.jenaext.optplus;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TimeoutSettingsTest
+{
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	final ExperimentConfiguration nlj  = new ExperimentConfiguration("Opt", true, "QueryIterNestedLoopJoinPlus");
+	final ExperimentConfiguration hash = new ExperimentConfiguration("Opt", true, "QueryIterHashJoinPlusMaterializeRightFirst");
+
+	@Test
+	public void defaultOnly()
+	{
+		final TimeoutSettings t = new TimeoutSettings(10000L);
+
+		assertEquals( 10000L, t.getTimeoutInMillis("1", nlj) );
+	}
+
+	@Test
+	public void mostSpecificApplies()
+	{
+		final TimeoutSettings t = new TimeoutSettings(10000L);
+		t.setTimeoutInMillis( TimeoutSettings.WILDCARD, nlj.getName(), 20000L );
+		t.setTimeoutInMillis( "1", TimeoutSettings.WILDCARD, 30000L );
+		t.setTimeoutInMillis( "1", nlj.getName(), 40000L );
+
+		assertEquals( 40000L, t.getTimeoutInMillis("1", nlj) );
+		assertEquals( 30000L, t.getTimeoutInMillis("1", hash) );
+		assertEquals( 20000L, t.getTimeoutInMillis("2", nlj) );
+		assertEquals( 10000L, t.getTimeoutInMillis("2", hash) );
+	}
+
+	@Test
+	public void wildcardForBoth() throws IOException
+	{
+		final File f = tmp.newFile("timeouts.csv");
+		try ( FileWriter w = new FileWriter(f) ) {
+			w.write("# timeouts\n");
+			w.write("*, *, 5\n");
+			w.write("1, *, 30\n");
+		}
+
+		final TimeoutSettings t = new TimeoutSettings(10000L);
+		t.read(f);
+
+		assertEquals( 30000L, t.getTimeoutInMillis("1", nlj) );
+		assertEquals(  5000L, t.getTimeoutInMillis("2", hash) );
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void zeroTimeoutIsRejected() throws IOException
+	{
+		final File f = tmp.newFile("timeouts.csv");
+		try ( FileWriter w = new FileWriter(f) ) {
+			w.write("1, *, 0\n");
+		}
+
+		new TimeoutSettings(10000L).read(f);
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void negativeTimeoutIsRejected() throws IOException
+	{
+		final File f = tmp.newFile("timeouts.csv");
+		try ( FileWriter w = new FileWriter(f) ) {
+			w.write("*, " + nlj.getName() + ", -2.5\n");
+		}
+
+		new TimeoutSettings(10000L).read(f);
+	}
+}
@@ -0,0 +1,91 @@
+package se.liu.ida.jenaext.optplus.graph;
+
+import static org.junit.Assert.assertEquals;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.junit.Test;
+
+public class CachingGraphTest
+{
+	final Node p = NodeFactory.createURI("http://example.org/p");
+
+	@Test
+	public void hitsAndMisses()
+	{
+		final CachingGraph g = new CachingGraph( createGraph(3), new FindCache(100, 10) );
+
+		assertEquals( 3, g.find(Node.ANY, p, Node.ANY).toList().size() );
+		assertEquals( 3, g.find(Node.ANY, p, Node.ANY).toList().size() );
+		assertEquals( 1, g.find(s(1), p, Node.ANY).toList().size() );
+
+		assertEquals( 1L, g.getHitsCounter() );
+		assertEquals( 2L, g.getMissesCounter() );
+		assertEquals( 0L, g.getEvictionsCounter() );
+	}
+
+	@Test
+	public void largeResultsAreNotCached()
+	{
+		final FindCache cache = new FindCache(100, 2);
+		final CachingGraph g = new CachingGraph( createGraph(3), cache );
+
+		assertEquals( 3, g.find(Node.ANY, p, Node.ANY).toList().size() );
+		assertEquals( 3, g.find(Node.ANY, p, Node.ANY).toList().size() );
+
+		assertEquals( 0L, g.getHitsCounter() );
+		assertEquals( 2L, g.getMissesCounter() );
+		assertEquals( 0, cache.size() );
+	}
+
+	@Test
+	public void leastRecentlyUsedIsEvicted()
+	{
+		final FindCache cache = new FindCache(2, 2);
+		final CachingGraph g = new CachingGraph( createGraph(3), cache );
+
+		g.find(s(0), p, Node.ANY).toList();
+		g.find(s(1), p, Node.ANY).toList();
+		g.find(s(0), p, Node.ANY).toList(); // hit, makes s(1) the eldest
+		g.find(s(2), p, Node.ANY).toList(); // evicts s(1)
+		g.find(s(0), p, Node.ANY).toList(); // hit
+
+		assertEquals( 2L, g.getHitsCounter() );
+		assertEquals( 3L, g.getMissesCounter() );
+		assertEquals( 1L, g.getEvictionsCounter() );
+		assertEquals( 2, cache.size() );
+	}
+
+	@Test
+	public void emptyResultsAreBounded()
+	{
+		final FindCache cache = new FindCache(10, 10);
+		final CachingGraph g = new CachingGraph( createGraph(3), cache );
+
+		final Node q = NodeFactory.createURI("http://example.org/q");
+		for ( int i = 0; i < 100; ++i )
+			assertEquals( 0, g.find(s(i), q, Node.ANY).toList().size() );
+
+		assertEquals( 10, cache.size() );
+		assertEquals( 90L, g.getEvictionsCounter() );
+
+		g.find(s(99), q, Node.ANY).toList();
+		assertEquals( 1L, g.getHitsCounter() );
+	}
+
+	protected Node s( int i )
+	{
+		return NodeFactory.createURI("http://example.org/s" + i);
+	}
+
+	protected Graph createGraph( int size )
+	{
+		final Graph g = GraphFactory.createDefaultGraph();
+		for ( int i = 0; i < size; ++i )
+			g.add( Triple.create(s(i), p, NodeFactory.createURI("http://example.org/o")) );
+		return g;
+	}
+}
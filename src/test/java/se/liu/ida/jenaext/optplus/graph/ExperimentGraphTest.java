@@ -0,0 +1,104 @@
+package se.liu.ida.jenaext.optplus.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.apache.jena.util.iterator.ExtendedIterator;
+import org.junit.Test;
+
+public class ExperimentGraphTest
+{
+	final Node s = NodeFactory.createURI("http://example.org/s");
+	final Node p = NodeFactory.createURI("http://example.org/p");
+	final Node o1 = NodeFactory.createURI("http://example.org/o1");
+	final Node o2 = NodeFactory.createURI("http://example.org/o2");
+
+	@Test
+	public void patternShapes()
+	{
+		assertEquals( "SPO", ExperimentGraph.PATTERN_SHAPES[ExperimentGraph.getPatternShape(s, p, o1)] );
+		assertEquals( "?P?", ExperimentGraph.PATTERN_SHAPES[ExperimentGraph.getPatternShape(Node.ANY, p, Node.ANY)] );
+		assertEquals( "S??", ExperimentGraph.PATTERN_SHAPES[ExperimentGraph.getPatternShape(s, NodeFactory.createVariable("x"), null)] );
+		assertEquals( "???", ExperimentGraph.PATTERN_SHAPES[ExperimentGraph.getPatternShape(Node.ANY, Node.ANY, Node.ANY)] );
+	}
+
+	@Test
+	public void countersByPatternAndEarlyClose()
+	{
+		final ExperimentGraph g = new ExperimentGraph( createGraph() );
+
+		final ExtendedIterator<Triple> it1 = g.find(Node.ANY, p, Node.ANY);
+		it1.next();
+		it1.close();
+
+		final ExtendedIterator<Triple> it2 = g.find(s, p, o1);
+		while ( it2.hasNext() )
+			it2.next();
+		it2.close();
+
+		g.contains(s, p, o2);
+
+		assertEquals( 3L, g.getReadAccessCounter() );
+		assertEquals( 2L, g.getTriplesCounter() );
+		assertEquals( 1L, g.getFindsByPattern()[0] );
+		assertEquals( 1L, g.getFindsByPattern()[5] );
+		assertEquals( 1L, g.getContainsByPattern()[0] );
+		assertEquals( 1L, g.getEarlyClosedIteratorsCounter() );
+
+		g.resetReadAccessCounter();
+		assertEquals( 0L, g.getFindsByPattern()[5] );
+		assertEquals( 0L, g.getEarlyClosedIteratorsCounter() );
+	}
+
+	@Test
+	public void triplesBudget()
+	{
+		final ExperimentGraph g = new ExperimentGraph( createGraph() );
+		g.setBudget( new WorkBudget(WorkBudget.UNLIMITED, 1L, WorkBudget.UNLIMITED) );
+
+		final ExtendedIterator<Triple> it = g.find(Node.ANY, p, Node.ANY);
+		it.next();
+		try {
+			it.next();
+			fail("the budget of 1 triple is exceeded");
+		}
+		catch ( BudgetExceededException e ) {
+			assertEquals( "triples", e.getResource() );
+			assertEquals( 1L, e.getAccesses() );
+			assertEquals( 2L, e.getTriples() );
+		}
+	}
+
+	@Test
+	public void accessesBudget()
+	{
+		final ExperimentGraph g = new ExperimentGraph( createGraph() );
+		g.setBudget( new WorkBudget(1L, WorkBudget.UNLIMITED, WorkBudget.UNLIMITED) );
+
+		g.contains(s, p, o1);
+		try {
+			g.find(s, p, Node.ANY);
+			fail("the budget of 1 access is exceeded");
+		}
+		catch ( BudgetExceededException e ) {
+			assertEquals( "accesses", e.getResource() );
+			assertEquals( 2L, e.getAccesses() );
+		}
+
+		// wrapped by the executor that ran the query
+		assertEquals( "accesses", BudgetExceededException.find( new RuntimeException(new BudgetExceededException("accesses", 1L, 2L, 0L, -1L)) ).getResource() );
+	}
+
+	protected Graph createGraph()
+	{
+		final Graph g = GraphFactory.createDefaultGraph();
+		g.add( Triple.create(s, p, o1) );
+		g.add( Triple.create(s, p, o2) );
+		return g;
+	}
+}
@@ -0,0 +1,90 @@
+package se.liu.ida.jenaext.optplus.jfr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.apache.jena.util.iterator.ExtendedIterator;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import se.liu.ida.jenaext.optplus.graph.ExperimentGraph;
+
+public class GraphAccessEventTest
+{
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	final Node s = NodeFactory.createURI("http://example.org/s");
+	final Node p = NodeFactory.createURI("http://example.org/p");
+
+	@Test
+	public void recordsAccesses() throws IOException
+	{
+		final Graph base = GraphFactory.createDefaultGraph();
+		for ( int i = 0; i < 3; ++i )
+			base.add( Triple.create(s, p, NodeFactory.createURI("http://example.org/o" + i)) );
+		final ExperimentGraph g = new ExperimentGraph(base);
+
+		assertTrue( FlightRecorderEvents.INSTANCE.isAvailable() );
+		assertFalse( GraphAccessEvent.isRecorded() );
+		assertNull( FlightRecorderEvents.INSTANCE.beginGraphAccess() );
+
+		final File f = tmp.newFile("test.jfr");
+		try ( Recording r = new Recording() )
+		{
+			r.enable(GraphAccessEvent.NAME).withThreshold(Duration.ZERO);
+			r.start();
+			assertTrue( GraphAccessEvent.isRecorded() );
+
+			final ExtendedIterator<Triple> it = g.find(s, p, Node.ANY);
+			while ( it.hasNext() )
+				it.next();
+			it.close();
+
+			g.contains(s, p, s);
+
+			r.stop();
+			r.dump( f.toPath() );
+		}
+
+		final List<RecordedEvent> events = new ArrayList<>();
+		for ( RecordedEvent e : RecordingFile.readAllEvents(f.toPath()) ) {
+			if ( e.getEventType().getName().equals(GraphAccessEvent.NAME) )
+				events.add(e);
+		}
+
+		// every call is an event of its own, not including the time between the calls
+		final String[] operations = { "find", "hasNext", "next", "hasNext", "next", "hasNext", "next", "hasNext", "contains" };
+		assertEquals( operations.length, events.size() );
+		for ( int i = 0; i < operations.length; ++i )
+			assertEquals( operations[i], events.get(i).getString("operation") );
+
+		assertEquals( "SP?", events.get(0).getString("patternShape") );
+		assertEquals( "SP?", events.get(2).getString("patternShape") );
+		assertEquals( 1L, events.get(1).getLong("results") );
+		assertEquals( 0L, events.get(7).getLong("results") );
+		assertEquals( 0L, events.get(8).getLong("results") );
+
+		// the counters are the same with and without recording
+		assertEquals( 2L, g.getReadAccessCounter() );
+		assertEquals( 3L, g.getTriplesCounter() );
+	}
+
+}
@@ -0,0 +1,93 @@
+package se.liu.ida.jenaext.optplus.load;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class QueryMixTest
+{
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	@Test
+	public void roundRobin()
+	{
+		final QueryMix m = new QueryMix( Arrays.asList("a", "b", "c"), null );
+		assertFalse( m.isWeighted() );
+		assertEquals( 0, m.next(0L, null) );
+		assertEquals( 2, m.next(5L, null) );
+	}
+
+	@Test
+	public void weighted() throws IOException
+	{
+		final File f = tmp.newFile("queryids.csv");
+		try ( PrintWriter w = new PrintWriter(f) ) {
+			w.println("1, 1");
+			w.println("2, 0");
+			w.println("3, 3");
+			w.println("4, not a weight");
+		}
+
+		final QueryMix m = QueryMix.read(f, true);
+		assertTrue( m.isWeighted() );
+		assertEquals( Arrays.asList("1", "2", "3", "4"), m.getQueryIDs() );
+
+		final int[] counts = new int[4];
+		final Random r = new Random(42L);
+		for ( int i = 0; i < 50000; ++i )
+			counts[ m.next(i, r) ]++;
+
+		assertEquals( 0, counts[1] );
+		assertEquals( 10000d, counts[0], 500d );
+		assertEquals( 30000d, counts[2], 500d );
+		assertEquals( 10000d, counts[3], 500d );
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void allWeightsZero()
+	{
+		new QueryMix( Arrays.asList("a"), new double[] {0d} );
+	}
+
+	@Test
+	public void statistics()
+	{
+		final LoadStatistics s1 = new LoadStatistics();
+		final LoadStatistics s2 = new LoadStatistics();
+		s1.recordCompleted(2000000L, 10L, 5L, 20L);
+		s1.recordTimeout();
+		s2.recordCompleted(4000000L, 30L, 5L, 20L);
+		s2.recordError();
+
+		s1.add(s2);
+		assertEquals( 2L, s1.getCompleted() );
+		assertEquals( 1L, s1.getTimeouts() );
+		assertEquals( 1L, s1.getErrors() );
+		assertEquals( 40L, s1.getSolutions() );
+		assertEquals( 4d, s1.getLatencyInMillis(100d), 0d );
+	}
+
+	@Test
+	public void timeoutsEnterLatencies()
+	{
+		final LoadStatistics s = new LoadStatistics();
+		s.recordCompleted(2000000L, 10L, 5L, 20L);
+		s.recordTimeout(10000000000L);
+
+		assertEquals( 1L, s.getCompleted() );
+		assertEquals( 1L, s.getTimeouts() );
+		assertEquals( 10000d, s.getLatencyInMillis(100d), 10000d * 0.03d );
+	}
+
+}
@@ -0,0 +1,86 @@
+package se.liu.ida.jenaext.optplus.monitor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Scanner;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.junit.Test;
+
+import se.liu.ida.jenaext.optplus.graph.ExperimentGraph;
+import se.liu.ida.jenaext.optplus.trace.InMemorySolutionTrace;
+
+public class ExperimentProgressTest
+{
+	@Test
+	public void countsOutcomes()
+	{
+		final ExperimentProgress p = new ExperimentProgress();
+		p.setPlannedQueries(4L);
+
+		p.queryStarted("A", "1");
+		assertEquals( 1, p.getCurrentQueries().length );
+		p.queryFinished("A", "1", "1, 10, 100");
+		p.queryFinished("A", "2", "2, TIMEOUT, 10.0 seconds");
+		p.queryFinished("A", "3", "3, ERROR: reading the query failed");
+
+		assertEquals( 0, p.getCurrentQueries().length );
+		assertEquals( 1L, p.getCompletedQueries() );
+		assertEquals( 1L, p.getTimedOutQueries() );
+		assertEquals( 1L, p.getFailedQueries() );
+		assertTrue( p.getEstimatedRemainingSeconds() >= 0d );
+	}
+
+	@Test
+	public void tracksExecutions()
+	{
+		final ExperimentProgress p = new ExperimentProgress();
+		final ExperimentGraph g = new ExperimentGraph( GraphFactory.createDefaultGraph() );
+		final InMemorySolutionTrace t = new InMemorySolutionTrace();
+
+		final ExperimentProgress.Execution e = p.executionStarted("A", "1", g, t);
+		g.find( Node.ANY, Node.ANY, Node.ANY ).close();
+		t.append(1L, 1L, 0L);
+		t.append(2L, 1L, 0L);
+
+		assertEquals( 1, p.getCurrentExecutions().length );
+		assertEquals( 1L, p.getCurrentAccesses() );
+		assertEquals( 2L, p.getCurrentSolutions() );
+		assertTrue( MetricsHttpServer.format(p).contains("optplus_execution_solutions{configuration=\"A\",query=\"1\"} 2\n") );
+
+		p.executionFinished(e);
+		assertEquals( 0, p.getCurrentExecutions().length );
+		assertTrue( p.getSolutionsPerSecond() > 0d );
+	}
+
+	@Test
+	public void servesMetrics() throws IOException
+	{
+		final ExperimentProgress p = new ExperimentProgress();
+		p.queryFinished("A", "1", "1, TIMEOUT, 10.0 seconds");
+
+		final MetricsHttpServer server = new MetricsHttpServer(p, 0);
+		server.start();
+		try
+		{
+			final URL url = new URL( "http://localhost:" + server.getPort() + MetricsHttpServer.PATH );
+			final HttpURLConnection c = (HttpURLConnection) url.openConnection();
+			assertEquals( 200, c.getResponseCode() );
+			try ( InputStream in = c.getInputStream(); Scanner s = new Scanner(in, "UTF-8") ) {
+				final String body = s.useDelimiter("\\A").next();
+				assertTrue( body.contains("optplus_queries_done_total{outcome=\"timeout\"} 1\n") );
+			}
+		}
+		finally
+		{
+			server.stop();
+		}
+	}
+
+}
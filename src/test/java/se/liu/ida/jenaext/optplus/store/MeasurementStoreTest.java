@@ -0,0 +1,139 @@
+package se.liu.ida.jenaext.optplus.store;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import se.liu.ida.jenaext.optplus.MeasurementColumns;
+
+public class MeasurementStoreTest
+{
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	final List<String> csvColumns = Arrays.asList("queryID", "solutions", "", "time");
+
+	@Test
+	public void appendAndScan() throws IOException
+	{
+		final File dir = new File( tmp.getRoot(), "store" );
+
+		MeasurementStoreWriter w = new MeasurementStoreWriter(dir, csvColumns);
+		w.appendLine("r1", "A", "1, 10, , 2.5");
+		w.appendLine("r1", "A", "2, TIMEOUT, 10 seconds");
+		w.appendLine("r1", "B", "1, 10, , 1.5");
+		w.close();
+
+		w = new MeasurementStoreWriter(dir, csvColumns);
+		w.appendLine("r2", "A", "1, 11, , 3.5");
+		w.appendLine("r2", "A", "2, ERROR: reading the query failed");
+		w.close();
+
+		final MeasurementStore s = new MeasurementStore(dir);
+		assertEquals( 5, s.size() );
+		assertEquals( Arrays.asList("solutions", "time"), s.getColumns() );
+		assertEquals( Arrays.asList("r1", "r2"), s.getRuns() );
+
+		final int[] rowsA = s.select(null, "A");
+		assertArrayEquals( new int[] {0, 1, 3, 4}, rowsA );
+
+		final double[] times = s.scan("time", rowsA);
+		assertEquals( 2.5d, times[0], 0d );
+		assertTrue( Double.isNaN(times[1]) );
+		assertEquals( 3.5d, times[2], 0d );
+
+		assertEquals( StoreFormat.STATUS_TIMEOUT, s.getStatus(1) );
+		assertEquals( StoreFormat.STATUS_ERROR, s.getStatus(4) );
+		assertEquals( "2", s.getQueryID(4) );
+
+		final int row = s.findRow( s.getRuns().indexOf("r2"), s.getConfigurations().indexOf("A"), s.getQueryIDs().indexOf("1") );
+		assertEquals( 3, row );
+		assertEquals( 11d, s.get("solutions", row), 0d );
+		assertEquals( -1, s.findRow(1, 1, 0) );
+	}
+
+	@Test
+	public void failedImportLeavesStoreUnchanged() throws IOException
+	{
+		final File dir = new File( tmp.getRoot(), "store" );
+
+		final MeasurementStoreWriter w = new MeasurementStoreWriter(dir, csvColumns);
+		w.appendLine("r1", "A", "1, 10, , 2.5");
+		w.close();
+
+		final File csv = tmp.newFile("measurements-B.csv");
+		MeasurementColumns.writeSidecar(csv, csvColumns);
+		try ( PrintWriter pw = new PrintWriter(csv) ) {
+			for ( int i = 0; i < 5000; ++i ) // more than a buffer of rows
+				pw.println( i + ", 10, , 1.5" );
+			pw.println("5000, ten, , 1.5");
+		}
+
+		try {
+			ImportMeasurements.importFiles( dir, "r2", Arrays.asList(csv) );
+			fail("the line with 'ten' cannot be parsed");
+		}
+		catch ( NumberFormatException e ) {
+			// expected
+		}
+
+		MeasurementStore s = new MeasurementStore(dir);
+		assertEquals( 1, s.size() );
+		assertEquals( Arrays.asList("r1"), s.getRuns() );
+		assertEquals( Arrays.asList("A"), s.getConfigurations() );
+		assertEquals( 8L, new File(dir, "time" + StoreFormat.METRIC_COLUMN_SUFFIX).length() );
+		assertEquals( 4L, new File(dir, StoreFormat.QUERY_COLUMN).length() );
+
+		// the run can be imported again once the file is fixed
+		try ( PrintWriter pw = new PrintWriter(csv) ) {
+			pw.println("1, 10, , 1.5");
+		}
+		assertEquals( 1L, ImportMeasurements.importFiles(dir, "r2", Arrays.asList(csv)) );
+
+		s = new MeasurementStore(dir);
+		assertEquals( 2, s.size() );
+		assertEquals( "r2", s.getRun(1) );
+		assertEquals( "B", s.getConfiguration(1) );
+		assertEquals( "1", s.getQueryID(1) );
+	}
+
+	@Test
+	public void runNameWithoutRows() throws IOException
+	{
+		final File dir = new File( tmp.getRoot(), "store" );
+
+		MeasurementStoreWriter w = new MeasurementStoreWriter(dir, csvColumns);
+		w.appendLine("r1", "A", "1, 10, , 2.5");
+		w.close();
+
+		// as left by a writer that was killed after committing the dictionaries
+		try ( PrintWriter pw = new PrintWriter(new FileOutputStream(new File(dir, StoreFormat.RUNS_FILE), true)) ) {
+			pw.println("r2");
+		}
+
+		w = new MeasurementStoreWriter(dir, csvColumns);
+		assertTrue( w.containsRun("r1") );
+		assertFalse( w.containsRun("r2") );
+		w.abort();
+	}
+
+	@Test
+	public void configurationFromFileName()
+	{
+		assertEquals( "Opt-true-QueryIterNestedLoopJoinPlus",
+		              ImportMeasurements.getConfigurationName(new File("/x/measurements-Opt-true-QueryIterNestedLoopJoinPlus.csv")) );
+	}
+}
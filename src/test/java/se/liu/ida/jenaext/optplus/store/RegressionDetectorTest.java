@@ -0,0 +1,91 @@
+package se.liu.ida.jenaext.optplus.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import se.liu.ida.jenaext.optplus.store.RegressionDetector.Change;
+
+public class RegressionDetectorTest
+{
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	final List<String> csvColumns = Arrays.asList( "queryID", "solutions", "accesses", "triples",
+	                                               "overallTimeMedian", "overallTimeCILow", "overallTimeCIHigh",
+	                                               "execTimeMedian", "execTimeCILow", "execTimeCIHigh" );
+
+	@Test
+	public void detectsChanges() throws IOException
+	{
+		final File dir = new File( tmp.getRoot(), "store" );
+		final MeasurementStoreWriter w = new MeasurementStoreWriter(dir, csvColumns);
+		w.appendLine("r1", "A", "1, 10, 100, 1000, 10, 9, 11, 5, 4, 6");
+		w.appendLine("r1", "A", "2, 10, 100, 1000, 10, 9, 11, 5, 4, 6");
+		w.appendLine("r1", "A", "3, 10, 100, 1000, 10, 9, 11, 5, 4, 6");
+		w.appendLine("r1", "A", "4, 10, 100, 1000, 10, 9, 11, 5, 4, 6");
+		w.appendLine("r1", "A", "5, TIMEOUT, 10 seconds");
+
+		// 1: slower, but the confidence intervals overlap
+		w.appendLine("r2", "A", "1, 10, 100, 1000, 12, 10, 14, 5, 4, 6");
+		// 2: significantly slower, and more accesses
+		w.appendLine("r2", "A", "2, 10, 150, 1000, 20, 19, 21, 5, 4, 6");
+		// 3: timeout
+		w.appendLine("r2", "A", "3, TIMEOUT, 10 seconds");
+		// 4: different result, but faster
+		w.appendLine("r2", "A", "4, 11, 100, 1000, 5, 4, 6, 5, 4, 6");
+		// 5: no timeout anymore
+		w.appendLine("r2", "A", "5, 10, 100, 1000, 10, 9, 11, 5, 4, 6");
+		w.close();
+
+		final List<Change> changes = new RegressionDetector( new MeasurementStore(dir) ).compare( "r2", Arrays.asList("r1") );
+		assertEquals( 6, changes.size() );
+
+		assertChange( changes.get(0), "3", RegressionDetector.STATUS, true );
+		assertChange( changes.get(1), "4", RegressionDetector.SOLUTIONS, true );
+		assertChange( changes.get(2), "2", "overallTime", true );
+		assertEquals( 1d, changes.get(2).relativeChange, 0d );
+		assertChange( changes.get(3), "2", "accesses", true );
+		assertChange( changes.get(4), "4", "overallTime", false );
+		assertChange( changes.get(5), "5", RegressionDetector.STATUS, false );
+	}
+
+	@Test
+	public void usesRangeOfBaselines() throws IOException
+	{
+		final File dir = new File( tmp.getRoot(), "store" );
+		final MeasurementStoreWriter w = new MeasurementStoreWriter(dir, csvColumns);
+		w.appendLine("r1", "A", "1, 10, 100, 1000, 10, 9, 11, 5, 4, 6");
+		w.appendLine("r2", "A", "1, 10, 120, 1000, 14, 13, 15, 5, 4, 6");
+		w.appendLine("r3", "A", "1, 10, 120, 1000, 14, 13, 15, 5, 4, 6");
+		w.close();
+
+		final RegressionDetector d = new RegressionDetector( new MeasurementStore(dir) );
+		assertEquals( 2, d.compare("r3", Arrays.asList("r1")).size() );
+		assertTrue( d.compare("r3", Arrays.asList("r1", "r2")).isEmpty() );
+
+		d.setTimeThreshold(0.5d);
+		d.setCountThreshold(0.5d);
+		assertTrue( d.compare("r3", Arrays.asList("r1")).isEmpty() );
+	}
+
+	protected void assertChange( Change c, String queryID, String metric, boolean regression )
+	{
+		assertEquals( queryID, c.queryID );
+		assertEquals( metric, c.metric );
+		if ( regression )
+			assertTrue( c.regression );
+		else
+			assertFalse( c.regression );
+	}
+
+}
@@ -0,0 +1,58 @@
+package se.liu.ida.jenaext.optplus.trace;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LogHistogramTest
+{
+	@Test
+	public void smallValuesAreExact()
+	{
+		final LogHistogram h = new LogHistogram();
+		for ( long v = 0L; v < LogHistogram.SUB_BUCKETS; ++v )
+			h.record(v);
+
+		assertEquals( LogHistogram.SUB_BUCKETS, h.getCount() );
+		assertEquals( 0L, h.getValueAtPercentile(1d) );
+		assertEquals( 15L, h.getValueAtPercentile(50d) );
+		assertEquals( LogHistogram.SUB_BUCKETS - 1, h.getValueAtPercentile(100d) );
+	}
+
+	@Test
+	public void relativeError()
+	{
+		for ( long v = 1L; v > 0L && v < Long.MAX_VALUE / 3; v = 3*v + 1 )
+		{
+			final LogHistogram h = new LogHistogram();
+			h.record(0L);
+			h.record(v);
+			h.record(Long.MAX_VALUE);
+
+			final long p50 = h.getValueAtPercentile(50d);
+			assertTrue( v + " -> " + p50, p50 >= v );
+			assertTrue( v + " -> " + p50, p50 - v <= v / LogHistogram.SUB_BUCKETS );
+		}
+	}
+
+	@Test
+	public void percentilesAndAdd()
+	{
+		final LogHistogram h1 = new LogHistogram();
+		final LogHistogram h2 = new LogHistogram();
+		for ( int i = 0; i < 99; ++i )
+			h1.record(1000L);
+		h2.record(1000000L);
+
+		assertEquals( 0L, new LogHistogram().getMin() );
+		h1.add(h2);
+		assertEquals( 100L, h1.getCount() );
+		assertEquals( 1000L, h1.getMin() );
+		assertEquals( 1000000L, h1.getMax() );
+		assertTrue( h1.getValueAtPercentile(99d) < 1032L );
+		assertEquals( 1000000L, h1.getValueAtPercentile(99.5d) );
+		assertEquals( 0L, new LogHistogram().getValueAtPercentile(50d) );
+	}
+
+}
@@ -0,0 +1,131 @@
+package se.liu.ida.jenaext.optplus.trace;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SolutionTraceTest
+{
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	@Test
+	public void writeAndRead() throws IOException
+	{
+		final File f = tmp.newFile();
+		writeTrace(f, 1000);
+
+		final SolutionTraceReader r = new SolutionTraceReader(f);
+		assertEquals( 1000L, r.size() );
+		assertEquals( 0L, r.getTime(0) );
+		assertEquals( 999L, r.getTime(999) );
+		assertEquals( 1998L, r.getAccesses(999) );
+		assertEquals( 2997L, r.getTriples(999) );
+		r.close();
+	}
+
+	@Test
+	public void emptyTrace() throws IOException
+	{
+		final File f = tmp.newFile();
+		writeTrace(f, 0);
+
+		final SolutionTraceReader r = new SolutionTraceReader(f);
+		assertEquals( 0L, r.size() );
+
+		final SolutionTraceSummary s = SolutionTraceSummary.create(r);
+		assertEquals( 0L, s.timeToPercentageOfResult[9] );
+		assertEquals( 0L, s.timeTo10Mappings[9] );
+		r.close();
+	}
+
+	@Test
+	public void summary() throws IOException
+	{
+		final File f = tmp.newFile();
+		writeTrace(f, 200);
+
+		final SolutionTraceReader r = new SolutionTraceReader(f);
+		final SolutionTraceSummary s = SolutionTraceSummary.create(r);
+		assertEquals( 20L,  s.timeToPercentageOfResult[0] );
+		assertEquals( 199L, s.timeToPercentageOfResult[9] );
+		assertEquals( 10L,  s.timeTo10Mappings[0] );
+		assertEquals( 200L, s.accessesTo10Mappings[9] );
+		r.close();
+	}
+
+	@Test
+	public void exactly100Solutions() throws IOException
+	{
+		final File f = tmp.newFile();
+		writeTrace(f, 100);
+
+		final SolutionTraceReader r = new SolutionTraceReader(f);
+		final SolutionTraceSummary s = SolutionTraceSummary.create(r);
+		assertEquals( 99L, s.timeToPercentageOfResult[9] );
+		assertEquals( 0L,  s.timeTo10Mappings[9] );
+		r.close();
+	}
+
+	@Test
+	public void inMemoryTraceGrows()
+	{
+		final int solutions = 3 * InMemorySolutionTrace.RECORDS_PER_CHUNK + 5;
+		final InMemorySolutionTrace t = new InMemorySolutionTrace();
+		for ( int i = 0; i < solutions; ++i )
+			t.append( i, 2*i, 3*i );
+
+		assertEquals( solutions, t.size() );
+		assertEquals( solutions-1, t.getTime(solutions-1) );
+		assertEquals( 2L*InMemorySolutionTrace.RECORDS_PER_CHUNK, t.getAccesses(InMemorySolutionTrace.RECORDS_PER_CHUNK) );
+		assertEquals( 3L*(solutions-1), t.getTriples(solutions-1) );
+	}
+
+	@Test
+	public void checkpoints()
+	{
+		// a stall of 1000 ns before the 50th solution
+		final InMemorySolutionTrace t = new InMemorySolutionTrace();
+		for ( int i = 0; i < 100; ++i )
+			t.append( (i < 49) ? 10+i : 1010+i, i, 2*i );
+
+		final SolutionCheckpoints c = SolutionCheckpoints.parse("1, 50, 200, p50, max");
+		assertEquals( Arrays.asList("", "timeToFirst1", "timeToFirst50", "timeToFirst200",
+		                            "", "accessesToFirst1", "accessesToFirst50", "accessesToFirst200",
+		                            "", "triplesToFirst1", "triplesToFirst50", "triplesToFirst200",
+		                            "", "gapP50", "gapMax"),
+		              c.getColumnNames() );
+		assertEquals( "1,50,200,p50,max", c.toString() );
+
+		final SolutionTraceSummary s = SolutionTraceSummary.create(t, c);
+		assertEquals( 10L,   s.timeToFirst[0] );
+		assertEquals( 1059L, s.timeToFirst[1] );
+		assertEquals( 0L,    s.timeToFirst[2] );
+		assertEquals( 49L,   s.accessesToFirst[1] );
+		assertEquals( 98L,   s.triplesToFirst[1] );
+		assertEquals( 1L,    s.gapPercentiles[0] );
+		assertEquals( 1001L, s.gapPercentiles[1] );
+		assertEquals( 100L,  s.gapHistogram.getCount() );
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void illegalCheckpoint()
+	{
+		SolutionCheckpoints.parse("10,p0");
+	}
+
+	protected void writeTrace( File f, int solutions ) throws IOException
+	{
+		final SolutionTraceWriter w = new SolutionTraceWriter(f, 16);
+		for ( int i = 0; i < solutions; ++i )
+			w.append( i, 2*i, 3*i );
+		w.close();
+		assertEquals( solutions, w.getSolutionCount() );
+	}
+}